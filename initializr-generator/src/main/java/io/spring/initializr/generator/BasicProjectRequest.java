@@ -47,6 +47,9 @@ public class BasicProjectRequest {
 	// The base directory to create in the archive - no baseDir by default
 	private String baseDir;
 
+	// The compression of the archive (store, fast, default or best) - server default
+	private String compression;
+
 	public List<String> getStyle() {
 		return style;
 	}
@@ -173,4 +176,12 @@ public class BasicProjectRequest {
 		this.baseDir = baseDir;
 	}
 
+	public String getCompression() {
+		return compression;
+	}
+
+	public void setCompression(String compression) {
+		this.compression = compression;
+	}
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import io.spring.initializr.metadata.InitializrConfiguration.Env;
+import io.spring.initializr.metadata.InitializrConfiguration.Env.Maven.ParentPom;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.util.Version;
+
+/**
+ * The generation settings that only depend on the Spring Boot version of a project and
+ * on the {@link InitializrMetadata} it is generated against. Resolving a profile parses
+ * the version once and evaluates every version check upfront so that a profile can be
+ * shared by all the projects using the same Spring Boot version.
+ *
+ * @author Stephane Nicoll
+ */
+public final class BootVersionProfile {
+
+	private static final Version VERSION_1_2_0_RC1 = Version.parse("1.2.0.RC1");
+
+	private static final Version VERSION_1_3_0_M1 = Version.parse("1.3.0.M1");
+
+	private static final Version VERSION_1_4_0_M2 = Version.parse("1.4.0.M2");
+
+	private static final Version VERSION_1_4_0_M3 = Version.parse("1.4.0.M3");
+
+	private static final Version VERSION_1_4_2_M1 = Version.parse("1.4.2.M1");
+
+	private static final Version VERSION_1_5_0_M1 = Version.parse("1.5.0.M1");
+
+	private static final Version VERSION_2_0_0_M1 = Version.parse("2.0.0.M1");
+
+	private static final Version VERSION_2_0_0_M3 = Version.parse("2.0.0.M3");
+
+	private static final Version VERSION_2_0_0_M6 = Version.parse("2.0.0.M6");
+
+	private final String bootVersion;
+
+	private final Version version;
+
+	private final boolean release;
+
+	private final boolean kotlinSupport;
+
+	private final boolean springBootApplication;
+
+	private final boolean bootOneThreeAvailable;
+
+	private final boolean bootTwoZeroAvailable;
+
+	private final String springBootPluginName;
+
+	private final boolean newTestInfrastructure;
+
+	private final String servletInitializrClass;
+
+	private final String gradleWrapperFamily;
+
+	private final String kotlinVersion;
+
+	private final ParentPom parentPom;
+
+	private BootVersionProfile(String bootVersion, InitializrMetadata metadata) {
+		this.bootVersion = bootVersion;
+		this.version = Version.safeParse(bootVersion);
+		this.release = bootVersion.contains("RELEASE");
+		// Kotlin supported as of M6
+		this.kotlinSupport = isAvailable(VERSION_2_0_0_M6);
+		this.springBootApplication = isAvailable(VERSION_1_2_0_RC1);
+		// Gradle plugin has changed as from 1.3.0
+		this.bootOneThreeAvailable = isAvailable(VERSION_1_3_0_M1);
+		this.bootTwoZeroAvailable = isAvailable(VERSION_2_0_0_M1);
+		// Gradle plugin has changed again as from 1.4.2
+		this.springBootPluginName = (isAvailable(VERSION_1_4_2_M1)
+				? "org.springframework.boot" : "spring-boot");
+		this.newTestInfrastructure = isAvailable(VERSION_1_4_0_M2);
+		this.servletInitializrClass = resolveServletInitializrClass();
+		this.gradleWrapperFamily = resolveGradleWrapperFamily();
+		Env env = metadata.getConfiguration().getEnv();
+		this.kotlinVersion = env.getKotlin().resolveKotlinVersion(this.version);
+		this.parentPom = env.getMaven().resolveParentPom(bootVersion);
+	}
+
+	/**
+	 * Resolve the profile of the specified Spring Boot version.
+	 * @param bootVersion the Spring Boot version
+	 * @param metadata the metadata to use
+	 * @return the profile of that version
+	 */
+	public static BootVersionProfile resolve(String bootVersion,
+			InitializrMetadata metadata) {
+		return new BootVersionProfile(bootVersion, metadata);
+	}
+
+	private boolean isAvailable(Version minimum) {
+		return minimum.compareTo(this.version) <= 0;
+	}
+
+	private String resolveServletInitializrClass() {
+		if (!isAvailable(VERSION_1_4_0_M3)) {
+			return "org.springframework.boot.context.web.SpringBootServletInitializer";
+		}
+		else if (!isAvailable(VERSION_2_0_0_M1)) {
+			return "org.springframework.boot.web.support.SpringBootServletInitializer";
+		}
+		else {
+			return "org.springframework.boot.web.servlet.support.SpringBootServletInitializer";
+		}
+	}
+
+	private String resolveGradleWrapperFamily() {
+		if (VERSION_2_0_0_M3.compareTo(this.version) < 0) {
+			return "gradle4";
+		}
+		return (isAvailable(VERSION_1_5_0_M1) ? "gradle3" : "gradle");
+	}
+
+	public String getBootVersion() {
+		return this.bootVersion;
+	}
+
+	public Version getVersion() {
+		return this.version;
+	}
+
+	public boolean isRelease() {
+		return this.release;
+	}
+
+	public boolean isKotlinSupport() {
+		return this.kotlinSupport;
+	}
+
+	public boolean isSpringBootApplication() {
+		return this.springBootApplication;
+	}
+
+	public boolean isBootOneThreeAvailable() {
+		return this.bootOneThreeAvailable;
+	}
+
+	public boolean isBootTwoZeroAvailable() {
+		return this.bootTwoZeroAvailable;
+	}
+
+	public String getSpringBootPluginName() {
+		return this.springBootPluginName;
+	}
+
+	public boolean isNewTestInfrastructure() {
+		return this.newTestInfrastructure;
+	}
+
+	public String getServletInitializrClass() {
+		return this.servletInitializrClass;
+	}
+
+	public String getGradleWrapperFamily() {
+		return this.gradleWrapperFamily;
+	}
+
+	public String getKotlinVersion() {
+		return this.kotlinVersion;
+	}
+
+	public ParentPom getParentPom() {
+		return this.parentPom;
+	}
+
+}
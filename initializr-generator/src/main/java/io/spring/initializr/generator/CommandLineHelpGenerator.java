@@ -16,7 +16,6 @@
 
 package io.spring.initializr.generator;
 
-import java.beans.PropertyDescriptor;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -26,9 +25,9 @@ import io.spring.initializr.metadata.Dependency;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.MetadataElement;
 import io.spring.initializr.metadata.Type;
+import io.spring.initializr.util.BeanProperties;
 import io.spring.initializr.util.TemplateRenderer;
 
-import org.springframework.beans.BeanWrapperImpl;
 
 /**
  * Generate help pages for command-line clients.
@@ -106,6 +105,7 @@ public class CommandLineHelpGenerator {
 		defaults.put("applicationName", metadata.getConfiguration()
 				.generateApplicationName(metadata.getName().getContent()));
 		defaults.put("baseDir", "no base dir");
+		defaults.put("compression", "default");
 		defaults.put("dependencies", "none");
 
 		Map<String, Object> parametersDescription = buildParametersDescription(metadata);
@@ -195,18 +195,22 @@ public class CommandLineHelpGenerator {
 	protected Map<String, Object> buildParametersDescription(
 			InitializrMetadata metadata) {
 		Map<String, Object> result = new LinkedHashMap<>();
-		BeanWrapperImpl wrapper = new BeanWrapperImpl(metadata);
-		for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
-			Object value = wrapper.getPropertyValue(descriptor.getName());
-			BeanWrapperImpl nested = new BeanWrapperImpl(value);
-			if (nested.isReadableProperty("description")
-					&& nested.isReadableProperty("id")) {
-				result.put((String) nested.getPropertyValue("id"),
-						nested.getPropertyValue("description"));
+		BeanProperties<InitializrMetadata> properties = BeanProperties.forInstance(metadata);
+		for (String name : properties.getReadableProperties()) {
+			Object value = properties.get(metadata, name);
+			if (value == null) {
+				continue;
+			}
+			BeanProperties<Object> nested = BeanProperties.forInstance(value);
+			if (nested.isReadable("description") && nested.isReadable("id")) {
+				result.put((String) nested.get(value, "id"),
+						nested.get(value, "description"));
 			}
 		}
 		result.put("applicationName", "application name");
 		result.put("baseDir", "base directory to create in the archive");
+		result.put("compression",
+				"compression of the archive (store, fast, default or best)");
 		return result;
 	}
 
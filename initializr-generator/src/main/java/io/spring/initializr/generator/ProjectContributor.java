@@ -0,0 +1,61 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Contribute files to the projects generated by {@link ProjectGenerator}.
+ * <p>
+ * A contributor declares the {@link #getInputs() properties of the request} it reads
+ * and the {@link #getOutputs() paths} it writes. Contributors are independent of each
+ * other so that they can be invoked in parallel. Their contributions are added, in
+ * order, after the files generated by default. A contribution is cached and reused for
+ * any request with the same values for the declared inputs, unless caching is
+ * {@link ProjectGenerator#setCacheContributions(boolean) disabled}.
+ *
+ * @author Stephane Nicoll
+ * @see ProjectGenerator#setContributors(java.util.List)
+ */
+public interface ProjectContributor {
+
+	/**
+	 * Return the names of the properties of the {@link ProjectRequest} that this
+	 * contributor reads, or {@code null} if the contribution depends on anything else,
+	 * such as the model, and should not be cached.
+	 * @return the properties read by this contributor or {@code null}
+	 */
+	Set<String> getInputs();
+
+	/**
+	 * Return the paths, relative to the root of the project, that this contributor
+	 * writes. A path ending with {@code /} designates a directory and all its content.
+	 * @return the paths written by this contributor
+	 */
+	Set<String> getOutputs();
+
+	/**
+	 * Contribute to the project generated for the specified request.
+	 * @param request the resolved request
+	 * @param model the model used to render the templates of the project, shared by
+	 * all contributors and therefore read-only
+	 * @return the entries to add, relative to the root of the project
+	 */
+	ProjectStructure contribute(ProjectRequest request, Map<String, Object> model);
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * The differences between two {@link ProjectStructure projects}, typically generated
+ * for an existing project and for a modified version of its request.
+ * <p>
+ * Entries backed by the same static resource are identical by definition and are never
+ * rendered. Other files are compared using a hash of their content.
+ *
+ * @author Stephane Nicoll
+ */
+public final class ProjectDelta {
+
+	private final ProjectStructure changes = new ProjectStructure();
+
+	private final List<String> added = new ArrayList<>();
+
+	private final List<String> modified = new ArrayList<>();
+
+	private final List<String> removed = new ArrayList<>();
+
+	private final Map<String, String> hashes = new LinkedHashMap<>();
+
+	private ProjectDelta() {
+	}
+
+	/**
+	 * Compute the differences required to turn the {@code from} project into the
+	 * {@code to} project.
+	 * @param from the original project
+	 * @param to the modified project
+	 * @return the delta between the two projects
+	 */
+	public static ProjectDelta between(ProjectStructure from, ProjectStructure to) {
+		ProjectDelta delta = new ProjectDelta();
+		for (ProjectStructure.Entry entry : to.getEntries()) {
+			ProjectStructure.Entry original = from.getEntry(entry.getPath());
+			if (original == null) {
+				delta.add(entry, delta.added);
+			}
+			else if (!isSame(original, entry)) {
+				delta.add(entry, delta.modified);
+			}
+		}
+		for (ProjectStructure.Entry entry : from.getEntries()) {
+			if (to.getEntry(entry.getPath()) == null) {
+				delta.removed.add(entry.getPath());
+			}
+		}
+		return delta;
+	}
+
+	private static boolean isSame(ProjectStructure.Entry first,
+			ProjectStructure.Entry second) {
+		if (first.isDirectory() || second.isDirectory()) {
+			return first.isDirectory() == second.isDirectory();
+		}
+		if (first.isExecutable() != second.isExecutable()) {
+			return false;
+		}
+		if (first.getLocation() != null
+				&& first.getLocation().equals(second.getLocation())) {
+			return true;
+		}
+		return hash(first).equals(hash(second));
+	}
+
+	private void add(ProjectStructure.Entry entry, List<String> paths) {
+		paths.add(entry.getPath());
+		if (entry.isDirectory()) {
+			this.changes.addDirectory(entry.getPath());
+			return;
+		}
+		if (entry.getLocation() != null) {
+			this.changes.addResource(entry.getPath(), entry.getLocation(),
+					entry::getContent, entry.isExecutable());
+		}
+		else {
+			this.changes.addFile(entry.getPath(), entry::getContent,
+					entry.isExecutable());
+		}
+		this.hashes.put(entry.getPath(), hash(entry));
+	}
+
+	private static String hash(ProjectStructure.Entry entry) {
+		return DigestUtils.md5DigestAsHex(entry.getContent());
+	}
+
+	/**
+	 * Return the entries that were added or modified, with their new content.
+	 * @return the changed entries
+	 */
+	public ProjectStructure getChanges() {
+		return this.changes;
+	}
+
+	/**
+	 * Return the paths of the entries that only exist in the modified project.
+	 * @return the added paths
+	 */
+	public List<String> getAdded() {
+		return Collections.unmodifiableList(this.added);
+	}
+
+	/**
+	 * Return the paths of the entries whose content or mode has changed.
+	 * @return the modified paths
+	 */
+	public List<String> getModified() {
+		return Collections.unmodifiableList(this.modified);
+	}
+
+	/**
+	 * Return the paths of the entries that only exist in the original project.
+	 * @return the removed paths
+	 */
+	public List<String> getRemoved() {
+		return Collections.unmodifiableList(this.removed);
+	}
+
+	/**
+	 * Return the hash of the new content of the specified added or modified file, or
+	 * {@code null} if that path has not changed or is a directory.
+	 * @param path the path of a file
+	 * @return the MD5 hash of its content, as an hexadecimal string
+	 */
+	public String getHash(String path) {
+		return this.hashes.get(path);
+	}
+
+	/**
+	 * Specify if both projects are identical.
+	 * @return {@code true} if nothing has changed
+	 */
+	public boolean isEmpty() {
+		return this.added.isEmpty() && this.modified.isEmpty() && this.removed.isEmpty();
+	}
+
+}
@@ -16,12 +16,15 @@
 
 package io.spring.initializr.generator;
 
-import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -29,7 +32,17 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import io.spring.initializr.InitializrException;
 import io.spring.initializr.metadata.BillOfMaterials;
@@ -37,19 +50,21 @@ import io.spring.initializr.metadata.Dependency;
 import io.spring.initializr.metadata.InitializrConfiguration.Env.Maven.ParentPom;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+import io.spring.initializr.util.BeanProperties;
 import io.spring.initializr.util.TemplateRenderer;
-import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.util.Assert;
-import org.springframework.util.FileSystemUtils;
-import org.springframework.util.StreamUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ConcurrentReferenceHashMap.ReferenceType;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Generate a project based on the configured metadata.
@@ -64,23 +79,11 @@ public class ProjectGenerator {
 
 	private static final Logger log = LoggerFactory.getLogger(ProjectGenerator.class);
 
-	private static final Version VERSION_1_2_0_RC1 = Version.parse("1.2.0.RC1");
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
 
-	private static final Version VERSION_1_3_0_M1 = Version.parse("1.3.0.M1");
+	private static final String NEW_LINE = System.lineSeparator();
 
-	private static final Version VERSION_1_4_0_M2 = Version.parse("1.4.0.M2");
-
-	private static final Version VERSION_1_4_0_M3 = Version.parse("1.4.0.M3");
-
-	private static final Version VERSION_1_4_2_M1 = Version.parse("1.4.2.M1");
-
-	private static final Version VERSION_1_5_0_M1 = Version.parse("1.5.0.M1");
-
-	private static final Version VERSION_2_0_0_M1 = Version.parse("2.0.0.M1");
-
-	private static final Version VERSION_2_0_0_M3 = Version.parse("2.0.0.M3");
-
-	private static final Version VERSION_2_0_0_M6 = Version.parse("2.0.0.M6");
+	private static final int MAX_CONTRIBUTIONS = 512;
 
 	@Autowired
 	private ApplicationEventPublisher eventPublisher;
@@ -100,8 +103,33 @@ public class ProjectGenerator {
 	@Value("${TMPDIR:.}/initializr")
 	private String tmpdir;
 
-	private File temporaryDirectory;
-	private transient Map<String, List<File>> temporaryFiles = new LinkedHashMap<>();
+	@Autowired(required = false)
+	private TemporarySpace temporarySpace;
+
+	private final ConcurrentMap<String, ProjectStructure> skeletons =
+			new ConcurrentHashMap<>();
+
+	private final ProjectContributor gitIgnoreContributor = new GitIgnoreContributor();
+
+	private volatile List<ProjectContributor> contributors = Collections.emptyList();
+
+	private volatile Executor contributorExecutor = ForkJoinPool.commonPool();
+
+	private volatile boolean cacheContributions = true;
+
+	private final Map<List<Object>, ProjectStructure> contributions =
+			new LinkedHashMap<List<Object>, ProjectStructure>(16, 0.75f, true) {
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<List<Object>, ProjectStructure> eldest) {
+					return size() > MAX_CONTRIBUTIONS;
+				}
+
+			};
+
+	private final ConcurrentMap<InitializrMetadata, BootVersionProfiles>
+			bootVersionProfiles = new ConcurrentReferenceHashMap<>(4, ReferenceType.WEAK);
 
 	public InitializrMetadataProvider getMetadataProvider() {
 		return metadataProvider;
@@ -113,6 +141,7 @@ public class ProjectGenerator {
 
 	public void setMetadataProvider(InitializrMetadataProvider metadataProvider) {
 		this.metadataProvider = metadataProvider;
+		this.bootVersionProfiles.clear();
 	}
 
 	public void setRequestResolver(ProjectRequestResolver requestResolver) {
@@ -125,6 +154,7 @@ public class ProjectGenerator {
 
 	public void setProjectResourceLocator(ProjectResourceLocator projectResourceLocator) {
 		this.projectResourceLocator = projectResourceLocator;
+		this.skeletons.clear();
 	}
 
 	public void setTmpdir(String tmpdir) {
@@ -132,11 +162,75 @@ public class ProjectGenerator {
 	}
 
 	public void setTemporaryDirectory(File temporaryDirectory) {
-		this.temporaryDirectory = temporaryDirectory;
+		setTemporarySpace(new TemporarySpace(temporaryDirectory));
+	}
+
+	public synchronized void setTemporarySpace(TemporarySpace temporarySpace) {
+		this.temporarySpace = temporarySpace;
 	}
 
+	/**
+	 * Register temporary files, keyed by the name of the project directory they relate
+	 * to, so that they are removed when that project is cleaned.
+	 * @param temporaryFiles the temporary files per project directory name
+	 * @deprecated as of 0.6.0 in favour of {@link #setTemporarySpace(TemporarySpace)}
+	 */
+	@Deprecated
 	public void setTemporaryFiles(Map<String, List<File>> temporaryFiles) {
-		this.temporaryFiles = temporaryFiles;
+		TemporarySpace space = getTemporarySpace();
+		temporaryFiles.forEach((name, files) -> space
+				.track(new File(space.getDirectory(), name), files));
+	}
+
+	/**
+	 * Set the {@link ProjectContributor contributors} to invoke for each generated
+	 * project.
+	 * @param contributors the contributors to use
+	 * @throws IllegalStateException if two contributors write to the same path
+	 */
+	@Autowired(required = false)
+	public void setContributors(List<ProjectContributor> contributors) {
+		for (int i = 0; i < contributors.size(); i++) {
+			for (int j = i + 1; j < contributors.size(); j++) {
+				String path = findOverlappingOutput(contributors.get(i),
+						contributors.get(j));
+				if (path != null) {
+					throw new IllegalStateException("Contributors "
+							+ contributors.get(i) + " and " + contributors.get(j)
+							+ " both write to " + path);
+				}
+			}
+		}
+		this.contributors = new ArrayList<>(contributors);
+		clearContributions();
+	}
+
+	/**
+	 * Set the {@link Executor} to use to invoke the contributors whose contribution
+	 * is not cached. By default, the common {@link ForkJoinPool} is used.
+	 * @param contributorExecutor the executor to use
+	 */
+	public void setContributorExecutor(Executor contributorExecutor) {
+		this.contributorExecutor = contributorExecutor;
+	}
+
+	/**
+	 * Specify if the contributions of the contributors that declare their
+	 * {@link ProjectContributor#getInputs() inputs} should be cached. Caching is enabled
+	 * by default and can be disabled when the contributors may change, for instance
+	 * when they render templates that are edited during development.
+	 * @param cacheContributions whether contributions should be cached
+	 */
+	public void setCacheContributions(boolean cacheContributions) {
+		this.cacheContributions = cacheContributions;
+		clearContributions();
+	}
+
+	@EventListener
+	public void onMetadataUpdated(InitializrMetadataUpdatedEvent event) {
+		this.bootVersionProfiles.clear();
+		this.templateRenderer.clearFragments();
+		clearContributions();
 	}
 
 	/**
@@ -180,6 +274,70 @@ public class ProjectGenerator {
 		}
 	}
 
+	/**
+	 * Generate an in-memory {@link ProjectStructure} for the specified
+	 * {@link ProjectRequest}. Contrary to {@link #generateProjectStructure(ProjectRequest)},
+	 * no file is written on disk and the content of templates is only rendered once it
+	 * is requested.
+	 */
+	public ProjectStructure generateProject(ProjectRequest request) {
+		return generateProject(request, metadataProvider.get());
+	}
+
+	/**
+	 * Generate an in-memory {@link ProjectStructure} for the specified
+	 * {@link ProjectRequest}, resolved against the specified {@link InitializrMetadata}.
+	 * Suitable to generate several projects against the same metadata.
+	 * @see #generateProject(ProjectRequest)
+	 */
+	public ProjectStructure generateProject(ProjectRequest request,
+			InitializrMetadata metadata) {
+		try {
+			Map<String, Object> model = resolveModel(request, metadata);
+			ProjectStructure structure = (isOverridden("generateProjectStructure",
+					ProjectRequest.class, Map.class)
+							? readProjectStructure(generateProjectStructure(request, model))
+							: generateProject(request, model));
+			publishProjectGeneratedEvent(request);
+			return structure;
+		}
+		catch (InitializrException ex) {
+			publishProjectFailedEvent(request, ex);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Resolve the specified {@link ProjectRequest}, honouring the configured
+	 * {@link ProjectRequestPostProcessor post-processors}, without generating anything.
+	 * No event is published and no template is rendered, which makes it suitable to
+	 * validate a request.
+	 * @param request the request to resolve
+	 * @param metadata the metadata to resolve the request against
+	 * @return the resolved request
+	 * @throws InvalidProjectRequestException if the request is invalid
+	 */
+	public ProjectRequest resolveRequest(ProjectRequest request,
+			InitializrMetadata metadata) {
+		return requestResolver.resolve(request, metadata);
+	}
+
+	/**
+	 * Resolve the specified {@link ProjectRequest} and notify that a project has been
+	 * generated for it, without generating anything. Suitable when the project has been
+	 * generated previously for an equivalent request.
+	 */
+	public void reuseProject(ProjectRequest request) {
+		try {
+			requestResolver.resolve(request, metadataProvider.get());
+			publishProjectGeneratedEvent(request);
+		}
+		catch (InitializrException ex) {
+			publishProjectFailedEvent(request, ex);
+			throw ex;
+		}
+	}
+
 	/**
 	 * Generate a project structure for the specified {@link ProjectRequest}. Returns a
 	 * directory containing the project.
@@ -200,69 +358,248 @@ public class ProjectGenerator {
 	/**
 	 * Generate a project structure for the specified {@link ProjectRequest} and resolved
 	 * model.
+	 * <p>
+	 * Customizations should rather override
+	 * {@link #generateProject(ProjectRequest, Map)}. If this method is overridden,
+	 * {@link #generateProject(ProjectRequest)} invokes it and reads the generated
+	 * directory back.
 	 */
 	protected File generateProjectStructure(ProjectRequest request,
 			Map<String, Object> model) {
-		File rootDir;
+		ProjectStructure structure = generateProject(request, model);
+		TemporarySpace space = getTemporarySpace();
+		File rootDir = space.createProjectDirectory();
 		try {
-			rootDir = File.createTempFile("tmp", "", getTemporaryDirectory());
+			structure.writeTo(new FileSystemProjectWriter(rootDir));
+		}
+		catch (IOException e) {
+			space.release(rootDir);
+			throw new IllegalStateException("Cannot write project in " + rootDir, e);
+		}
+		space.updateSize(rootDir);
+		return rootDir;
+	}
+
+	/**
+	 * Read the project generated in the specified directory by a customization of
+	 * {@link #generateProjectStructure(ProjectRequest, Map)} and release it.
+	 */
+	private ProjectStructure readProjectStructure(File rootDir) {
+		ProjectStructure structure = new ProjectStructure();
+		Path root = rootDir.toPath();
+		try (Stream<Path> paths = Files.walk(root)) {
+			for (Path path : (Iterable<Path>) paths.skip(1)::iterator) {
+				String name = root.relativize(path).toString()
+						.replace(File.separatorChar, '/');
+				if (Files.isDirectory(path)) {
+					structure.addDirectory(name);
+				}
+				else {
+					byte[] content = Files.readAllBytes(path);
+					structure.addFile(name, () -> content, Files.isExecutable(path));
+				}
+			}
 		}
 		catch (IOException e) {
-			throw new IllegalStateException("Cannot create temp dir", e);
+			throw new IllegalStateException("Cannot read project in " + rootDir, e);
 		}
-		addTempFile(rootDir.getName(), rootDir);
-		rootDir.delete();
-		rootDir.mkdirs();
+		finally {
+			cleanTempFiles(rootDir);
+		}
+		return structure;
+	}
 
-		File dir = initializerProjectDir(rootDir, request);
+	/**
+	 * Specify if this instance overrides the specified method of this class. Used to
+	 * detect customizations of the extension points that predate
+	 * {@link ProjectStructure}.
+	 */
+	private boolean isOverridden(String name, Class<?>... parameterTypes) {
+		Method method = ReflectionUtils.findMethod(getClass(), name, parameterTypes);
+		return (method != null && method.getDeclaringClass() != ProjectGenerator.class);
+	}
+
+	/**
+	 * Generate the {@link ProjectStructure} for the specified {@link ProjectRequest} and
+	 * resolved model.
+	 */
+	protected ProjectStructure generateProject(ProjectRequest request,
+			Map<String, Object> model) {
+		ProjectStructure structure = new ProjectStructure();
+		String dir = initializerProjectDir(structure, request);
 
 		if (isGradleBuild(request)) {
-			String gradle = new String(doGenerateGradleBuild(model));
-			writeText(new File(dir, "build.gradle"), gradle);
-			String settings = new String(doGenerateGradleSettings(model));
-			writeText(new File(dir, "settings.gradle"), settings);
-			writeGradleWrapper(dir, Version.safeParse(request.getBootVersion()));
+			structure.addFile(dir + "build.gradle",
+					() -> doGenerateGradleBuild(model), false);
+			structure.addFile(dir + "settings.gradle",
+					() -> doGenerateGradleSettings(model), false);
+			String family = getBootVersionProfile(request).getGradleWrapperFamily();
+			structure.addAll(dir, getSkeleton(family, this::createGradleSkeleton));
 		}
 		else {
-			String pom = new String(doGenerateMavenPom(model));
-			writeText(new File(dir, "pom.xml"), pom);
-			writeMavenWrapper(dir);
+			structure.addFile(dir + "pom.xml", () -> doGenerateMavenPom(model), false);
+			structure.addAll(dir, getSkeleton("maven", this::createMavenSkeleton));
 		}
 
-		generateGitIgnore(dir, request);
+		generateGitIgnore(structure, dir, request);
 
 		String applicationName = request.getApplicationName();
 		String language = request.getLanguage();
 
 		String codeLocation = language;
-		File src = new File(new File(dir, "src/main/" + codeLocation),
-				request.getPackageName().replace(".", "/"));
-		src.mkdirs();
+		String packagePath = request.getPackageName().replace(".", "/");
+		String src = dir + "src/main/" + codeLocation + "/" + packagePath + "/";
+		structure.addDirectory(src);
 		String extension = ("kotlin".equals(language) ? "kt" : language);
-		write(new File(src, applicationName + "." + extension),
+		write(structure, src + applicationName + "." + extension,
 				"Application." + extension, model);
 
 		if ("war".equals(request.getPackaging())) {
 			String fileName = "ServletInitializer." + extension;
-			write(new File(src, fileName), fileName, model);
+			write(structure, src + fileName, fileName, model);
 		}
 
-		File test = new File(new File(dir, "src/test/" + codeLocation),
-				request.getPackageName().replace(".", "/"));
-		test.mkdirs();
+		String test = dir + "src/test/" + codeLocation + "/" + packagePath + "/";
+		structure.addDirectory(test);
 		setupTestModel(request, model);
-		write(new File(test, applicationName + "Tests." + extension),
+		write(structure, test + applicationName + "Tests." + extension,
 				"ApplicationTests." + extension, model);
 
-		File resources = new File(dir, "src/main/resources");
-		resources.mkdirs();
-		writeText(new File(resources, "application.properties"), "");
+		String resources = dir + "src/main/resources/";
+		structure.addDirectory(resources);
+		structure.addFile(resources + "application.properties", new byte[0]);
 
 		if (request.hasWebFacet()) {
-			new File(dir, "src/main/resources/templates").mkdirs();
-			new File(dir, "src/main/resources/static").mkdirs();
+			structure.addDirectory(resources + "templates");
+			structure.addDirectory(resources + "static");
 		}
-		return rootDir;
+
+		addContributions(structure, dir, request, model);
+		return structure;
+	}
+
+	/**
+	 * Add the contributions of the configured {@link ProjectContributor contributors}.
+	 * Contributions that are not cached are created in parallel.
+	 */
+	private void addContributions(ProjectStructure structure, String dir,
+			ProjectRequest request, Map<String, Object> model) {
+		List<ProjectContributor> contributors = this.contributors;
+		if (contributors.isEmpty()) {
+			return;
+		}
+		List<CompletableFuture<ProjectStructure>> contributions =
+				new ArrayList<>(contributors.size());
+		Map<String, Object> sharedModel = Collections.unmodifiableMap(model);
+		for (ProjectContributor contributor : contributors) {
+			ProjectStructure cached = getCachedContribution(contributor, request);
+			contributions.add(cached != null ? CompletableFuture.completedFuture(cached)
+					: CompletableFuture.supplyAsync(
+							() -> contribute(contributor, request, sharedModel),
+							this.contributorExecutor));
+		}
+		for (int i = 0; i < contributors.size(); i++) {
+			ProjectStructure contribution;
+			try {
+				contribution = contributions.get(i).join();
+			}
+			catch (CompletionException ex) {
+				if (ex.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getCause();
+				}
+				throw ex;
+			}
+			structure.addAll(dir, contribution);
+		}
+	}
+
+	private ProjectStructure getCachedContribution(ProjectContributor contributor,
+			ProjectRequest request) {
+		List<Object> key = createContributionKey(contributor, request);
+		return (key != null ? getContribution(key) : null);
+	}
+
+	/**
+	 * Return the contribution of the specified {@link ProjectContributor}, using the
+	 * cached contribution if the contributor has already been invoked with the same
+	 * inputs.
+	 */
+	private ProjectStructure contribute(ProjectContributor contributor,
+			ProjectRequest request, Map<String, Object> model) {
+		List<Object> key = createContributionKey(contributor, request);
+		ProjectStructure contribution = (key != null ? getContribution(key) : null);
+		if (contribution == null) {
+			contribution = contributor.contribute(request, model);
+			validateContribution(contributor, contribution);
+			if (key != null) {
+				cacheContribution(key, contribution);
+			}
+		}
+		return contribution;
+	}
+
+	private ProjectStructure getContribution(List<Object> key) {
+		synchronized (this.contributions) {
+			return this.contributions.get(key);
+		}
+	}
+
+	/**
+	 * Cache the specified contribution. A limited number of contributions is kept, the
+	 * least recently used ones being evicted first.
+	 */
+	private void cacheContribution(List<Object> key, ProjectStructure contribution) {
+		synchronized (this.contributions) {
+			this.contributions.putIfAbsent(key, contribution);
+		}
+	}
+
+	private void clearContributions() {
+		synchronized (this.contributions) {
+			this.contributions.clear();
+		}
+	}
+
+	private List<Object> createContributionKey(ProjectContributor contributor,
+			ProjectRequest request) {
+		Set<String> inputs = contributor.getInputs();
+		if (inputs == null || !this.cacheContributions) {
+			return null;
+		}
+		BeanProperties<ProjectRequest> properties = BeanProperties.forInstance(request);
+		List<Object> key = new ArrayList<>(inputs.size() + 1);
+		key.add(contributor);
+		for (String input : inputs) {
+			key.add(properties.get(request, input));
+		}
+		return key;
+	}
+
+	private static void validateContribution(ProjectContributor contributor,
+			ProjectStructure contribution) {
+		for (ProjectStructure.Entry entry : contribution.getEntries()) {
+			if (contributor.getOutputs().stream()
+					.noneMatch(output -> isWithin(entry.getPath(), output))) {
+				throw new IllegalStateException("Contributor " + contributor
+						+ " wrote undeclared path " + entry.getPath());
+			}
+		}
+	}
+
+	private static String findOverlappingOutput(ProjectContributor first,
+			ProjectContributor second) {
+		for (String output : first.getOutputs()) {
+			for (String other : second.getOutputs()) {
+				if (isWithin(output, other) || isWithin(other, output)) {
+					return output;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isWithin(String path, String output) {
+		return path.equals(output) || (output.endsWith("/") && path.startsWith(output));
 	}
 
 	/**
@@ -270,17 +607,17 @@ public class ProjectGenerator {
 	 * extension
 	 */
 	public File createDistributionFile(File dir, String extension) {
-		File download = new File(getTemporaryDirectory(), dir.getName() + extension);
-		addTempFile(dir.getName(), download);
-		return download;
+		return getTemporarySpace().createFile(dir, extension);
 	}
 
-	private File getTemporaryDirectory() {
-		if (temporaryDirectory == null) {
-			temporaryDirectory = new File(tmpdir, "initializr");
-			temporaryDirectory.mkdirs();
+	/**
+	 * Return the {@link TemporarySpace} in which projects are generated on disk.
+	 */
+	public synchronized TemporarySpace getTemporarySpace() {
+		if (this.temporarySpace == null) {
+			this.temporarySpace = new TemporarySpace(new File(this.tmpdir, "initializr"));
 		}
-		return temporaryDirectory;
+		return this.temporarySpace;
 	}
 
 	/**
@@ -288,17 +625,7 @@ public class ProjectGenerator {
 	 * @see #createDistributionFile
 	 */
 	public void cleanTempFiles(File dir) {
-		List<File> tempFiles = temporaryFiles.remove(dir.getName());
-		if (!tempFiles.isEmpty()) {
-			tempFiles.forEach((File file) -> {
-				if (file.isDirectory()) {
-					FileSystemUtils.deleteRecursively(file);
-				}
-				else if (file.exists()) {
-					file.delete();
-				}
-			});
-		}
+		getTemporarySpace().release(dir);
 	}
 
 	private void publishProjectGeneratedEvent(ProjectRequest request) {
@@ -311,21 +638,41 @@ public class ProjectGenerator {
 		eventPublisher.publishEvent(event);
 	}
 
+	/**
+	 * Generate a {@code .gitignore} file for the specified {@link ProjectRequest}
+	 * @param structure the structure of the project
+	 * @param dir the path of the root directory of the project
+	 * @param request the request to handle
+	 */
+	protected void generateGitIgnore(ProjectStructure structure, String dir,
+			ProjectRequest request) {
+		if (isOverridden("generateGitIgnore", File.class, ProjectRequest.class)) {
+			TemporarySpace space = getTemporarySpace();
+			File rootDir = space.createProjectDirectory();
+			generateGitIgnore(rootDir, request);
+			structure.addAll(dir, readProjectStructure(rootDir));
+			return;
+		}
+		structure.addAll(dir, contribute(this.gitIgnoreContributor, request, null));
+	}
+
 	/**
 	 * Generate a {@code .gitignore} file for the specified {@link ProjectRequest}
 	 * @param dir the root directory of the project
 	 * @param request the request to handle
+	 * @deprecated as of 0.6.0 in favour of
+	 * {@link #generateGitIgnore(ProjectStructure, String, ProjectRequest)}. Still
+	 * invoked if overridden.
 	 */
+	@Deprecated
 	protected void generateGitIgnore(File dir, ProjectRequest request) {
-		Map<String, Object> model = new LinkedHashMap<>();
-		if (isMavenBuild(request)) {
-			model.put("build", "maven");
-			model.put("mavenBuild", true);
+		try {
+			contribute(this.gitIgnoreContributor, request, null)
+					.writeTo(new FileSystemProjectWriter(dir));
 		}
-		else {
-			model.put("build", "gradle");
+		catch (IOException e) {
+			throw new IllegalStateException("Cannot write .gitignore in " + dir, e);
 		}
-		write(new File(dir, ".gitignore"), "gitignore.tmpl", model);
 	}
 
 	/**
@@ -335,14 +682,26 @@ public class ProjectGenerator {
 	 * @return a model for that request
 	 */
 	protected Map<String, Object> resolveModel(ProjectRequest originalRequest) {
+		return resolveModel(originalRequest, metadataProvider.get());
+	}
+
+	/**
+	 * Resolve the specified {@link ProjectRequest} against the specified
+	 * {@link InitializrMetadata} and return the model to use to generate the project
+	 * @param originalRequest the request to handle
+	 * @param metadata the metadata to use
+	 * @return a model for that request
+	 */
+	protected Map<String, Object> resolveModel(ProjectRequest originalRequest,
+			InitializrMetadata metadata) {
 		Assert.notNull(originalRequest.getBootVersion(), "boot version must not be null");
-		Map<String, Object> model = new LinkedHashMap<>();
-		InitializrMetadata metadata = metadataProvider.get();
+		Map<String, Object> model = new LinkedHashMap<>(128);
 
 		ProjectRequest request = requestResolver.resolve(originalRequest, metadata);
 
 		// request resolved so we can log what has been requested
-		Version bootVersion = Version.safeParse(request.getBootVersion());
+		BootVersionProfile profile = getBootVersionProfile(request.getBootVersion(),
+				metadata);
 		List<Dependency> dependencies = request.getResolvedDependencies();
 		List<String> dependencyIds = dependencies.stream().map(Dependency::getId)
 				.collect(Collectors.toList());
@@ -353,15 +712,11 @@ public class ProjectGenerator {
 			model.put("war", true);
 		}
 
-		// Kotlin supported as of M6
-		final boolean kotlinSupport = VERSION_2_0_0_M6
-				.compareTo(bootVersion) <= 0;
-		model.put("kotlinSupport", kotlinSupport);
+		model.put("kotlinSupport", profile.isKotlinSupport());
 
 		if (isMavenBuild(request)) {
 			model.put("mavenBuild", true);
-			ParentPom parentPom = metadata.getConfiguration().getEnv().getMaven()
-					.resolveParentPom(request.getBootVersion());
+			ParentPom parentPom = profile.getParentPom();
 			if (parentPom.isIncludeSpringBootBom()
 					&& !request.getBoms().containsKey("spring-boot")) {
 				request.getBoms().put("spring-boot", metadata.createSpringBootBom(
@@ -385,16 +740,16 @@ public class ProjectGenerator {
 		Collections.reverse(reversedBoms);
 		model.put("reversedBoms", reversedBoms);
 
+		Map<String, List<Dependency>> scopes = groupByScope(dependencies);
 		model.put("compileDependencies",
-				filterDependencies(dependencies, Dependency.SCOPE_COMPILE));
+				getDependencies(scopes, Dependency.SCOPE_COMPILE));
 		model.put("runtimeDependencies",
-				filterDependencies(dependencies, Dependency.SCOPE_RUNTIME));
+				getDependencies(scopes, Dependency.SCOPE_RUNTIME));
 		model.put("compileOnlyDependencies",
-				filterDependencies(dependencies, Dependency.SCOPE_COMPILE_ONLY));
+				getDependencies(scopes, Dependency.SCOPE_COMPILE_ONLY));
 		model.put("providedDependencies",
-				filterDependencies(dependencies, Dependency.SCOPE_PROVIDED));
-		model.put("testDependencies",
-				filterDependencies(dependencies, Dependency.SCOPE_TEST));
+				getDependencies(scopes, Dependency.SCOPE_PROVIDED));
+		model.put("testDependencies", getDependencies(scopes, Dependency.SCOPE_TEST));
 
 		request.getBoms().forEach((k, v) -> {
 			if (v.getVersionProperty() != null) {
@@ -418,8 +773,7 @@ public class ProjectGenerator {
 		// Add various versions
 		model.put("dependencyManagementPluginVersion", metadata.getConfiguration()
 				.getEnv().getGradle().getDependencyManagementPluginVersion());
-		model.put("kotlinVersion", metadata.getConfiguration().getEnv().getKotlin()
-				.resolveKotlinVersion(bootVersion));
+		model.put("kotlinVersion", profile.getKotlinVersion());
 		if ("kotlin".equals(request.getLanguage())) {
 			model.put("kotlin", true);
 		}
@@ -427,24 +781,15 @@ public class ProjectGenerator {
 			model.put("groovy", true);
 		}
 
-		model.put("isRelease", request.getBootVersion().contains("RELEASE"));
+		model.put("isRelease", profile.isRelease());
 		setupApplicationModel(request, model);
 
-		// Gradle plugin has changed as from 1.3.0
-		model.put("bootOneThreeAvailable", VERSION_1_3_0_M1
-				.compareTo(bootVersion) <= 0);
-
-		model.put("bootTwoZeroAvailable", VERSION_2_0_0_M1
-				.compareTo(bootVersion) <= 0);
-
-		// Gradle plugin has changed again as from 1.4.2
-		model.put("springBootPluginName",
-				(VERSION_1_4_2_M1
-						.compareTo(bootVersion) <= 0
-						? "org.springframework.boot" : "spring-boot"));
+		model.put("bootOneThreeAvailable", profile.isBootOneThreeAvailable());
+		model.put("bootTwoZeroAvailable", profile.isBootTwoZeroAvailable());
+		model.put("springBootPluginName", profile.getSpringBootPluginName());
 
 		// New testing stuff
-		model.put("newTestInfrastructure", isNewTestInfrastructureAvailable(request));
+		model.put("newTestInfrastructure", profile.isNewTestInfrastructure());
 
 		// Servlet Initializer
 		model.put("servletInitializrImport", new Imports(request.getLanguage()).add(
@@ -457,13 +802,7 @@ public class ProjectGenerator {
 		model.put("java8OrLater", isJava8OrLater(request));
 
 		// Append the project request to the model
-		BeanWrapperImpl bean = new BeanWrapperImpl(request);
-		for (PropertyDescriptor descriptor : bean.getPropertyDescriptors()) {
-			if (bean.isReadableProperty(descriptor.getName())) {
-				model.put(descriptor.getName(),
-						bean.getPropertyValue(descriptor.getName()));
-			}
-		}
+		BeanProperties.forInstance(request).copyTo(request, model);
 		if (!request.getBoms().isEmpty()) {
 			model.put("hasBoms", true);
 		}
@@ -479,7 +818,7 @@ public class ProjectGenerator {
 	}
 
 	private Map<String,String> toBomModel(ProjectRequest request, BillOfMaterials bom) {
-		Map<String, String> model = new HashMap<>();
+		Map<String, String> model = new HashMap<>(4);
 		model.put("groupId", bom.getGroupId());
 		model.put("artifactId", bom.getArtifactId());
 		model.put("versionToken", (bom.getVersionProperty() != null
@@ -500,9 +839,7 @@ public class ProjectGenerator {
 			Map<String, Object> model) {
 		Imports imports = new Imports(request.getLanguage());
 		Annotations annotations = new Annotations();
-		boolean useSpringBootApplication = VERSION_1_2_0_RC1
-				.compareTo(Version.safeParse(request.getBootVersion())) <= 0;
-		if (useSpringBootApplication) {
+		if (getBootVersionProfile(request).isSpringBootApplication()) {
 			imports.add("org.springframework.boot.autoconfigure.SpringBootApplication");
 			annotations.add("@SpringBootApplication");
 		}
@@ -523,7 +860,8 @@ public class ProjectGenerator {
 	protected void setupTestModel(ProjectRequest request, Map<String, Object> model) {
 		Imports imports = new Imports(request.getLanguage());
 		Annotations testAnnotations = new Annotations();
-		boolean newTestInfrastructure = isNewTestInfrastructureAvailable(request);
+		boolean newTestInfrastructure = getBootVersionProfile(request)
+				.isNewTestInfrastructure();
 		if (newTestInfrastructure) {
 			imports.add("org.springframework.boot.test.context.SpringBootTest")
 					.add("org.springframework.test.context.junit4.SpringRunner");
@@ -541,16 +879,37 @@ public class ProjectGenerator {
 	}
 
 	protected String getServletInitializrClass(ProjectRequest request) {
-		Version bootVersion = Version.safeParse(request.getBootVersion());
-		if (VERSION_1_4_0_M3.compareTo(bootVersion) > 0) {
-			return "org.springframework.boot.context.web.SpringBootServletInitializer";
-		}
-		else if (VERSION_2_0_0_M1.compareTo(bootVersion) > 0) {
-			return "org.springframework.boot.web.support.SpringBootServletInitializer";
-		}
-		else {
-			return "org.springframework.boot.web.servlet.support.SpringBootServletInitializer";
-		}
+		return getBootVersionProfile(request).getServletInitializrClass();
+	}
+
+	/**
+	 * Return the {@link BootVersionProfile} of the specified resolved
+	 * {@link ProjectRequest}, using the current metadata.
+	 * @param request the resolved request
+	 * @return the profile of the Spring Boot version of that request
+	 * @see #getBootVersionProfile(ProjectRequest, InitializrMetadata)
+	 */
+	protected BootVersionProfile getBootVersionProfile(ProjectRequest request) {
+		return getBootVersionProfile(request, metadataProvider.get());
+	}
+
+	/**
+	 * Return the {@link BootVersionProfile} of the specified resolved
+	 * {@link ProjectRequest}. Profiles are cached per metadata instance, for the Spring
+	 * Boot versions available in that metadata.
+	 * @param request the resolved request
+	 * @param metadata the metadata the request has been resolved against
+	 * @return the profile of the Spring Boot version of that request
+	 */
+	protected BootVersionProfile getBootVersionProfile(ProjectRequest request,
+			InitializrMetadata metadata) {
+		return getBootVersionProfile(request.getBootVersion(), metadata);
+	}
+
+	private BootVersionProfile getBootVersionProfile(String bootVersion,
+			InitializrMetadata metadata) {
+		return this.bootVersionProfiles
+				.computeIfAbsent(metadata, BootVersionProfiles::new).get(bootVersion);
 	}
 
 	protected String getKotlinStdlibArtifactId(ProjectRequest request) {
@@ -581,122 +940,109 @@ public class ProjectGenerator {
 		return "war".equals(request.getPackaging());
 	}
 
-	private static boolean isNewTestInfrastructureAvailable(ProjectRequest request) {
-		return VERSION_1_4_0_M2
-				.compareTo(Version.safeParse(request.getBootVersion())) <= 0;
-	}
-
-	private static boolean isGradle3Available(Version bootVersion) {
-		return VERSION_1_5_0_M1.compareTo(bootVersion) <= 0;
-	}
-
-	private static boolean isGradle4Available(Version bootVersion) {
-		return VERSION_2_0_0_M3.compareTo(bootVersion) < 0;
-	}
-
 	private byte[] doGenerateMavenPom(Map<String, Object> model) {
-		return templateRenderer.process("starter-pom.xml", model).getBytes();
+		return templateRenderer.processAsBytes("starter-pom.xml", model);
 	}
 
 	private byte[] doGenerateGradleBuild(Map<String, Object> model) {
-		return templateRenderer.process("starter-build.gradle", model).getBytes();
+		return templateRenderer.processAsBytes("starter-build.gradle", model);
 	}
 
 	private byte[] doGenerateGradleSettings(Map<String, Object> model) {
-		return templateRenderer.process("starter-settings.gradle", model).getBytes();
-	}
-
-	private void writeGradleWrapper(File dir, Version bootVersion) {
-		String gradlePrefix = isGradle4Available(bootVersion) ? "gradle4" :
-				isGradle3Available(bootVersion) ? "gradle3" : "gradle";
-		writeTextResource(dir, "gradlew.bat", gradlePrefix + "/gradlew.bat");
-		writeTextResource(dir, "gradlew", gradlePrefix + "/gradlew");
-
-		File wrapperDir = new File(dir, "gradle/wrapper");
-		wrapperDir.mkdirs();
-		writeTextResource(wrapperDir, "gradle-wrapper.properties",
-				gradlePrefix + "/gradle/wrapper/gradle-wrapper.properties");
-		writeBinaryResource(wrapperDir, "gradle-wrapper.jar",
-				gradlePrefix + "/gradle/wrapper/gradle-wrapper.jar");
+		return templateRenderer.processAsBytes("starter-settings.gradle", model);
 	}
 
-	private void writeMavenWrapper(File dir) {
-		writeTextResource(dir, "mvnw.cmd", "maven/mvnw.cmd");
-		writeTextResource(dir, "mvnw", "maven/mvnw");
-
-		File wrapperDir = new File(dir, ".mvn/wrapper");
-		wrapperDir.mkdirs();
-		writeTextResource(wrapperDir, "maven-wrapper.properties",
-				"maven/wrapper/maven-wrapper.properties");
-		writeBinaryResource(wrapperDir, "maven-wrapper.jar",
-				"maven/wrapper/maven-wrapper.jar");
+	/**
+	 * Return the skeleton with the specified name, creating it if necessary. A skeleton
+	 * holds the entries that are identical for all the projects using it, and its
+	 * content is resolved only once.
+	 */
+	private ProjectStructure getSkeleton(String name,
+			Function<String, ProjectStructure> factory) {
+		return this.skeletons.computeIfAbsent(name, factory);
 	}
 
-	private File writeBinaryResource(File dir, String name, String location) {
-		return doWriteProjectResource(dir, name, location, true);
+	private ProjectStructure createGradleSkeleton(String gradlePrefix) {
+		ProjectStructure structure = new ProjectStructure();
+		addResource(structure, "gradlew.bat", gradlePrefix + "/gradlew.bat", false);
+		addResource(structure, "gradlew", gradlePrefix + "/gradlew", true);
+
+		String wrapperDir = "gradle/wrapper/";
+		addResource(structure, wrapperDir + "gradle-wrapper.properties",
+				gradlePrefix + "/gradle/wrapper/gradle-wrapper.properties", false);
+		addResource(structure, wrapperDir + "gradle-wrapper.jar",
+				gradlePrefix + "/gradle/wrapper/gradle-wrapper.jar", false);
+		return structure;
 	}
 
-	private File writeTextResource(File dir, String name, String location) {
-		return doWriteProjectResource(dir, name, location, false);
+	private ProjectStructure createMavenSkeleton(String name) {
+		ProjectStructure structure = new ProjectStructure();
+		addResource(structure, "mvnw.cmd", "maven/mvnw.cmd", false);
+		addResource(structure, "mvnw", "maven/mvnw", true);
+
+		String wrapperDir = ".mvn/wrapper/";
+		addResource(structure, wrapperDir + "maven-wrapper.properties",
+				"maven/wrapper/maven-wrapper.properties", false);
+		addResource(structure, wrapperDir + "maven-wrapper.jar",
+				"maven/wrapper/maven-wrapper.jar", false);
+		return structure;
 	}
 
-	private File doWriteProjectResource(File dir, String name, String location,
-			boolean binary) {
-		File target = new File(dir, name);
-		if (binary) {
-			writeBinary(target, projectResourceLocator
-					.getBinaryResource("classpath:project/" + location));
-		}
-		else {
-			writeText(target, projectResourceLocator
-					.getTextResource("classpath:project/" + location));
-		}
-		return target;
+	private void addResource(ProjectStructure structure, String path, String location,
+			boolean executable) {
+		String resourceLocation = "classpath:project/" + location;
+		structure.addResource(path, resourceLocation,
+				() -> projectResourceLocator.getBinaryResource(resourceLocation),
+				executable);
 	}
 
-	private File initializerProjectDir(File rootDir, ProjectRequest request) {
+	private String initializerProjectDir(ProjectStructure structure,
+			ProjectRequest request) {
 		if (request.getBaseDir() != null) {
-			File dir = new File(rootDir, request.getBaseDir());
-			dir.mkdirs();
-			return dir;
-		}
-		else {
-			return rootDir;
+			structure.addDirectory(request.getBaseDir());
+			return request.getBaseDir() + "/";
 		}
+		return "";
 	}
 
-	public void write(File target, String templateName, Map<String, Object> model) {
-		String body = templateRenderer.process(templateName, model);
-		writeText(target, body);
+	/**
+	 * Add a file to the specified {@link ProjectStructure} whose content is the
+	 * specified template, rendered with the specified model when first requested.
+	 */
+	public void write(ProjectStructure structure, String path, String templateName,
+			Map<String, Object> model) {
+		structure.addFile(path,
+				() -> templateRenderer.processAsBytes(templateName, model), false);
 	}
 
-	private void writeText(File target, String body) {
-		try (OutputStream stream = new FileOutputStream(target)) {
-			StreamUtils.copy(body, Charset.forName("UTF-8"), stream);
+	public void write(File target, String templateName, Map<String, Object> model) {
+		try (Writer writer = new OutputStreamWriter(new FileOutputStream(target),
+				UTF_8)) {
+			templateRenderer.process(templateName, model, writer);
 		}
-		catch (Exception e) {
+		catch (IOException e) {
 			throw new IllegalStateException("Cannot write file " + target, e);
 		}
 	}
 
-	private void writeBinary(File target, byte[] body) {
-		try (OutputStream stream = new FileOutputStream(target)) {
-			StreamUtils.copy(body, stream);
-		}
-		catch (Exception e) {
-			throw new IllegalStateException("Cannot write file " + target, e);
+	/**
+	 * Sort the specified dependencies and group them by scope, in a single pass.
+	 */
+	private static Map<String, List<Dependency>> groupByScope(
+			List<Dependency> dependencies) {
+		List<Dependency> sorted = new ArrayList<>(dependencies);
+		sorted.sort(DependencyComparator.INSTANCE);
+		Map<String, List<Dependency>> scopes = new HashMap<>();
+		for (Dependency dependency : sorted) {
+			scopes.computeIfAbsent(dependency.getScope(), key -> new ArrayList<>())
+					.add(dependency);
 		}
+		return scopes;
 	}
 
-	private void addTempFile(String group, File file) {
-		temporaryFiles.computeIfAbsent(group, key -> new ArrayList<>()).add(file);
-	}
-
-	private static List<Dependency> filterDependencies(List<Dependency> dependencies,
-			String scope) {
-		return dependencies.stream().filter(dep -> scope.equals(dep.getScope()))
-				.sorted(DependencyComparator.INSTANCE)
-				.collect(Collectors.toList());
+	private static List<Dependency> getDependencies(
+			Map<String, List<Dependency>> scopes, String scope) {
+		return scopes.getOrDefault(scope, Collections.emptyList());
 	}
 
 	private static class DependencyComparator implements Comparator<Dependency> {
@@ -756,8 +1102,8 @@ public class ProjectGenerator {
 			if (this.statements.isEmpty()) {
 				return "";
 			}
-			String content = String.join(String.format("%n"), this.statements);
-			return (finalCarriageReturn ? String.format("%s%n", content) : content);
+			String content = String.join(NEW_LINE, this.statements);
+			return (finalCarriageReturn ? content + NEW_LINE : content);
 		}
 
 	}
@@ -781,8 +1127,77 @@ public class ProjectGenerator {
 			if (this.statements.isEmpty()) {
 				return "";
 			}
-			String content = String.join(String.format("%n"), this.statements);
-			return (finalCarriageReturn ? String.format("%s%n", content) : content);
+			String content = String.join(NEW_LINE, this.statements);
+			return (finalCarriageReturn ? content + NEW_LINE : content);
+		}
+
+	}
+
+	/**
+	 * The {@link BootVersionProfile profiles} of the Spring Boot versions available in
+	 * a given metadata. Profiles of other versions are resolved on demand and are not
+	 * cached.
+	 */
+	private static final class BootVersionProfiles {
+
+		private final InitializrMetadata metadata;
+
+		private final ConcurrentMap<String, BootVersionProfile> profiles =
+				new ConcurrentHashMap<>();
+
+		BootVersionProfiles(InitializrMetadata metadata) {
+			this.metadata = metadata;
+		}
+
+		BootVersionProfile get(String bootVersion) {
+			BootVersionProfile profile = this.profiles.get(bootVersion);
+			if (profile != null) {
+				return profile;
+			}
+			profile = BootVersionProfile.resolve(bootVersion, this.metadata);
+			if (this.metadata.getBootVersions().get(bootVersion) != null) {
+				this.profiles.putIfAbsent(bootVersion, profile);
+			}
+			return profile;
+		}
+
+	}
+
+	/**
+	 * Contribute a {@code .gitignore} file, that only depends on the build system.
+	 */
+	private final class GitIgnoreContributor implements ProjectContributor {
+
+		@Override
+		public Set<String> getInputs() {
+			return Collections.singleton("build");
+		}
+
+		@Override
+		public Set<String> getOutputs() {
+			return Collections.singleton(".gitignore");
+		}
+
+		@Override
+		public ProjectStructure contribute(ProjectRequest request,
+				Map<String, Object> model) {
+			String build = isMavenBuild(request) ? "maven" : "gradle";
+			Map<String, Object> gitIgnoreModel = new LinkedHashMap<>();
+			gitIgnoreModel.put("build", build);
+			if ("maven".equals(build)) {
+				gitIgnoreModel.put("mavenBuild", true);
+			}
+			ProjectStructure structure = new ProjectStructure();
+			Supplier<byte[]> content = () -> templateRenderer
+					.processAsBytes("gitignore.tmpl", gitIgnoreModel);
+			if (templateRenderer.isCache()) {
+				structure.addResource(".gitignore",
+						"template:gitignore.tmpl?build=" + build, content, false);
+			}
+			else {
+				structure.addFile(".gitignore", content, false);
+			}
+			return structure;
 		}
 
 	}
@@ -23,15 +23,16 @@ import java.util.Map;
 import java.util.stream.Collectors;
 
 import io.spring.initializr.metadata.BillOfMaterials;
+import io.spring.initializr.metadata.CompatibilityIndex;
 import io.spring.initializr.metadata.DefaultMetadataElement;
 import io.spring.initializr.metadata.Dependency;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.Repository;
 import io.spring.initializr.metadata.Type;
+import io.spring.initializr.util.BeanProperties;
 import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionProperty;
 
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.util.StringUtils;
 
 /**
@@ -112,13 +113,13 @@ public class ProjectRequest extends BasicProjectRequest {
 	 * {@link InitializrMetadata}.
 	 */
 	public void initialize(InitializrMetadata metadata) {
-		BeanWrapperImpl bean = new BeanWrapperImpl(this);
+		BeanProperties<ProjectRequest> properties = BeanProperties.forInstance(this);
 		metadata.defaults().forEach((key, value) -> {
-			if (bean.isWritableProperty(key)) {
+			if (properties.isWritable(key, value)) {
 				// We want to be able to infer a package name if none has been
 				// explicitly set
 				if (!key.equals("packageName")) {
-					bean.setPropertyValue(key, value);
+					properties.set(this, key, value);
 				}
 			}
 		});
@@ -132,13 +133,15 @@ public class ProjectRequest extends BasicProjectRequest {
 		String actualBootVersion = getBootVersion() != null ? getBootVersion()
 				: metadata.getBootVersions().getDefault().getId();
 		Version requestedVersion = Version.parse(actualBootVersion);
+		CompatibilityIndex.BootVersion index = metadata.getCompatibilityIndex()
+				.get(requestedVersion);
 		this.resolvedDependencies = depIds.stream().map(it -> {
-			Dependency dependency = metadata.getDependencies().get(it);
+			Dependency dependency = index.getDependency(it);
 			if (dependency == null) {
 				throw new InvalidProjectRequestException(
 						"Unknown dependency '" + it + "' check project metadata");
 			}
-			return dependency.resolve(requestedVersion);
+			return dependency;
 		}).collect(Collectors.toList());
 		this.resolvedDependencies.forEach(it -> {
 			it.getFacets().forEach(facet -> {
@@ -146,13 +149,13 @@ public class ProjectRequest extends BasicProjectRequest {
 					facets.add(facet);
 				}
 			});
-			if (!it.match(requestedVersion)) {
+			if (!index.isCompatible(it.getId())) {
 				throw new InvalidProjectRequestException(
 						"Dependency '" + it.getId() + "' is not compatible "
 								+ "with Spring Boot " + requestedVersion);
 			}
 			if (it.getBom() != null) {
-				resolveBom(metadata, it.getBom(), requestedVersion);
+				resolveBom(index, it.getBom());
 			}
 			if (it.getRepository() != null) {
 				String repositoryId = it.getRepository();
@@ -242,13 +245,10 @@ public class ProjectRequest extends BasicProjectRequest {
 		}
 	}
 
-	private void resolveBom(InitializrMetadata metadata, String bomId,
-			Version requestedVersion) {
+	private void resolveBom(CompatibilityIndex.BootVersion index, String bomId) {
 		if (!boms.containsKey(bomId)) {
-			BillOfMaterials bom = metadata.getConfiguration().getEnv().getBoms().get(bomId)
-					.resolve(requestedVersion);
-			bom.getAdditionalBoms()
-					.forEach(id -> resolveBom(metadata, id, requestedVersion));
+			BillOfMaterials bom = index.getBom(bomId);
+			bom.getAdditionalBoms().forEach(id -> resolveBom(index, id));
 			boms.put(bomId, bom);
 		}
 	}
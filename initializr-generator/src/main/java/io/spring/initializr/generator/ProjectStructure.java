@@ -0,0 +1,234 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * An in-memory representation of a generated project. Each entry is identified by its
+ * path, relative to the root of the project and using {@code /} as separator.
+ * <p>
+ * The content of a file can be provided as is, or lazily using a {@link Supplier}. The
+ * latter is typically used for templates that only need to be rendered when the
+ * content is actually requested and for shared resources that should not be copied for
+ * each project.
+ *
+ * @author Stephane Nicoll
+ * @see ProjectGenerator#generateProject(ProjectRequest)
+ */
+public class ProjectStructure {
+
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+	/**
+	 * Add a directory at the specified path.
+	 * @param path the path of the directory
+	 */
+	public void addDirectory(String path) {
+		this.entries.put(path, new Entry(path, true, null, null, false));
+	}
+
+	/**
+	 * Add a file with the specified content.
+	 * @param path the path of the file
+	 * @param content the content of the file
+	 */
+	public void addFile(String path, byte[] content) {
+		addFile(path, () -> content, false);
+	}
+
+	/**
+	 * Add a file whose content is resolved on first access.
+	 * @param path the path of the file
+	 * @param content a supplier of the content of the file
+	 * @param executable whether the file should be flagged as executable
+	 */
+	public void addFile(String path, Supplier<byte[]> content, boolean executable) {
+		this.entries.put(path, new Entry(path, false, null, content, executable));
+	}
+
+	/**
+	 * Add a file whose content is the static resource at the specified location. Such
+	 * content is identical for every project using that resource.
+	 * @param path the path of the file
+	 * @param location the location of the resource
+	 * @param content a supplier of the content of the resource
+	 * @param executable whether the file should be flagged as executable
+	 */
+	public void addResource(String path, String location, Supplier<byte[]> content,
+			boolean executable) {
+		this.entries.put(path, new Entry(path, false, location, content, executable));
+	}
+
+	/**
+	 * Add all the entries of the specified {@link ProjectStructure} in the specified
+	 * directory. The content of each file is shared with the original entry so that it
+	 * is resolved only once.
+	 * @param directory the directory, ending with {@code /}, or an empty string for the
+	 * root of the project
+	 * @param structure the structure whose entries should be added
+	 */
+	public void addAll(String directory, ProjectStructure structure) {
+		structure.entries.values().forEach(entry -> {
+			String path = directory + entry.getPath();
+			this.entries.put(path, new Entry(path, entry.isDirectory(),
+					entry.getLocation(), entry.isDirectory() ? null : entry::getContent,
+					entry.isExecutable()));
+		});
+	}
+
+	/**
+	 * Remove the entry at the specified path, if any.
+	 * @param path the path of the entry
+	 * @return the removed entry or {@code null}
+	 */
+	public Entry remove(String path) {
+		return this.entries.remove(path);
+	}
+
+	/**
+	 * Return the entry at the specified path or {@code null} if no such entry exists.
+	 * @param path the path of the entry
+	 * @return the entry at that path
+	 */
+	public Entry getEntry(String path) {
+		return this.entries.get(path);
+	}
+
+	/**
+	 * Return the entries of the project, in the order they were added.
+	 * @return the entries
+	 */
+	public Collection<Entry> getEntries() {
+		return Collections.unmodifiableCollection(this.entries.values());
+	}
+
+	/**
+	 * Resolve the content of every entry, rendering the templates that have not been
+	 * rendered yet. Any error is therefore raised before the project is written.
+	 */
+	public void resolve() {
+		for (Entry entry : this.entries.values()) {
+			entry.getContent();
+		}
+	}
+
+	/**
+	 * Write this project using the specified {@link ProjectWriter}.
+	 * @param writer the writer to use
+	 * @throws IOException if an entry cannot be written
+	 */
+	public void writeTo(ProjectWriter writer) throws IOException {
+		for (Entry entry : this.entries.values()) {
+			if (entry.isDirectory()) {
+				writer.writeDirectory(entry.getPath());
+			}
+			else if (entry.getLocation() != null) {
+				writer.writeResource(entry.getPath(), entry.getLocation(),
+						entry::getContent, entry.isExecutable());
+			}
+			else {
+				writer.writeFile(entry.getPath(), entry.getContent(),
+						entry.isExecutable());
+			}
+		}
+	}
+
+	/**
+	 * An entry of a {@link ProjectStructure}.
+	 */
+	public static final class Entry {
+
+		private final String path;
+
+		private final boolean directory;
+
+		private final String location;
+
+		private final boolean executable;
+
+		private Supplier<byte[]> contentSupplier;
+
+		private volatile byte[] content;
+
+		private Entry(String path, boolean directory, String location,
+				Supplier<byte[]> contentSupplier, boolean executable) {
+			this.path = path;
+			this.directory = directory;
+			this.location = location;
+			this.contentSupplier = contentSupplier;
+			this.executable = executable;
+		}
+
+		public String getPath() {
+			return this.path;
+		}
+
+		public boolean isDirectory() {
+			return this.directory;
+		}
+
+		/**
+		 * Return the location of the static resource providing the content of this
+		 * entry or {@code null} if the content is specific to the project.
+		 * @return the location of the resource
+		 */
+		public String getLocation() {
+			return this.location;
+		}
+
+		public boolean isExecutable() {
+			return this.executable;
+		}
+
+		/**
+		 * Return the content of this entry, resolving it if necessary. Return
+		 * {@code null} for a directory.
+		 * @return the content of this entry
+		 */
+		public byte[] getContent() {
+			if (this.directory) {
+				return null;
+			}
+			byte[] result = this.content;
+			if (result == null) {
+				synchronized (this) {
+					result = this.content;
+					if (result == null) {
+						result = this.contentSupplier.get();
+						this.content = result;
+						this.contentSupplier = null;
+					}
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry [path=" + this.path + ", directory=" + this.directory
+					+ ", executable=" + this.executable + "]";
+		}
+
+	}
+
+}
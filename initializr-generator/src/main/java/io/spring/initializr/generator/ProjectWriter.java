@@ -0,0 +1,63 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Callback used by {@link ProjectGenerator} to write the content of a project. Paths
+ * are relative to the root of the project and use {@code /} as separator.
+ *
+ * @author Stephane Nicoll
+ */
+public interface ProjectWriter {
+
+	/**
+	 * Write a directory at the specified path.
+	 * @param path the path of the directory
+	 * @throws IOException if the directory cannot be written
+	 */
+	void writeDirectory(String path) throws IOException;
+
+	/**
+	 * Write a file at the specified path.
+	 * @param path the path of the file
+	 * @param content the content of the file
+	 * @param executable whether the file should be flagged as executable
+	 * @throws IOException if the file cannot be written
+	 */
+	void writeFile(String path, byte[] content, boolean executable) throws IOException;
+
+	/**
+	 * Write a file at the specified path whose content is the static resource at the
+	 * specified location. As such a content is identical for every project, an
+	 * implementation may process it once and reuse the result. By default, the content
+	 * is written as any other file.
+	 * @param path the path of the file
+	 * @param location the location of the resource
+	 * @param content a supplier of the content of the resource
+	 * @param executable whether the file should be flagged as executable
+	 * @throws IOException if the file cannot be written
+	 * @see #writeFile(String, byte[], boolean)
+	 */
+	default void writeResource(String path, String location, Supplier<byte[]> content,
+			boolean executable) throws IOException {
+		writeFile(path, content.get(), executable);
+	}
+
+}
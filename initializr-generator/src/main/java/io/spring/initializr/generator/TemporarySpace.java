@@ -0,0 +1,430 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Manage the temporary files of the projects generated on disk. Each project gets its
+ * own directory, alongside any other file (such as an archive) that is related to it.
+ * All these files are removed once the project has been {@link #release(File)
+ * released}.
+ * <p>
+ * The total size of the projects on disk can be limited by a quota: when the quota is
+ * exceeded, the creation of a new project directory blocks until enough space is
+ * released or fails with a {@link TemporarySpaceExceededException}. Projects that have
+ * not been released after a configurable amount of time, as well as files left over by
+ * a previous run, can be removed by a {@link #scheduleReaper(Duration, Duration)
+ * reaper}. Projects that are {@link #markInUse(File) in use} are never reaped. When
+ * this instance is managed by an application context, a reaper that has been
+ * {@link #setReaperSchedule(Duration, Duration) configured} follows the lifecycle of
+ * the context.
+ *
+ * @author Stephane Nicoll
+ */
+public class TemporarySpace implements SmartLifecycle, DisposableBean {
+
+	private static final Logger log = LoggerFactory.getLogger(TemporarySpace.class);
+
+	private final File directory;
+
+	private final long quota;
+
+	private final Duration quotaTimeout;
+
+	private final ConcurrentMap<String, Project> projects = new ConcurrentHashMap<>();
+
+	private final AtomicLong usedBytes = new AtomicLong();
+
+	private final LongAdder reapedCount = new LongAdder();
+
+	private final ReentrantLock lock = new ReentrantLock();
+
+	private final Condition released = this.lock.newCondition();
+
+	private ScheduledExecutorService reaper;
+
+	private Duration reaperInterval;
+
+	private Duration reaperMaxAge;
+
+	/**
+	 * Create an instance without any quota.
+	 * @param directory the directory to use
+	 */
+	public TemporarySpace(File directory) {
+		this(directory, 0, Duration.ZERO);
+	}
+
+	/**
+	 * Create an instance.
+	 * @param directory the directory to use
+	 * @param quota the maximum number of bytes the projects may use on disk or
+	 * {@code 0} for no limit
+	 * @param quotaTimeout the time to wait for space to be released when the quota is
+	 * exceeded
+	 */
+	public TemporarySpace(File directory, long quota, Duration quotaTimeout) {
+		this.directory = directory;
+		this.quota = quota;
+		this.quotaTimeout = quotaTimeout;
+	}
+
+	/**
+	 * Create a new, empty, project directory.
+	 * @return the project directory
+	 * @throws TemporarySpaceExceededException if the quota is exceeded and no space
+	 * has been released in time
+	 */
+	public File createProjectDirectory() {
+		awaitCapacity();
+		try {
+			Files.createDirectories(this.directory.toPath());
+			Path dir = Files.createTempDirectory(this.directory.toPath(), "tmp");
+			File projectDirectory = dir.toFile();
+			Project project = new Project();
+			project.files.add(projectDirectory);
+			this.projects.put(projectDirectory.getName(), project);
+			return projectDirectory;
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot create temp dir", ex);
+		}
+	}
+
+	/**
+	 * Return a file, related to the specified project directory, with the specified
+	 * extension. The file is removed when the project is released.
+	 * @param projectDirectory the project directory
+	 * @param extension the extension of the file
+	 * @return a file, not yet created
+	 */
+	public File createFile(File projectDirectory, String extension) {
+		File file = new File(this.directory, projectDirectory.getName() + extension);
+		Project project = this.projects.get(projectDirectory.getName());
+		if (project != null) {
+			project.files.add(file);
+		}
+		return file;
+	}
+
+	/**
+	 * Track the specified files as part of the specified project, registering the
+	 * project if necessary. The files are removed when the project is released.
+	 * @param projectDirectory the project directory
+	 * @param files the files related to the project
+	 */
+	public void track(File projectDirectory, Collection<File> files) {
+		Project project = this.projects.computeIfAbsent(projectDirectory.getName(),
+				(name) -> {
+					Project created = new Project();
+					created.files.add(projectDirectory);
+					return created;
+				});
+		files.stream().filter((file) -> !project.files.contains(file))
+				.forEach(project.files::add);
+	}
+
+	/**
+	 * Account for the current size of the files of the specified project.
+	 * @param projectDirectory the project directory
+	 */
+	public void updateSize(File projectDirectory) {
+		Project project = this.projects.get(projectDirectory.getName());
+		if (project != null) {
+			long size = project.files.stream().mapToLong(TemporarySpace::sizeOf).sum();
+			long previous = project.size.getAndSet(size);
+			this.usedBytes.addAndGet(size - previous);
+		}
+	}
+
+	/**
+	 * Flag the specified project as in use, for instance while it is being transferred,
+	 * so that it is not removed by the reaper until it is {@link #release(File)
+	 * released}.
+	 * @param projectDirectory the project directory
+	 */
+	public void markInUse(File projectDirectory) {
+		Project project = this.projects.get(projectDirectory.getName());
+		if (project != null) {
+			project.inUse = true;
+		}
+	}
+
+	/**
+	 * Remove all the files related to the specified project directory.
+	 * @param projectDirectory the project directory
+	 */
+	public void release(File projectDirectory) {
+		Project project = this.projects.remove(projectDirectory.getName());
+		if (project != null) {
+			project.files.forEach(TemporarySpace::delete);
+			this.usedBytes.addAndGet(-project.size.get());
+			signalCapacity();
+		}
+	}
+
+	/**
+	 * Release the projects that were created more than {@code maxAge} ago and are not
+	 * in use, and remove any other file of the directory that is older than that.
+	 * @param maxAge the maximum age of a project
+	 * @return the number of projects and files that have been removed
+	 */
+	public int reap(Duration maxAge) {
+		long threshold = System.currentTimeMillis() - maxAge.toMillis();
+		int count = 0;
+		for (String name : this.projects.keySet()) {
+			Project project = this.projects.get(name);
+			if (project != null && !project.inUse && project.created < threshold) {
+				release(new File(this.directory, name));
+				count++;
+			}
+		}
+		File[] files = this.directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (!isTracked(file) && file.lastModified() < threshold) {
+					delete(file);
+					count++;
+				}
+			}
+		}
+		if (count > 0) {
+			log.info("Removed {} orphan temporary file(s) from {}", count,
+					this.directory);
+			this.reapedCount.add(count);
+		}
+		return count;
+	}
+
+	/**
+	 * Configure the reaper that is {@link #scheduleReaper(Duration, Duration)
+	 * scheduled} when this instance is {@link #start() started}.
+	 * @param interval the interval between two runs
+	 * @param maxAge the maximum age of a project
+	 */
+	public synchronized void setReaperSchedule(Duration interval, Duration maxAge) {
+		this.reaperInterval = interval;
+		this.reaperMaxAge = maxAge;
+	}
+
+	/**
+	 * Reap orphan projects at the specified interval.
+	 * @param interval the interval between two runs
+	 * @param maxAge the maximum age of a project
+	 * @see #reap(Duration)
+	 */
+	public synchronized void scheduleReaper(Duration interval, Duration maxAge) {
+		if (this.reaper != null) {
+			this.reaper.shutdownNow();
+		}
+		this.reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "initializr-temp-reaper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.reaper.scheduleWithFixedDelay(() -> {
+			try {
+				reap(maxAge);
+			}
+			catch (RuntimeException ex) {
+				log.warn("Failed to remove orphan temporary files", ex);
+			}
+		}, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.reaperInterval != null && this.reaper == null) {
+			scheduleReaper(this.reaperInterval, this.reaperMaxAge);
+		}
+	}
+
+	@Override
+	public void stop() {
+		destroy();
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return this.reaper != null;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (this.reaper != null) {
+			this.reaper.shutdownNow();
+			this.reaper = null;
+		}
+	}
+
+	/**
+	 * Return the directory in which temporary files are created.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/**
+	 * Return the maximum number of bytes the projects may use, or {@code 0} if there is
+	 * no limit.
+	 */
+	public long getQuota() {
+		return this.quota;
+	}
+
+	/**
+	 * Return the number of projects that have not been released yet.
+	 */
+	public int getProjectCount() {
+		return this.projects.size();
+	}
+
+	/**
+	 * Return the number of bytes used on disk by the projects that have not been
+	 * released yet.
+	 */
+	public long getUsedBytes() {
+		return this.usedBytes.get();
+	}
+
+	/**
+	 * Return the number of orphan projects and files that have been removed.
+	 */
+	public long getReapedCount() {
+		return this.reapedCount.sum();
+	}
+
+	private void awaitCapacity() {
+		if (this.quota <= 0 || this.usedBytes.get() < this.quota) {
+			return;
+		}
+		this.lock.lock();
+		try {
+			long nanos = this.quotaTimeout.toNanos();
+			while (this.usedBytes.get() >= this.quota) {
+				if (nanos <= 0) {
+					throw new TemporarySpaceExceededException("Temporary space quota of "
+							+ this.quota + " bytes exceeded");
+				}
+				nanos = this.released.awaitNanos(nanos);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TemporarySpaceExceededException(
+					"Interrupted while waiting for temporary space", ex);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void signalCapacity() {
+		if (this.quota > 0) {
+			this.lock.lock();
+			try {
+				this.released.signalAll();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+	private boolean isTracked(File file) {
+		String name = file.getName();
+		int index = name.indexOf('.');
+		return this.projects.containsKey(index != -1 ? name.substring(0, index) : name);
+	}
+
+	private static long sizeOf(File file) {
+		if (!file.exists()) {
+			return 0;
+		}
+		try (Stream<Path> paths = Files.walk(file.toPath())) {
+			return paths.map(Path::toFile).filter(File::isFile)
+					.mapToLong(File::length).sum();
+		}
+		catch (IOException | UncheckedIOException ex) {
+			return 0;
+		}
+	}
+
+	private static void delete(File file) {
+		if (file.isDirectory()) {
+			FileSystemUtils.deleteRecursively(file);
+		}
+		else if (file.exists()) {
+			file.delete();
+		}
+	}
+
+	private static final class Project {
+
+		private final long created = System.currentTimeMillis();
+
+		private final Queue<File> files = new ConcurrentLinkedQueue<>();
+
+		private final AtomicLong size = new AtomicLong();
+
+		private volatile boolean inUse;
+
+	}
+
+}
@@ -27,6 +27,7 @@ import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionParser;
 import io.spring.initializr.util.VersionProperty;
 import io.spring.initializr.util.VersionRange;
+import io.spring.initializr.util.VersionRangeIndex;
 
 /**
  * Define a Bill Of Materials to be represented in the generated project if a dependency
@@ -46,6 +47,9 @@ public class BillOfMaterials {
 	private List<String> repositories = new ArrayList<>();
 	private final List<Mapping> mappings = new ArrayList<>();
 
+	@JsonIgnore
+	private VersionRangeIndex mappingsIndex;
+
 	public BillOfMaterials() {
 	}
 
@@ -162,6 +166,7 @@ public class BillOfMaterials {
 						"Invalid version range " + it.versionRange + " for " + this, ex);
 			}
 		});
+		mappingsIndex = VersionRangeIndex.of(mappings, it -> it.range);
 	}
 
 	/**
@@ -174,21 +179,34 @@ public class BillOfMaterials {
 			return this;
 		}
 
+		Mapping mapping = findMapping(bootVersion);
+		if (mapping != null) {
+			BillOfMaterials resolvedBom = new BillOfMaterials(groupId, artifactId,
+					mapping.version);
+			resolvedBom.setVersionProperty(versionProperty);
+			resolvedBom.setOrder(order);
+			resolvedBom.repositories.addAll(!mapping.repositories.isEmpty()
+					? mapping.repositories : repositories);
+			resolvedBom.additionalBoms.addAll(!mapping.additionalBoms.isEmpty()
+					? mapping.additionalBoms : additionalBoms);
+			return resolvedBom;
+		}
+		throw new IllegalStateException(
+				"No suitable mapping was found for " + this + " and version " + bootVersion);
+	}
+
+	private Mapping findMapping(Version bootVersion) {
+		VersionRangeIndex index = mappingsIndex;
+		if (index != null && index.size() == mappings.size()) {
+			int i = index.indexOf(bootVersion);
+			return (i != -1 ? mappings.get(i) : null);
+		}
 		for (Mapping mapping : mappings) {
 			if (mapping.range.match(bootVersion)) {
-				BillOfMaterials resolvedBom = new BillOfMaterials(groupId, artifactId,
-						mapping.version);
-				resolvedBom.setVersionProperty(versionProperty);
-				resolvedBom.setOrder(order);
-				resolvedBom.repositories.addAll(!mapping.repositories.isEmpty()
-						? mapping.repositories : repositories);
-				resolvedBom.additionalBoms.addAll(!mapping.additionalBoms.isEmpty()
-						? mapping.additionalBoms : additionalBoms);
-				return resolvedBom;
+				return mapping;
 			}
 		}
-		throw new IllegalStateException(
-				"No suitable mapping was found for " + this + " and version " + bootVersion);
+		return null;
 	}
 
 	@Override
@@ -292,6 +310,32 @@ public class BillOfMaterials {
 
 	}
 
+	/**
+	 * Create a copy of this instance that does not share its mappings, so that the
+	 * version ranges of the copy can be updated without affecting this instance.
+	 */
+	BillOfMaterials copy() {
+		BillOfMaterials copy = new BillOfMaterials(this.groupId, this.artifactId,
+				this.version);
+		copy.versionProperty = this.versionProperty;
+		copy.order = this.order;
+		copy.additionalBoms = copyOf(this.additionalBoms);
+		copy.repositories = copyOf(this.repositories);
+		for (Mapping mapping : this.mappings) {
+			Mapping mappingCopy = new Mapping(mapping.versionRange, mapping.version);
+			mappingCopy.repositories = copyOf(mapping.repositories);
+			mappingCopy.additionalBoms = copyOf(mapping.additionalBoms);
+			mappingCopy.range = mapping.range;
+			copy.mappings.add(mappingCopy);
+		}
+		copy.mappingsIndex = this.mappingsIndex;
+		return copy;
+	}
+
+	private static List<String> copyOf(List<String> list) {
+		return (list != null ? new ArrayList<>(list) : null);
+	}
+
 	public static BillOfMaterials create(String groupId, String artifactId) {
 		return new BillOfMaterials(groupId, artifactId);
 	}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.metadata;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.spring.initializr.util.Version;
+
+/**
+ * An index of the {@link Dependency dependencies} of an {@link InitializrMetadata} per
+ * Spring Boot version. For each version, the index holds the dependencies that are
+ * compatible with it, the dependencies resolved against it and the bill of materials
+ * that they require, so that resolving a request does not have to evaluate any version
+ * range.
+ * <p>
+ * Only the Spring Boot versions of the metadata are indexed, upfront. Other versions,
+ * that a client may request, are not indexed: only the dependencies that are requested
+ * for them are resolved.
+ *
+ * @author Stephane Nicoll
+ * @see InitializrMetadata#getCompatibilityIndex()
+ */
+public final class CompatibilityIndex {
+
+	private final InitializrMetadata metadata;
+
+	private final Dependency[] dependencies;
+
+	private final Map<String, Integer> positions = new HashMap<>();
+
+	private final Map<Version, BootVersion> bootVersions = new HashMap<>();
+
+	CompatibilityIndex(InitializrMetadata metadata) {
+		this.metadata = metadata;
+		Map<String, Dependency> all = new LinkedHashMap<>();
+		metadata.getDependencies().getAll()
+				.forEach((dependency) -> all.putIfAbsent(dependency.getId(), dependency));
+		this.dependencies = all.values().toArray(new Dependency[0]);
+		for (int i = 0; i < this.dependencies.length; i++) {
+			Dependency dependency = this.dependencies[i];
+			this.positions.put(dependency.getId(), i);
+			for (String alias : dependency.getAliases()) {
+				this.positions.put(alias, i);
+			}
+		}
+		for (DefaultMetadataElement element : metadata.getBootVersions().getContent()) {
+			Version version = Version.safeParse(element.getId());
+			if (version != null) {
+				this.bootVersions.computeIfAbsent(version,
+						(key) -> new BootVersion(key, true));
+			}
+		}
+	}
+
+	/**
+	 * Return the index of the specified Spring Boot version. If that version is not
+	 * available in the metadata, a view that resolves the dependencies as they are
+	 * requested is returned instead.
+	 * @param bootVersion the Spring Boot version
+	 * @return the index of that version
+	 */
+	public BootVersion get(Version bootVersion) {
+		BootVersion index = this.bootVersions.get(bootVersion);
+		return (index != null ? index : new BootVersion(bootVersion, false));
+	}
+
+	/**
+	 * The dependencies of the metadata for a given Spring Boot version.
+	 */
+	public final class BootVersion {
+
+		private final Version version;
+
+		private final BitSet compatible;
+
+		private final Dependency[] resolvedDependencies;
+
+		private final Map<String, BillOfMaterials> boms = new HashMap<>();
+
+		private final DependencyMetadata dependencyMetadata;
+
+		private BootVersion(Version version, boolean indexed) {
+			this.version = version;
+			if (!indexed) {
+				this.compatible = null;
+				this.resolvedDependencies = null;
+				this.dependencyMetadata = null;
+				return;
+			}
+			this.compatible = new BitSet(dependencies.length);
+			this.resolvedDependencies = new Dependency[dependencies.length];
+			for (int i = 0; i < dependencies.length; i++) {
+				Dependency dependency = dependencies[i];
+				this.resolvedDependencies[i] = dependency.resolve(version);
+				if (dependency.match(version)) {
+					this.compatible.set(i);
+					if (dependency.getBom() != null) {
+						indexBom(dependency.getBom());
+					}
+				}
+			}
+			this.dependencyMetadata = createDependencyMetadataIfPossible();
+		}
+
+		private boolean isCompatible(int position) {
+			return (this.compatible != null ? this.compatible.get(position)
+					: dependencies[position].match(this.version));
+		}
+
+		private Dependency getDependency(int position) {
+			return (this.resolvedDependencies != null
+					? this.resolvedDependencies[position]
+					: dependencies[position].resolve(this.version));
+		}
+
+		private void indexBom(String id) {
+			BillOfMaterials bom = metadata.getConfiguration().getEnv().getBoms().get(id);
+			if (bom == null || this.boms.containsKey(id)) {
+				return;
+			}
+			try {
+				BillOfMaterials resolved = bom.resolve(this.version);
+				this.boms.put(id, resolved);
+				resolved.getAdditionalBoms().forEach(this::indexBom);
+			}
+			catch (IllegalStateException ex) {
+				// Not indexed, resolved (and reported) when it is used
+			}
+		}
+
+		private DependencyMetadata createDependencyMetadataIfPossible() {
+			try {
+				return createDependencyMetadata();
+			}
+			catch (IllegalStateException ex) {
+				return null;
+			}
+		}
+
+		private DependencyMetadata createDependencyMetadata() {
+			Map<String, Repository> allRepositories = metadata.getConfiguration()
+					.getEnv().getRepositories();
+			Map<String, Dependency> compatibleDependencies = new LinkedHashMap<>();
+			Map<String, Repository> repositories = new LinkedHashMap<>();
+			Map<String, BillOfMaterials> dependencyBoms = new LinkedHashMap<>();
+			for (int i = 0; i < dependencies.length; i++) {
+				if (isCompatible(i)) {
+					Dependency dependency = getDependency(i);
+					compatibleDependencies.put(dependency.getId(), dependency);
+				}
+			}
+			for (Dependency dependency : compatibleDependencies.values()) {
+				if (dependency.getRepository() != null) {
+					repositories.put(dependency.getRepository(),
+							allRepositories.get(dependency.getRepository()));
+				}
+			}
+			for (Dependency dependency : compatibleDependencies.values()) {
+				if (dependency.getBom() != null) {
+					dependencyBoms.put(dependency.getBom(), getBom(dependency.getBom()));
+				}
+			}
+			// Each resolved bom may require additional repositories
+			for (BillOfMaterials bom : dependencyBoms.values()) {
+				for (String id : bom.getRepositories()) {
+					repositories.put(id, allRepositories.get(id));
+				}
+			}
+			return new DependencyMetadata(this.version,
+					Collections.unmodifiableMap(compatibleDependencies),
+					Collections.unmodifiableMap(repositories),
+					Collections.unmodifiableMap(dependencyBoms));
+		}
+
+		/**
+		 * Return the Spring Boot version of this index.
+		 */
+		public Version getVersion() {
+			return this.version;
+		}
+
+		/**
+		 * Return the dependency with the specified id or alias, resolved against this
+		 * Spring Boot version, or {@code null} if no such dependency exists.
+		 * @param id the id or an alias of a dependency
+		 * @return the resolved dependency or {@code null}
+		 */
+		public Dependency getDependency(String id) {
+			Integer position = positions.get(id);
+			return (position != null ? getDependency(position) : null);
+		}
+
+		/**
+		 * Specify if the dependency with the specified id or alias is compatible with
+		 * this Spring Boot version.
+		 * @param id the id or an alias of a dependency
+		 * @return {@code true} if the dependency exists and is compatible
+		 */
+		public boolean isCompatible(String id) {
+			Integer position = positions.get(id);
+			return (position != null && isCompatible(position));
+		}
+
+		/**
+		 * Return the bill of materials with the specified id, resolved against this
+		 * Spring Boot version.
+		 * @param id the id of a bill of materials
+		 * @return the resolved bill of materials
+		 * @throws IllegalStateException if the bill of materials does not support this
+		 * Spring Boot version
+		 */
+		public BillOfMaterials getBom(String id) {
+			BillOfMaterials bom = this.boms.get(id);
+			if (bom != null) {
+				return bom;
+			}
+			return metadata.getConfiguration().getEnv().getBoms().get(id)
+					.resolve(this.version);
+		}
+
+		/**
+		 * Return the {@link DependencyMetadata} of this Spring Boot version.
+		 * @return the dependency metadata
+		 */
+		public DependencyMetadata getDependencyMetadata() {
+			return (this.dependencyMetadata != null ? this.dependencyMetadata
+					: createDependencyMetadata());
+		}
+
+	}
+
+}
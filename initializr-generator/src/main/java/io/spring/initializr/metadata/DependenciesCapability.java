@@ -77,7 +77,7 @@ public class DependenciesCapability extends ServiceCapability<List<DependencyGro
 		otherContent.forEach(group -> {
 			if (content.stream().noneMatch(it -> group.getName() != null
 					&& group.getName().equals(it.getName()))) {
-				content.add(group);
+				content.add(group.copy());
 			}
 		});
 		index();
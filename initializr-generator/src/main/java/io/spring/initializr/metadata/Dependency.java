@@ -27,6 +27,7 @@ import io.spring.initializr.util.InvalidVersionException;
 import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionParser;
 import io.spring.initializr.util.VersionRange;
+import io.spring.initializr.util.VersionRangeIndex;
 
 import org.springframework.util.StringUtils;
 
@@ -64,6 +65,9 @@ public class Dependency extends MetadataElement implements Describable {
 	@JsonIgnore
 	private VersionRange range;
 
+	@JsonIgnore
+	private VersionRangeIndex mappingsIndex;
+
 	private String bom;
 	private String repository;
 
@@ -105,6 +109,22 @@ public class Dependency extends MetadataElement implements Describable {
 		this.links.addAll(dependency.links);
 	}
 
+	/**
+	 * Create a copy of this dependency that does not share its mappings, so that the
+	 * version ranges of the copy can be updated without affecting this instance.
+	 */
+	Dependency copy() {
+		Dependency copy = new Dependency(this);
+		copy.mappings.clear();
+		for (Mapping mapping : this.mappings) {
+			Mapping mappingCopy = Mapping.create(mapping.versionRange, mapping.groupId,
+					mapping.artifactId, mapping.version);
+			mappingCopy.range = mapping.range;
+			copy.mappings.add(mappingCopy);
+		}
+		return copy;
+	}
+
 	public void setScope(String scope) {
 		if (!SCOPE_ALL.contains(scope)) {
 			throw new InvalidInitializrMetadataException(
@@ -196,6 +216,7 @@ public class Dependency extends MetadataElement implements Describable {
 						"Invalid version range " + it.versionRange + " for " + this, ex);
 			}
 		});
+		mappingsIndex = VersionRangeIndex.of(mappings, it -> it.range);
 	}
 
 	/**
@@ -204,21 +225,34 @@ public class Dependency extends MetadataElement implements Describable {
 	 * specified version.
 	 */
 	public Dependency resolve(Version bootVersion) {
+		Mapping mapping = findMapping(bootVersion);
+		if (mapping != null) {
+			Dependency dependency = new Dependency(this);
+			dependency.groupId = mapping.groupId != null ? mapping.groupId
+					: this.groupId;
+			dependency.artifactId = mapping.artifactId != null ? mapping.artifactId
+					: this.artifactId;
+			dependency.version = mapping.version != null ? mapping.version
+					: this.version;
+			dependency.versionRequirement = mapping.range.toString();
+			dependency.mappings = null;
+			return dependency;
+		}
+		return this;
+	}
+
+	private Mapping findMapping(Version bootVersion) {
+		VersionRangeIndex index = mappingsIndex;
+		if (index != null && index.size() == mappings.size()) {
+			int i = index.indexOf(bootVersion);
+			return (i != -1 ? mappings.get(i) : null);
+		}
 		for (Mapping mapping : mappings) {
 			if (mapping.range.match(bootVersion)) {
-				Dependency dependency = new Dependency(this);
-				dependency.groupId = mapping.groupId != null ? mapping.groupId
-						: this.groupId;
-				dependency.artifactId = mapping.artifactId != null ? mapping.artifactId
-						: this.artifactId;
-				dependency.version = mapping.version != null ? mapping.version
-						: this.version;
-				dependency.versionRequirement = mapping.range.toString();
-				dependency.mappings = null;
-				return dependency;
+				return mapping;
 			}
 		}
-		return this;
+		return null;
 	}
 
 	/**
@@ -309,6 +343,7 @@ public class Dependency extends MetadataElement implements Describable {
 
 	public void setMappings(List<Mapping> mappings) {
 		this.mappings = mappings;
+		this.mappingsIndex = null;
 	}
 
 	@Override
@@ -95,6 +95,18 @@ public class DependencyGroup {
 		return content;
 	}
 
+	/**
+	 * Create a copy of this group with a copy of its {@link Dependency dependencies}.
+	 */
+	DependencyGroup copy() {
+		DependencyGroup copy = create(this.name);
+		copy.versionRange = this.versionRange;
+		copy.bom = this.bom;
+		copy.repository = this.repository;
+		this.content.forEach((dependency) -> copy.content.add(dependency.copy()));
+		return copy;
+	}
+
 	public static DependencyGroup create(String name) {
 		DependencyGroup group = new DependencyGroup();
 		group.setName(name);
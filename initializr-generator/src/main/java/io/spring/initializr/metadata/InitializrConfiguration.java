@@ -31,6 +31,7 @@ import io.spring.initializr.util.InvalidVersionException;
 import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionParser;
 import io.spring.initializr.util.VersionRange;
+import io.spring.initializr.util.VersionRangeIndex;
 
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.util.StringUtils;
@@ -333,11 +334,13 @@ public class InitializrConfiguration {
 			googleAnalyticsTrackingCode = other.googleAnalyticsTrackingCode;
 			fallbackApplicationName = other.fallbackApplicationName;
 			invalidApplicationNames = other.invalidApplicationNames;
+			invalidPackageNames = other.invalidPackageNames;
 			forceSsl = other.forceSsl;
 			gradle.merge(other.gradle);
 			kotlin.merge(other.kotlin);
 			maven.merge(other.maven);
-			other.boms.forEach(boms::putIfAbsent);
+			other.boms.forEach((id, bom) -> boms.computeIfAbsent(id,
+					(key) -> bom.copy()));
 			other.repositories.forEach(repositories::putIfAbsent);
 		}
 
@@ -375,16 +378,18 @@ public class InitializrConfiguration {
 			 */
 			private final List<Mapping> mappings = new ArrayList<>();
 
+			@JsonIgnore
+			private VersionRangeIndex mappingsIndex;
+
 			/**
 			 * Resolve the kotlin version to use based on the Spring Boot version.
 			 * @param bootVersion the Spring Boot version
 			 * @return the kotlin version to use
 			 */
 			public String resolveKotlinVersion(Version bootVersion) {
-				for (Mapping mapping : this.mappings) {
-					if (mapping.range.match(bootVersion)) {
-						return mapping.version;
-					}
+				Mapping mapping = findMapping(bootVersion);
+				if (mapping != null) {
+					return mapping.version;
 				}
 				if (defaultVersion == null) {
 					throw new InvalidInitializrMetadataException(
@@ -393,6 +398,20 @@ public class InitializrConfiguration {
 				return this.defaultVersion;
 			}
 
+			private Mapping findMapping(Version bootVersion) {
+				VersionRangeIndex index = this.mappingsIndex;
+				if (index != null && index.size() == this.mappings.size()) {
+					int i = index.indexOf(bootVersion);
+					return (i != -1 ? this.mappings.get(i) : null);
+				}
+				for (Mapping mapping : this.mappings) {
+					if (mapping.range.match(bootVersion)) {
+						return mapping;
+					}
+				}
+				return null;
+			}
+
 			public String getDefaultVersion() {
 				return this.defaultVersion;
 			}
@@ -418,6 +437,7 @@ public class InitializrConfiguration {
 								"Version is mandatory, invalid version mapping for " + this);
 					}
 				});
+				this.mappingsIndex = VersionRangeIndex.of(this.mappings, it -> it.range);
 			}
 
 			public void updateVersionRange(VersionParser versionParser) {
@@ -430,12 +450,20 @@ public class InitializrConfiguration {
 								"Invalid version range " + it.versionRange + " for " + this, ex);
 					}
 				});
+				this.mappingsIndex = VersionRangeIndex.of(this.mappings, it -> it.range);
 			}
 
 			private void merge(Kotlin other) {
 				this.defaultVersion = other.defaultVersion;
 				this.mappings.clear();
-				this.mappings.addAll(other.mappings);
+				for (Mapping mapping : other.mappings) {
+					Mapping copy = new Mapping();
+					copy.versionRange = mapping.versionRange;
+					copy.version = mapping.version;
+					copy.range = mapping.range;
+					this.mappings.add(copy);
+				}
+				this.mappingsIndex = other.mappingsIndex;
 			}
 
 			/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2017 the original author or authors.
+ * Copyright 2012-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.spring.initializr.util.Version;
 import io.spring.initializr.util.VersionParser;
 import io.spring.initializr.util.VersionProperty;
@@ -67,6 +68,8 @@ public class InitializrMetadata {
 
 	private final TextCapability packageName = new PackageCapability(groupId, artifactId);
 
+	private volatile CompatibilityIndex compatibilityIndex;
+
 	public InitializrMetadata() {
 		this(new InitializrConfiguration());
 	}
@@ -128,10 +131,30 @@ public class InitializrMetadata {
 	}
 
 	/**
-	 * Merge this instance with the specified argument
+	 * Return the {@link CompatibilityIndex} of the dependencies, building it if
+	 * necessary. The index is discarded when this instance is merged, validated or
+	 * when its Spring Boot versions are updated.
+	 * @return the compatibility index
+	 */
+	@JsonIgnore
+	public CompatibilityIndex getCompatibilityIndex() {
+		CompatibilityIndex index = this.compatibilityIndex;
+		if (index == null) {
+			index = new CompatibilityIndex(this);
+			this.compatibilityIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Merge this instance with the specified argument. The dependencies and bill of
+	 * materials are copied so that the Spring Boot versions of this instance can be
+	 * {@link #updateSpringBootVersions(List) updated} without affecting the other
+	 * instance. Sub-classes holding additional state should merge it as well.
 	 * @param other the other instance
 	 */
 	public void merge(InitializrMetadata other) {
+		this.compatibilityIndex = null;
 		this.configuration.merge(other.configuration);
 		this.dependencies.merge(other.dependencies);
 		this.types.merge(other.types);
@@ -151,6 +174,7 @@ public class InitializrMetadata {
 	 * Validate the metadata.
 	 */
 	public void validate() {
+		this.compatibilityIndex = null;
 		this.configuration.validate();
 		dependencies.validate();
 
@@ -210,6 +234,7 @@ public class InitializrMetadata {
 	 * @param versionsMetadata the Spring Boot boot versions metadata to use
 	 */
 	public void updateSpringBootVersions(List<DefaultMetadataElement> versionsMetadata) {
+		this.compatibilityIndex = null;
 		this.bootVersions.getContent().clear();
 		this.bootVersions.getContent().addAll(versionsMetadata);
 		List<Version> bootVersions = this.bootVersions.getContent().stream()
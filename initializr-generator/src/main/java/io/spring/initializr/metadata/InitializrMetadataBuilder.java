@@ -93,6 +93,17 @@ public class InitializrMetadataBuilder {
 		return withCustomizer(new ResourceInitializrMetadataCustomizer(resource));
 	}
 
+	/**
+	 * Add a copy of the specified {@link InitializrMetadata} to be merged with other
+	 * content. The copy is taken immediately and does not share its dependencies and
+	 * bill of materials with the specified instance, so that it can be updated without
+	 * affecting it.
+	 * @param metadata the metadata to copy
+	 */
+	public InitializrMetadataBuilder withInitializrMetadata(InitializrMetadata metadata) {
+		return withCustomizer(new CopyInitializrMetadataCustomizer(metadata));
+	}
+
 	/**
 	 * Add a {@link InitializrMetadataCustomizer}. customizers are invoked in their order
 	 * of addition.
@@ -202,4 +213,20 @@ public class InitializrMetadataBuilder {
 
 	}
 
+	private static class CopyInitializrMetadataCustomizer
+			implements InitializrMetadataCustomizer {
+
+		private final InitializrMetadata copy = new InitializrMetadata();
+
+		CopyInitializrMetadataCustomizer(InitializrMetadata metadata) {
+			this.copy.merge(metadata);
+		}
+
+		@Override
+		public void customize(InitializrMetadata metadata) {
+			metadata.merge(this.copy);
+		}
+
+	}
+
 }
@@ -18,6 +18,11 @@ package io.spring.initializr.metadata;
 
 /**
  * Provide the {@link InitializrMetadata} to use.
+ * <p>
+ * An instance that has been served must not be modified: components may cache derived
+ * state, such as serialized representations, per metadata instance. Implementations
+ * that change the metadata should serve a new instance and publish an
+ * {@link InitializrMetadataUpdatedEvent}.
  *
  * @author Stephane Nicoll
  */
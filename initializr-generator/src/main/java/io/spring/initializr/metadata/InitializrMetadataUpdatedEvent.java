@@ -0,0 +1,40 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.metadata;
+
+/**
+ * Event published by an {@link InitializrMetadataProvider} when the
+ * {@link InitializrMetadata} it provides has been updated.
+ *
+ * @author Stephane Nicoll
+ */
+public class InitializrMetadataUpdatedEvent {
+
+	private final InitializrMetadata metadata;
+
+	public InitializrMetadataUpdatedEvent(InitializrMetadata metadata) {
+		this.metadata = metadata;
+	}
+
+	/**
+	 * Return the updated {@link InitializrMetadata}.
+	 */
+	public InitializrMetadata getMetadata() {
+		return metadata;
+	}
+
+}
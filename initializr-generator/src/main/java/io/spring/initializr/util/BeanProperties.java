@@ -0,0 +1,269 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.util;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Fast access to the properties of a bean type. The type is introspected once and each
+ * getter and setter is bound to a generated lambda so that reading or writing a
+ * property involves neither reflection nor {@link PropertyDescriptor} allocation.
+ * <p>
+ * Only the properties that can be read or written through public accessors are
+ * exposed, the {@code class} property excepted. Introspection results are softly
+ * referenced so that they do not prevent the class loader of a bean type from being
+ * garbage collected. Accessors of types that are not visible from the class loader of
+ * this class are invoked using reflection.
+ *
+ * @param <T> the type of the bean
+ * @author Stephane Nicoll
+ */
+public final class BeanProperties<T> {
+
+	private static final ConcurrentMap<Class<?>, BeanProperties<?>> cache =
+			new ConcurrentReferenceHashMap<>();
+
+	private final Map<String, Function<Object, Object>> getters;
+
+	private final Map<String, Setter> setters;
+
+	private BeanProperties(Class<T> type) {
+		Map<String, Function<Object, Object>> getters = new LinkedHashMap<>();
+		Map<String, Setter> setters = new LinkedHashMap<>();
+		for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+			String name = descriptor.getName();
+			if ("class".equals(name)) {
+				continue;
+			}
+			if (descriptor.getReadMethod() != null) {
+				getters.put(name, createGetter(descriptor.getReadMethod()));
+			}
+			if (descriptor.getWriteMethod() != null) {
+				setters.put(name, new Setter(descriptor.getPropertyType(),
+						createSetter(descriptor.getWriteMethod())));
+			}
+		}
+		this.getters = Collections.unmodifiableMap(getters);
+		this.setters = Collections.unmodifiableMap(setters);
+	}
+
+	/**
+	 * Return the {@link BeanProperties} of the specified type, introspecting it if
+	 * necessary.
+	 * @param type the type of the bean
+	 * @param <T> the type of the bean
+	 * @return the properties of that type
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> BeanProperties<T> of(Class<T> type) {
+		return (BeanProperties<T>) cache.computeIfAbsent(type, BeanProperties::new);
+	}
+
+	/**
+	 * Return the {@link BeanProperties} of the type of the specified bean.
+	 * @param bean the bean
+	 * @param <T> the type of the bean
+	 * @return the properties of the type of that bean
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> BeanProperties<T> forInstance(T bean) {
+		return (BeanProperties<T>) of(bean.getClass());
+	}
+
+	/**
+	 * Return the names of the readable properties.
+	 */
+	public Set<String> getReadableProperties() {
+		return this.getters.keySet();
+	}
+
+	/**
+	 * Specify if the property with the specified name is readable.
+	 * @param name the name of the property
+	 * @return {@code true} if the property can be read
+	 */
+	public boolean isReadable(String name) {
+		return this.getters.containsKey(name);
+	}
+
+	/**
+	 * Specify if the specified value can be written to the property with the specified
+	 * name.
+	 * @param name the name of the property
+	 * @param value the value to write
+	 * @return {@code true} if the property is writable and accepts that value
+	 */
+	public boolean isWritable(String name, Object value) {
+		Setter setter = this.setters.get(name);
+		return setter != null && ClassUtils.isAssignableValue(setter.type, value);
+	}
+
+	/**
+	 * Return the value of the specified property.
+	 * @param bean the bean to read
+	 * @param name the name of a readable property
+	 * @return the value of the property
+	 */
+	public Object get(T bean, String name) {
+		Function<Object, Object> getter = this.getters.get(name);
+		if (getter == null) {
+			throw new IllegalArgumentException("No readable property '" + name
+					+ "' on " + bean.getClass().getName());
+		}
+		return getter.apply(bean);
+	}
+
+	/**
+	 * Set the value of the specified property.
+	 * @param bean the bean to update
+	 * @param name the name of a writable property
+	 * @param value the value to set
+	 * @see #isWritable(String, Object)
+	 */
+	public void set(T bean, String name, Object value) {
+		Setter setter = this.setters.get(name);
+		if (setter == null) {
+			throw new IllegalArgumentException("No writable property '" + name
+					+ "' on " + bean.getClass().getName());
+		}
+		setter.accessor.accept(bean, value);
+	}
+
+	/**
+	 * Copy the value of each readable property of the specified bean to the specified
+	 * {@link Map}, using the name of the property as key.
+	 * @param bean the bean to read
+	 * @param target the map to populate
+	 */
+	public void copyTo(T bean, Map<String, Object> target) {
+		this.getters.forEach((name, getter) -> target.put(name, getter.apply(bean)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Function<Object, Object> createGetter(Method method) {
+		if (!isVisible(method)) {
+			return createReflectiveGetter(method);
+		}
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflect(method);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+					MethodType.methodType(Function.class),
+					MethodType.methodType(Object.class, Object.class), handle,
+					MethodType.methodType(
+							ClassUtils.resolvePrimitiveIfNecessary(method.getReturnType()),
+							method.getDeclaringClass()));
+			return (Function<Object, Object>) site.getTarget().invokeExact();
+		}
+		catch (Throwable ex) {
+			// Not accessible from here, use plain reflection
+			return createReflectiveGetter(method);
+		}
+	}
+
+	private static Function<Object, Object> createReflectiveGetter(Method method) {
+		ReflectionUtils.makeAccessible(method);
+		return bean -> ReflectionUtils.invokeMethod(method, bean);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static BiConsumer<Object, Object> createSetter(Method method) {
+		if (!isVisible(method)) {
+			return createReflectiveSetter(method);
+		}
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			MethodHandle handle = lookup.unreflect(method);
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+					MethodType.methodType(BiConsumer.class),
+					MethodType.methodType(void.class, Object.class, Object.class), handle,
+					MethodType.methodType(void.class, method.getDeclaringClass(),
+							ClassUtils.resolvePrimitiveIfNecessary(
+									method.getParameterTypes()[0])));
+			return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+		}
+		catch (Throwable ex) {
+			// Not accessible from here, use plain reflection
+			return createReflectiveSetter(method);
+		}
+	}
+
+	private static BiConsumer<Object, Object> createReflectiveSetter(Method method) {
+		ReflectionUtils.makeAccessible(method);
+		return (bean, value) -> ReflectionUtils.invokeMethod(method, bean, value);
+	}
+
+	/**
+	 * Specify if the types involved in the specified accessor are the same when they
+	 * are loaded from the class loader of this class, which is where the lambda that
+	 * invokes the accessor is defined. Types of a child class loader, such as a restart
+	 * class loader or the class loader of an extension, are not.
+	 */
+	private static boolean isVisible(Method method) {
+		if (!isVisible(method.getDeclaringClass())
+				|| !isVisible(method.getReturnType())) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isVisible(parameterType)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isVisible(Class<?> type) {
+		Class<?> candidate = type;
+		while (candidate.isArray()) {
+			candidate = candidate.getComponentType();
+		}
+		return candidate.isPrimitive() || ClassUtils.isVisible(candidate,
+				BeanProperties.class.getClassLoader());
+	}
+
+	private static final class Setter {
+
+		private final Class<?> type;
+
+		private final BiConsumer<Object, Object> accessor;
+
+		private Setter(Class<?> type, BiConsumer<Object, Object> accessor) {
+			this.type = type;
+			this.accessor = accessor;
+		}
+
+	}
+
+}
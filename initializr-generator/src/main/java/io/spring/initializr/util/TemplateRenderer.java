@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2017 the original author or authors.
+ * Copyright 2012-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,27 @@
 
 package io.spring.initializr.util;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.samskivert.mustache.Mustache;
 import com.samskivert.mustache.Mustache.Compiler;
@@ -34,20 +50,64 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
+ * Render mustache templates.
+ * <p>
+ * Partials located in the {@value #FRAGMENT_PREFIX} directory are cacheable fragments:
+ * when caching is enabled, the output of such a fragment is cached, keyed by the values
+ * of the model entries it reads, and spliced in the output of the templates that
+ * include it. A fragment is only rendered again if one of these values differs. A
+ * fragment is always rendered against the model of the template, so it should not be
+ * included in a section. Fragments reading a model entry that is not a simple value
+ * (such as a collection) are rendered each time.
+ *
  * @author Dave Syer
  */
 public class TemplateRenderer {
 
 	private static final Logger log = LoggerFactory.getLogger(TemplateRenderer.class);
 
+	/**
+	 * The location of cacheable fragments, relative to the templates.
+	 */
+	public static final String FRAGMENT_PREFIX = "fragments/";
+
+	private static final String FRAGMENT_KEY_PREFIX = "@";
+
+	private static final int MAX_FRAGMENT_ENTRIES = 256;
+
+	private static final int MAX_ENCODING_BUFFER_SIZE = 64 * 1024;
+
+	private static final ThreadLocal<EncodingBuffer> encodingBuffers =
+			ThreadLocal.withInitial(EncodingBuffer::new);
+
 	private boolean cache = true;
 
 	private final Compiler mustache;
+
+	private final Compiler fragmentMustache;
+
 	private final ConcurrentMap<String, Template> templateCaches =
 			new ConcurrentReferenceHashMap<>();
 
+	private final ConcurrentMap<String, Template> fragmentTemplateCaches =
+			new ConcurrentReferenceHashMap<>();
+
+	private final ConcurrentMap<String, FragmentCache> fragmentCaches =
+			new ConcurrentHashMap<>();
+
+	private final LongAdder fragmentHits = new LongAdder();
+
+	private final LongAdder fragmentMisses = new LongAdder();
+
 	public TemplateRenderer(Compiler mustache) {
 		this.mustache = mustache;
+		TemplateLoader loader = mustache.loader;
+		this.fragmentMustache = mustache.withLoader(name -> {
+			if (name.startsWith(FRAGMENT_PREFIX)) {
+				return new StringReader("{{{" + FRAGMENT_KEY_PREFIX + name + "}}}");
+			}
+			return loader.getTemplate(name);
+		});
 	}
 
 	public TemplateRenderer() {
@@ -63,9 +123,27 @@ public class TemplateRenderer {
 	}
 
 	public String process(String name, Map<String, ?> model) {
+		StringWriter out = new StringWriter();
+		process(name, model, out);
+		return out.toString();
+	}
+
+	/**
+	 * Render the template with the specified name to the specified {@link Writer}.
+	 * @param name the name of the template
+	 * @param model the model to use
+	 * @param out the writer to render to
+	 */
+	public void process(String name, Map<String, ?> model, Writer out) {
 		try {
-			Template template = getTemplate(name);
-			return template.execute(model);
+			if (cache) {
+				Template template = this.fragmentTemplateCaches.computeIfAbsent(name,
+						key -> loadTemplate(this.fragmentMustache, key));
+				template.execute(new FragmentContext(model), out);
+			}
+			else {
+				loadTemplate(name).execute(model, out);
+			}
 		}
 		catch (Exception e) {
 			log.error("Cannot render: " + name, e);
@@ -73,6 +151,40 @@ public class TemplateRenderer {
 		}
 	}
 
+	/**
+	 * Render the template with the specified name as UTF-8 bytes. The template is
+	 * encoded while it is rendered, using a buffer that is reused by the next renders
+	 * of the current thread. The buffer is discarded if the render fails as its writer
+	 * may still hold part of the output.
+	 * @param name the name of the template
+	 * @param model the model to use
+	 * @return the rendered template, encoded in UTF-8
+	 */
+	public byte[] processAsBytes(String name, Map<String, ?> model) {
+		EncodingBuffer buffer = encodingBuffers.get();
+		if (buffer.inUse) {
+			buffer = new EncodingBuffer();
+		}
+		buffer.inUse = true;
+		boolean rendered = false;
+		try {
+			process(name, model, buffer.writer);
+			buffer.writer.flush();
+			rendered = true;
+			return buffer.toByteArray();
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Cannot render template", ex);
+		}
+		finally {
+			buffer.inUse = false;
+			buffer.reset();
+			if (!rendered || buffer.capacity() > MAX_ENCODING_BUFFER_SIZE) {
+				encodingBuffers.remove();
+			}
+		}
+	}
+
 	public Template getTemplate(String name) {
 		if (cache) {
 			return this.templateCaches.computeIfAbsent(name, this::loadTemplate);
@@ -81,16 +193,47 @@ public class TemplateRenderer {
 	}
 
 	protected Template loadTemplate(String name) {
+		return loadTemplate(this.mustache, name);
+	}
+
+	private Template loadTemplate(Compiler compiler, String name) {
 		try {
 			Reader template;
-			template = mustache.loader.getTemplate(name);
-			return mustache.compile(template);
+			template = compiler.loader.getTemplate(name);
+			return compiler.compile(template);
 		}
 		catch (Exception e) {
 			throw new IllegalStateException("Cannot load template " + name, e);
 		}
 	}
 
+	/**
+	 * Remove the rendered fragments from the cache.
+	 */
+	public void clearFragments() {
+		this.fragmentCaches.clear();
+	}
+
+	/**
+	 * Return the number of fragments that were served from the cache.
+	 */
+	public long getFragmentHitCount() {
+		return this.fragmentHits.sum();
+	}
+
+	/**
+	 * Return the number of fragments that had to be rendered.
+	 */
+	public long getFragmentMissCount() {
+		return this.fragmentMisses.sum();
+	}
+
+	private String renderFragment(String name, Map<String, ?> model) {
+		FragmentCache fragmentCache = this.fragmentCaches.computeIfAbsent(name,
+				key -> new FragmentCache(getTemplate(key)));
+		return fragmentCache.render(model);
+	}
+
 	private static Compiler mustacheCompiler() {
 		return Mustache.compiler().withLoader(mustacheTemplateLoader());
 	}
@@ -103,4 +246,222 @@ public class TemplateRenderer {
 				resourceLoader.getResource(prefix + name).getInputStream(), charset);
 	}
 
+	/**
+	 * A reusable buffer holding the UTF-8 encoded output of a template.
+	 */
+	private static final class EncodingBuffer extends ByteArrayOutputStream {
+
+		private final Writer writer = new OutputStreamWriter(this,
+				StandardCharsets.UTF_8);
+
+		private boolean inUse;
+
+		EncodingBuffer() {
+			super(8192);
+		}
+
+		int capacity() {
+			return this.buf.length;
+		}
+
+	}
+
+	/**
+	 * The model of a template whose cacheable fragments are rendered on demand.
+	 */
+	private final class FragmentContext extends AbstractMap<String, Object> {
+
+		private final Map<String, ?> model;
+
+		FragmentContext(Map<String, ?> model) {
+			this.model = model;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return isFragment(key) || this.model.containsKey(key);
+		}
+
+		@Override
+		public Object get(Object key) {
+			if (isFragment(key)) {
+				return renderFragment(((String) key).substring(
+						FRAGMENT_KEY_PREFIX.length()), this.model);
+			}
+			return this.model.get(key);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return ((Map<String, Object>) this.model).entrySet();
+		}
+
+		private boolean isFragment(Object key) {
+			return (key instanceof String
+					&& ((String) key).startsWith(FRAGMENT_KEY_PREFIX + FRAGMENT_PREFIX));
+		}
+
+	}
+
+	/**
+	 * The rendered outputs of a fragment, keyed by the values of the model entries that
+	 * the fragment reads. As the entries that are read may depend on the model (i.e.
+	 * sections), the key is made of all the entries read so far by any render.
+	 */
+	private final class FragmentCache {
+
+		private final Template template;
+
+		private volatile Entries entries = new Entries(Collections.emptyList());
+
+		FragmentCache(Template template) {
+			this.template = template;
+		}
+
+		String render(Map<String, ?> model) {
+			Entries current = this.entries;
+			List<Object> key = current.createKey(model);
+			String output = (key != null ? current.get(key) : null);
+			if (output != null) {
+				fragmentHits.increment();
+				return output;
+			}
+			fragmentMisses.increment();
+			RecordingContext context = new RecordingContext(model);
+			output = this.template.execute(context);
+			if (context.cacheable) {
+				cache(context.keys, model, output);
+			}
+			return output;
+		}
+
+		private synchronized void cache(Set<String> keys, Map<String, ?> model,
+				String output) {
+			Entries target = this.entries;
+			if (!target.keys.containsAll(keys)) {
+				Set<String> union = new TreeSet<>(target.keys);
+				union.addAll(keys);
+				target = new Entries(new ArrayList<>(union));
+				this.entries = target;
+			}
+			List<Object> key = target.createKey(model);
+			if (key != null) {
+				target.put(key, output);
+			}
+		}
+
+	}
+
+	/**
+	 * The entries a fragment reads and its outputs per values of those entries. A
+	 * limited number of outputs is kept, the least recently used ones being evicted
+	 * first.
+	 */
+	private static final class Entries {
+
+		private static final Object ABSENT = new Object();
+
+		private final List<String> keys;
+
+		private final Map<List<Object>, String> outputs =
+				new LinkedHashMap<List<Object>, String>(16, 0.75f, true) {
+
+					@Override
+					protected boolean removeEldestEntry(
+							Map.Entry<List<Object>, String> eldest) {
+						return size() > MAX_FRAGMENT_ENTRIES;
+					}
+
+				};
+
+		Entries(List<String> keys) {
+			this.keys = keys;
+		}
+
+		String get(List<Object> key) {
+			synchronized (this.outputs) {
+				return this.outputs.get(key);
+			}
+		}
+
+		void put(List<Object> key, String output) {
+			synchronized (this.outputs) {
+				this.outputs.putIfAbsent(key, output);
+			}
+		}
+
+		/**
+		 * Return the key of the specified model or {@code null} if one of the entries is
+		 * not a simple value.
+		 */
+		List<Object> createKey(Map<String, ?> model) {
+			List<Object> key = new ArrayList<>(this.keys.size());
+			for (String name : this.keys) {
+				Object value = (model.containsKey(name) ? model.get(name) : ABSENT);
+				if (value != ABSENT && !isSimpleValue(value)) {
+					return null;
+				}
+				key.add(value);
+			}
+			return key;
+		}
+
+	}
+
+	/**
+	 * A view of a model that records the entries that are read.
+	 */
+	private static final class RecordingContext extends AbstractMap<String, Object> {
+
+		private final Map<String, ?> model;
+
+		private final Set<String> keys = new TreeSet<>();
+
+		private boolean cacheable = true;
+
+		RecordingContext(Map<String, ?> model) {
+			this.model = model;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			boolean present = this.model.containsKey(key);
+			if (!present) {
+				record(key, null);
+			}
+			return present;
+		}
+
+		@Override
+		public Object get(Object key) {
+			Object value = this.model.get(key);
+			record(key, value);
+			return value;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			this.cacheable = false;
+			return ((Map<String, Object>) this.model).entrySet();
+		}
+
+		private void record(Object key, Object value) {
+			if (key instanceof String) {
+				this.keys.add((String) key);
+			}
+			if (!isSimpleValue(value)) {
+				this.cacheable = false;
+			}
+		}
+
+	}
+
+	private static boolean isSimpleValue(Object value) {
+		return (value == null || value instanceof String || value instanceof Boolean
+				|| value instanceof Number || value instanceof Character
+				|| value instanceof Enum);
+	}
+
 }
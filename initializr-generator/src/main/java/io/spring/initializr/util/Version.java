@@ -143,6 +143,35 @@ public final class Version implements Serializable, Comparable<Version> {
 		return firstIndex.compareTo(secondIndex);
 	}
 
+	/**
+	 * Encode this version as a positive {@code long} whose natural ordering is
+	 * consistent with {@link #compareTo(Version)}. Return {@code -1} if this version
+	 * cannot be encoded, either because it uses an unknown qualifier or because one of
+	 * its components is out of range.
+	 * @return the encoded version or {@code -1}
+	 */
+	long encode() {
+		int qualifierIndex = (this.qualifier != null
+				? VersionQualifierComparator.getQualifierIndex(this.qualifier.qualifier)
+				: VersionQualifierComparator.KNOWN_QUALIFIERS.size() - 1);
+		int qualifierVersion = (this.qualifier != null
+				&& this.qualifier.version != null ? this.qualifier.version : 0);
+		long major = encode(this.major, 0x7FFF);
+		long minor = encode(this.minor, 0xFFFF);
+		long patch = encode(this.patch, 0xFFFF);
+		if (qualifierIndex == -1 || major == -1 || minor == -1 || patch == -1
+				|| qualifierVersion < 0 || qualifierVersion > 0x3FFF) {
+			return -1;
+		}
+		return (major << 48) | (minor << 32) | (patch << 16)
+				| ((long) qualifierIndex << 14) | qualifierVersion;
+	}
+
+	private static long encode(Integer component, int max) {
+		int value = (component != null ? component : 0);
+		return (value >= 0 && value <= max ? value : -1);
+	}
+
 	public static class Qualifier implements Serializable {
 
 		public Qualifier(String qualifier) {
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.util;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import org.springframework.util.Assert;
+
+/**
+ * Index an ordered list of {@link VersionRange ranges} to locate the first one matching
+ * a given {@link Version} with a binary search rather than by invoking
+ * {@link VersionRange#match(Version)} on each range in turn.
+ * <p>
+ * The bounds of all ranges are encoded as sorted {@code long} boundaries: the first
+ * matching range of each boundary, and of each interval between two consecutive
+ * boundaries, is computed upfront. Versions that cannot be encoded, such as versions
+ * using a custom qualifier, are resolved with a linear scan.
+ *
+ * @author Stephane Nicoll
+ */
+public final class VersionRangeIndex {
+
+	private final VersionRange[] ranges;
+
+	private final long[] boundaries;
+
+	private final int[] points;
+
+	private final int[] intervals;
+
+	private VersionRangeIndex(VersionRange[] ranges) {
+		this.ranges = ranges;
+		this.boundaries = encodeBoundaries(ranges);
+		if (this.boundaries != null) {
+			this.points = new int[this.boundaries.length];
+			this.intervals = new int[this.boundaries.length + 1];
+			Arrays.fill(this.points, -1);
+			Arrays.fill(this.intervals, -1);
+			// Last range first so that the first matching range wins
+			for (int i = ranges.length - 1; i >= 0; i--) {
+				index(i);
+			}
+		}
+		else {
+			this.points = null;
+			this.intervals = null;
+		}
+	}
+
+	/**
+	 * Create an index for the specified ranges.
+	 * @param ranges the ranges to index
+	 * @return an index of these ranges
+	 */
+	public static VersionRangeIndex of(List<VersionRange> ranges) {
+		return new VersionRangeIndex(ranges.toArray(new VersionRange[0]));
+	}
+
+	/**
+	 * Create an index for the ranges of the specified elements.
+	 * @param elements the elements to index
+	 * @param range the function extracting the range of an element
+	 * @param <T> the type of the elements
+	 * @return an index of the ranges of these elements
+	 */
+	public static <T> VersionRangeIndex of(List<T> elements,
+			Function<T, VersionRange> range) {
+		VersionRange[] ranges = new VersionRange[elements.size()];
+		for (int i = 0; i < ranges.length; i++) {
+			ranges[i] = range.apply(elements.get(i));
+		}
+		return new VersionRangeIndex(ranges);
+	}
+
+	private static long[] encodeBoundaries(VersionRange[] ranges) {
+		long[] boundaries = new long[ranges.length * 2];
+		int size = 0;
+		for (VersionRange range : ranges) {
+			if (range == null || range.lowerVersion == null) {
+				return null;
+			}
+			long lower = range.lowerVersion.encode();
+			if (lower == -1) {
+				return null;
+			}
+			boundaries[size++] = lower;
+			if (range.higherVersion != null) {
+				long higher = range.higherVersion.encode();
+				if (higher == -1) {
+					return null;
+				}
+				boundaries[size++] = higher;
+			}
+		}
+		Arrays.sort(boundaries, 0, size);
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || boundaries[distinct - 1] != boundaries[i]) {
+				boundaries[distinct++] = boundaries[i];
+			}
+		}
+		return Arrays.copyOf(boundaries, distinct);
+	}
+
+	private void index(int rangeIndex) {
+		VersionRange range = this.ranges[rangeIndex];
+		int lower = Arrays.binarySearch(this.boundaries, range.lowerVersion.encode());
+		int higher = (range.higherVersion != null
+				? Arrays.binarySearch(this.boundaries, range.higherVersion.encode())
+				: this.boundaries.length);
+		// Interval i is strictly between boundaries i - 1 and i
+		for (int i = lower + 1; i <= Math.min(higher, this.boundaries.length); i++) {
+			this.intervals[i] = rangeIndex;
+		}
+		for (int i = lower; i < Math.min(higher + 1, this.boundaries.length); i++) {
+			boolean lowerMatch = (i > lower || range.lowerInclusive);
+			boolean higherMatch = (i < higher || range.higherInclusive);
+			if (lowerMatch && higherMatch) {
+				this.points[i] = rangeIndex;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of ranges in this index.
+	 * @return the number of ranges
+	 */
+	public int size() {
+		return this.ranges.length;
+	}
+
+	/**
+	 * Return the index of the first range that matches the specified {@link Version},
+	 * or {@code -1} if no range matches.
+	 * @param version the version to match
+	 * @return the index of the first matching range or {@code -1}
+	 * @see VersionRange#match(Version)
+	 */
+	public int indexOf(Version version) {
+		Assert.notNull(version, "Version must not be null");
+		if (this.boundaries != null) {
+			long key = version.encode();
+			if (key != -1) {
+				int i = Arrays.binarySearch(this.boundaries, key);
+				return (i >= 0 ? this.points[i] : this.intervals[-i - 1]);
+			}
+		}
+		for (int i = 0; i < this.ranges.length; i++) {
+			if (this.ranges[i].match(version)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import io.spring.initializr.metadata.InitializrConfiguration.Env.Kotlin;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BootVersionProfile}.
+ *
+ * @author Stephane Nicoll
+ */
+public class BootVersionProfileTests {
+
+	private final InitializrMetadata metadata = InitializrMetadataTestBuilder
+			.withDefaults().build();
+
+	@Test
+	public void bootOneOne() {
+		BootVersionProfile profile = resolve("1.1.9.RELEASE");
+		assertThat(profile.isRelease()).isTrue();
+		assertThat(profile.isSpringBootApplication()).isFalse();
+		assertThat(profile.isBootOneThreeAvailable()).isFalse();
+		assertThat(profile.getSpringBootPluginName()).isEqualTo("spring-boot");
+		assertThat(profile.isNewTestInfrastructure()).isFalse();
+		assertThat(profile.getServletInitializrClass()).isEqualTo(
+				"org.springframework.boot.context.web.SpringBootServletInitializer");
+		assertThat(profile.getGradleWrapperFamily()).isEqualTo("gradle");
+	}
+
+	@Test
+	public void bootOneFive() {
+		BootVersionProfile profile = resolve("1.5.10.BUILD-SNAPSHOT");
+		assertThat(profile.isRelease()).isFalse();
+		assertThat(profile.isSpringBootApplication()).isTrue();
+		assertThat(profile.isBootOneThreeAvailable()).isTrue();
+		assertThat(profile.isBootTwoZeroAvailable()).isFalse();
+		assertThat(profile.getSpringBootPluginName())
+				.isEqualTo("org.springframework.boot");
+		assertThat(profile.isNewTestInfrastructure()).isTrue();
+		assertThat(profile.getServletInitializrClass()).isEqualTo(
+				"org.springframework.boot.web.support.SpringBootServletInitializer");
+		assertThat(profile.getGradleWrapperFamily()).isEqualTo("gradle3");
+		assertThat(profile.isKotlinSupport()).isFalse();
+	}
+
+	@Test
+	public void bootTwoZero() {
+		BootVersionProfile profile = resolve("2.0.0.RELEASE");
+		assertThat(profile.isBootTwoZeroAvailable()).isTrue();
+		assertThat(profile.getServletInitializrClass()).isEqualTo(
+				"org.springframework.boot.web.servlet.support.SpringBootServletInitializer");
+		assertThat(profile.getGradleWrapperFamily()).isEqualTo("gradle4");
+		assertThat(profile.isKotlinSupport()).isTrue();
+	}
+
+	@Test
+	public void kotlinVersionIsResolvedAgainstMetadata() {
+		Kotlin.Mapping mapping = new Kotlin.Mapping();
+		mapping.setVersionRange("[1.5.0.RELEASE,2.0.0.M1)");
+		mapping.setVersion("1.0.5");
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.setKotlinEnv("1.1.1", mapping).build();
+		assertThat(BootVersionProfile.resolve("1.5.3.RELEASE", metadata)
+				.getKotlinVersion()).isEqualTo("1.0.5");
+		assertThat(BootVersionProfile.resolve("2.0.0.RELEASE", metadata)
+				.getKotlinVersion()).isEqualTo("1.1.1");
+	}
+
+	@Test
+	public void parentPomIsResolvedAgainstMetadata() {
+		assertThat(resolve("2.0.0.RELEASE").getParentPom().getVersion())
+				.isEqualTo("2.0.0.RELEASE");
+	}
+
+	private BootVersionProfile resolve(String bootVersion) {
+		return BootVersionProfile.resolve(bootVersion, this.metadata);
+	}
+
+}
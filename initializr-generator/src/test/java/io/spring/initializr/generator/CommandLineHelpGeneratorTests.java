@@ -124,6 +124,7 @@ public class CommandLineHelpGeneratorTests {
 		assertThat(content, not(containsString("| dependencies")));
 		assertThat(content, not(containsString("| applicationName")));
 		assertThat(content, not(containsString("| baseDir")));
+		assertThat(content, not(containsString("| compression")));
 	}
 
 	@Test
@@ -150,6 +151,7 @@ public class CommandLineHelpGeneratorTests {
 		assertThat(content, containsString("| dependencies"));
 		assertThat(content, containsString("| applicationName"));
 		assertThat(content, containsString("| baseDir"));
+		assertThat(content, containsString("| compression"));
 		assertThat(content, not(containsString("| Tags")));
 	}
 
@@ -16,7 +16,6 @@
 
 package io.spring.initializr.generator;
 
-import java.io.File;
 import java.util.Map;
 
 import io.spring.initializr.test.generator.ProjectAssert;
@@ -82,15 +81,15 @@ public class CustomProjectGeneratorTests extends AbstractProjectGeneratorTests {
 		private Runnable customFileGenerated = mock(Runnable.class);
 
 		@Override
-		protected File generateProjectStructure(ProjectRequest request,
+		protected ProjectStructure generateProject(ProjectRequest request,
 				Map<String, Object> model) {
 			model.put("customValue", 42);
-			File dir = super.generateProjectStructure(request, model);
+			ProjectStructure structure = super.generateProject(request, model);
 			if ("maven".equals(request.getBuild())) {
-				write(new File(dir, "custom.txt"), "custom.txt", model);
+				write(structure, "custom.txt", "custom.txt", model);
 				customFileGenerated.run();
 			}
-			return dir;
+			return structure;
 		}
 	}
 
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+import io.spring.initializr.test.generator.ProjectAssert;
+import org.junit.Test;
+
+import org.springframework.core.io.ClassPathResource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for custom {@link ProjectGenerator} overriding the extension points that work
+ * with files.
+ *
+ * @author Stephane Nicoll
+ */
+public class LegacyCustomProjectGeneratorTests extends AbstractProjectGeneratorTests {
+
+	public LegacyCustomProjectGeneratorTests() {
+		super(new LegacyProjectGenerator());
+	}
+
+	@Test
+	public void generateCustomResource() {
+		ProjectRequest request = createProjectRequest();
+		request.setType("maven-project");
+		request.setGroupId("com.example.custom");
+		ProjectAssert project = generateProject(request);
+		project.sourceCodeAssert("custom.txt")
+				.equalsTo(new ClassPathResource("project/custom/custom.txt"));
+		project.sourceCodeAssert(".gitignore").contains("custom-ignore");
+	}
+
+	@Test
+	public void generateProjectInvokesCustomizations() {
+		ProjectRequest request = createProjectRequest();
+		request.setType("maven-project");
+		request.setBaseDir("demo");
+		ProjectStructure structure = projectGenerator.generateProject(request);
+		assertThat(structure.getEntry("demo/pom.xml")).isNotNull();
+		assertThat(structure.getEntry("demo/custom.txt")).isNotNull();
+		assertThat(structure.getEntry("demo/mvnw").isExecutable()).isTrue();
+		assertThat(new String(structure.getEntry("demo/.gitignore").getContent(),
+				StandardCharsets.UTF_8)).isEqualTo("custom-ignore");
+		assertThat(projectGenerator.getTemporarySpace().getProjectCount()).isEqualTo(0);
+		verifyProjectSuccessfulEventFor(request);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static class LegacyProjectGenerator extends ProjectGenerator {
+
+		@Override
+		protected File generateProjectStructure(ProjectRequest request,
+				Map<String, Object> model) {
+			model.put("customValue", 42);
+			File dir = super.generateProjectStructure(request, model);
+			File projectDir = (request.getBaseDir() != null
+					? new File(dir, request.getBaseDir()) : dir);
+			write(new File(projectDir, "custom.txt"), "custom.txt", model);
+			return dir;
+		}
+
+		@Override
+		protected void generateGitIgnore(File dir, ProjectRequest request) {
+			try {
+				Files.write(new File(dir, ".gitignore").toPath(),
+						"custom-ignore".getBytes(StandardCharsets.UTF_8));
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException(ex);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import org.springframework.util.DigestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProjectDelta}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectDeltaTests {
+
+	@Test
+	public void identicalProjects() {
+		ProjectDelta delta = ProjectDelta.between(createProject("web"),
+				createProject("web"));
+		assertThat(delta.isEmpty()).isTrue();
+		assertThat(delta.getChanges().getEntries()).isEmpty();
+	}
+
+	@Test
+	public void modifiedFile() {
+		ProjectDelta delta = ProjectDelta.between(createProject("web"),
+				createProject("jpa"));
+		assertThat(delta.getAdded()).isEmpty();
+		assertThat(delta.getModified()).containsExactly("pom.xml");
+		assertThat(delta.getRemoved()).isEmpty();
+		assertThat(delta.getHash("pom.xml")).isEqualTo(DigestUtils
+				.md5DigestAsHex("<project>jpa</project>".getBytes(StandardCharsets.UTF_8)));
+		assertThat(new String(delta.getChanges().getEntry("pom.xml").getContent(),
+				StandardCharsets.UTF_8)).isEqualTo("<project>jpa</project>");
+	}
+
+	@Test
+	public void addedAndRemovedEntries() {
+		ProjectStructure from = createProject("web");
+		ProjectStructure to = createProject("web");
+		to.remove("src/main/resources/static");
+		to.addDirectory("src/main/resources/templates");
+		to.addFile("build.gradle", "dependencies {}".getBytes(StandardCharsets.UTF_8));
+		ProjectDelta delta = ProjectDelta.between(from, to);
+		assertThat(delta.getAdded()).containsExactly("src/main/resources/templates",
+				"build.gradle");
+		assertThat(delta.getRemoved()).containsExactly("src/main/resources/static");
+		assertThat(delta.getHash("src/main/resources/templates")).isNull();
+		assertThat(delta.getHash("build.gradle")).isNotNull();
+		assertThat(delta.getChanges().getEntry("src/main/resources/templates")
+				.isDirectory()).isTrue();
+	}
+
+	@Test
+	public void sameResourceIsNotRendered() {
+		ProjectStructure from = new ProjectStructure();
+		from.addResource("mvnw", "classpath:mvnw", () -> {
+			throw new IllegalStateException("Should not be rendered");
+		}, true);
+		ProjectStructure to = new ProjectStructure();
+		to.addResource("mvnw", "classpath:mvnw", () -> {
+			throw new IllegalStateException("Should not be rendered");
+		}, true);
+		assertThat(ProjectDelta.between(from, to).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void executableFlagChange() {
+		byte[] content = "#!/bin/sh".getBytes(StandardCharsets.UTF_8);
+		ProjectStructure from = new ProjectStructure();
+		from.addFile("run.sh", () -> content, false);
+		ProjectStructure to = new ProjectStructure();
+		to.addFile("run.sh", () -> content, true);
+		ProjectDelta delta = ProjectDelta.between(from, to);
+		assertThat(delta.getModified()).containsExactly("run.sh");
+		assertThat(delta.getChanges().getEntry("run.sh").isExecutable()).isTrue();
+	}
+
+	private static ProjectStructure createProject(String dependency) {
+		ProjectStructure structure = new ProjectStructure();
+		structure.addFile("pom.xml", ("<project>" + dependency + "</project>")
+				.getBytes(StandardCharsets.UTF_8));
+		structure.addResource("mvnw", "classpath:mvnw",
+				() -> "#!/bin/sh".getBytes(StandardCharsets.UTF_8), true);
+		structure.addDirectory("src/main/resources/static");
+		return structure;
+	}
+
+}
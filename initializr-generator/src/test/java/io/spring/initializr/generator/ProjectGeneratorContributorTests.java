@@ -0,0 +1,244 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProjectGenerator} with {@link ProjectContributor contributors}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectGeneratorContributorTests extends AbstractProjectGeneratorTests {
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void contributionIsAdded() {
+		projectGenerator.setContributors(Collections.singletonList(
+				new TestContributor(null, "Dockerfile")));
+		ProjectRequest request = createProjectRequest("web");
+		request.setBaseDir("demo");
+		ProjectStructure structure = projectGenerator.generateProject(request);
+		assertThat(new String(structure.getEntry("demo/Dockerfile").getContent(),
+				StandardCharsets.UTF_8)).isEqualTo("Dockerfile for demo");
+	}
+
+	@Test
+	public void contributionIsCachedPerInputs() {
+		TestContributor contributor = new TestContributor(
+				Collections.singleton("build"), "ci.yml");
+		projectGenerator.setContributors(Collections.singletonList(contributor));
+		generateProject("maven-project", "first");
+		generateProject("maven-project", "second");
+		assertThat(contributor.invocations.get()).isEqualTo(1);
+		generateProject("gradle-project", "third");
+		assertThat(contributor.invocations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void contributionIsCachedOnceTheCacheIsFull() {
+		TestContributor contributor = new TestContributor(
+				Collections.singleton("artifactId"), "ci.yml");
+		projectGenerator.setContributors(Collections.singletonList(contributor));
+		for (int i = 0; i < 600; i++) {
+			generateProject("maven-project", "demo" + i);
+		}
+		assertThat(contributor.invocations.get()).isEqualTo(600);
+		generateProject("maven-project", "another");
+		generateProject("maven-project", "another");
+		assertThat(contributor.invocations.get()).isEqualTo(601);
+		generateProject("maven-project", "demo0");
+		assertThat(contributor.invocations.get()).isEqualTo(602);
+	}
+
+	@Test
+	public void contributionWithoutInputsIsNotCached() {
+		TestContributor contributor = new TestContributor(null, "ci.yml");
+		projectGenerator.setContributors(Collections.singletonList(contributor));
+		generateProject("maven-project", "first");
+		generateProject("maven-project", "first");
+		assertThat(contributor.invocations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void contributionIsNotCachedWhenCachingIsDisabled() {
+		TestContributor contributor = new TestContributor(
+				Collections.singleton("build"), "ci.yml");
+		projectGenerator.setContributors(Collections.singletonList(contributor));
+		projectGenerator.setCacheContributions(false);
+		generateProject("maven-project", "first");
+		generateProject("maven-project", "first");
+		assertThat(contributor.invocations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void contributorCannotModifyModel() {
+		projectGenerator.setContributors(Collections.singletonList(
+				new TestContributor(null, "ci.yml") {
+
+					@Override
+					public ProjectStructure contribute(ProjectRequest request,
+							Map<String, Object> model) {
+						model.put("artifactId", "changed");
+						return super.contribute(request, model);
+					}
+
+				}));
+		this.thrown.expect(UnsupportedOperationException.class);
+		generateProject("maven-project", "demo");
+	}
+
+	@Test
+	public void metadataUpdateClearsContributions() {
+		TestContributor contributor = new TestContributor(
+				Collections.singleton("build"), "ci.yml");
+		projectGenerator.setContributors(Collections.singletonList(contributor));
+		generateProject("maven-project", "first");
+		projectGenerator.onMetadataUpdated(null);
+		generateProject("maven-project", "first");
+		assertThat(contributor.invocations.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void contributorsAreInvokedInParallel() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(2);
+		BiFunction<ProjectRequest, String, String> awaitOther = (request, path) -> {
+			latch.countDown();
+			try {
+				assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return path;
+		};
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			projectGenerator.setContributorExecutor(executor);
+			projectGenerator.setContributors(Arrays.asList(
+					new TestContributor(null, "Dockerfile", awaitOther),
+					new TestContributor(null, "ci.yml", awaitOther)));
+			ProjectStructure structure = generateProject("maven-project", "demo");
+			assertThat(structure.getEntry("Dockerfile")).isNotNull();
+			assertThat(structure.getEntry("ci.yml")).isNotNull();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void contributorFailureIsPropagated() {
+		projectGenerator.setContributors(Collections.singletonList(
+				new TestContributor(null, "ci.yml", (request, path) -> {
+					throw new InvalidProjectRequestException("Invalid CI setup");
+				})));
+		this.thrown.expect(InvalidProjectRequestException.class);
+		this.thrown.expectMessage("Invalid CI setup");
+		generateProject("maven-project", "demo");
+	}
+
+	@Test
+	public void overlappingOutputsAreRejected() {
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("both write to docker/");
+		projectGenerator.setContributors(Arrays.asList(
+				new TestContributor(null, "docker/"),
+				new TestContributor(null, "docker/Dockerfile")));
+	}
+
+	@Test
+	public void undeclaredPathIsRejected() {
+		projectGenerator.setContributors(Collections.singletonList(
+				new TestContributor(null, "ci.yml", (request, path) -> "Dockerfile")));
+		this.thrown.expect(IllegalStateException.class);
+		this.thrown.expectMessage("Dockerfile");
+		generateProject("maven-project", "demo");
+	}
+
+	private ProjectStructure generateProject(String type, String artifactId) {
+		ProjectRequest request = createProjectRequest("web");
+		request.setType(type);
+		request.setArtifactId(artifactId);
+		return projectGenerator.generateProject(request);
+	}
+
+	private static class TestContributor implements ProjectContributor {
+
+		private final Set<String> inputs;
+
+		private final Set<String> outputs;
+
+		private final BiFunction<ProjectRequest, String, String> path;
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		TestContributor(Set<String> inputs, String output) {
+			this(inputs, output, (request, path) -> path);
+		}
+
+		TestContributor(Set<String> inputs, String output,
+				BiFunction<ProjectRequest, String, String> path) {
+			this.inputs = inputs;
+			this.outputs = new HashSet<>(Collections.singleton(output));
+			this.path = path;
+		}
+
+		@Override
+		public Set<String> getInputs() {
+			return this.inputs;
+		}
+
+		@Override
+		public Set<String> getOutputs() {
+			return this.outputs;
+		}
+
+		@Override
+		public ProjectStructure contribute(ProjectRequest request,
+				Map<String, Object> model) {
+			this.invocations.incrementAndGet();
+			String output = this.outputs.iterator().next();
+			ProjectStructure structure = new ProjectStructure();
+			structure.addFile(this.path.apply(request, output),
+					(output + " for " + model.get("artifactId"))
+							.getBytes(StandardCharsets.UTF_8));
+			return structure;
+		}
+
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import io.spring.initializr.util.TemplateRenderer;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProjectGenerator} rendering build files with cached fragments.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectGeneratorFragmentCacheTests extends AbstractProjectGeneratorTests {
+
+	private static final String[] BOOT_VERSIONS = { "1.1.2.RELEASE", "1.3.0.BUILD-SNAPSHOT",
+			"1.4.3.RELEASE", "1.5.9.RELEASE", "2.0.0.M7", "2.0.1.RELEASE" };
+
+	private static final String[] LANGUAGES = { "java", "groovy", "kotlin" };
+
+	private static final String[] PACKAGINGS = { "jar", "war" };
+
+	private static final String[] JAVA_VERSIONS = { "1.7", "1.8" };
+
+	private static final String[][] DEPENDENCIES = { {}, { "web", "data-jpa" } };
+
+	private final TemplateRenderer cachedRenderer = new TemplateRenderer();
+
+	private final TemplateRenderer uncachedRenderer = createUncachedRenderer();
+
+	@Test
+	public void mavenPomMatchesUncachedRender() {
+		assertSameRenderForAllRequests("maven-build",
+				projectGenerator::generateMavenPom);
+	}
+
+	@Test
+	public void gradleBuildMatchesUncachedRender() {
+		assertSameRenderForAllRequests("gradle-build",
+				projectGenerator::generateGradleBuild);
+	}
+
+	@Test
+	public void metadataUpdateClearsFragments() {
+		projectGenerator.setTemplateRenderer(this.cachedRenderer);
+		ProjectRequest request = createProjectRequest("web");
+		projectGenerator.generateMavenPom(request);
+		long misses = this.cachedRenderer.getFragmentMissCount();
+		projectGenerator.generateMavenPom(request);
+		assertThat(this.cachedRenderer.getFragmentMissCount()).isEqualTo(misses);
+		projectGenerator.onMetadataUpdated(null);
+		projectGenerator.generateMavenPom(request);
+		assertThat(this.cachedRenderer.getFragmentMissCount()).isGreaterThan(misses);
+	}
+
+	private void assertSameRenderForAllRequests(String type,
+			Function<ProjectRequest, byte[]> generator) {
+		int count = 0;
+		for (String bootVersion : BOOT_VERSIONS) {
+			for (String language : LANGUAGES) {
+				for (String packaging : PACKAGINGS) {
+					for (String javaVersion : JAVA_VERSIONS) {
+						for (String[] dependencies : DEPENDENCIES) {
+							assertSameRender(() -> {
+								ProjectRequest request = createProjectRequest(
+										dependencies);
+								request.setType(type);
+								request.setBootVersion(bootVersion);
+								request.setLanguage(language);
+								request.setPackaging(packaging);
+								request.setJavaVersion(javaVersion);
+								return request;
+							}, generator);
+							count++;
+						}
+					}
+				}
+			}
+		}
+		assertThat(this.cachedRenderer.getFragmentHitCount()).isGreaterThan(count);
+	}
+
+	private void assertSameRender(Supplier<ProjectRequest> request,
+			Function<ProjectRequest, byte[]> generator) {
+		projectGenerator.setTemplateRenderer(this.uncachedRenderer);
+		String expected = new String(generator.apply(request.get()));
+		projectGenerator.setTemplateRenderer(this.cachedRenderer);
+		for (int i = 0; i < 2; i++) {
+			ProjectRequest cachedRequest = request.get();
+			assertThat(new String(generator.apply(cachedRequest)))
+					.describedAs("Render of %s", cachedRequest).isEqualTo(expected);
+		}
+	}
+
+	private static TemplateRenderer createUncachedRenderer() {
+		TemplateRenderer renderer = new TemplateRenderer();
+		renderer.setCache(false);
+		return renderer;
+	}
+
+}
@@ -16,11 +16,16 @@
 
 package io.spring.initializr.generator;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import io.spring.initializr.metadata.BillOfMaterials;
 import io.spring.initializr.metadata.Dependency;
 import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
 import io.spring.initializr.test.generator.ProjectAssert;
 import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
 import io.spring.initializr.util.VersionProperty;
@@ -36,6 +41,7 @@ import org.springframework.core.io.ClassPathResource;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.verifyZeroInteractions;
 
 /**
  * Tests for {@link ProjectGenerator}
@@ -82,6 +88,68 @@ public class ProjectGeneratorTests extends AbstractProjectGeneratorTests {
 		verifyProjectSuccessfulEventFor(request);
 	}
 
+	@Test
+	public void defaultProjectStructure() {
+		ProjectRequest request = createProjectRequest("web");
+		ProjectStructure structure = projectGenerator.generateProject(request);
+		Map<String, Boolean> files = new LinkedHashMap<>();
+		List<String> directories = new ArrayList<>();
+		structure.getEntries().forEach(entry -> {
+			if (entry.isDirectory()) {
+				directories.add(entry.getPath());
+			}
+			else {
+				files.put(entry.getPath(), entry.isExecutable());
+			}
+		});
+		assertThat(files).containsEntry("pom.xml", false)
+				.containsEntry("mvnw", true).containsEntry("mvnw.cmd", false)
+				.containsEntry(".mvn/wrapper/maven-wrapper.jar", false)
+				.containsKeys(".gitignore", "src/main/resources/application.properties",
+						"src/main/java/com/example/demo/DemoApplication.java",
+						"src/test/java/com/example/demo/DemoApplicationTests.java");
+		assertThat(directories).contains("src/main/resources/templates",
+				"src/main/resources/static");
+		assertThat(new String(structure.getEntry("pom.xml").getContent()))
+				.contains("spring-boot-starter-web");
+		assertThat(structure.getEntry("pom.xml").getLocation()).isNull();
+		assertThat(structure.getEntry("mvnw").getLocation())
+				.isEqualTo("classpath:project/maven/mvnw");
+		verifyProjectSuccessfulEventFor(request);
+	}
+
+	@Test
+	public void projectStructureSharesSkeleton() {
+		ProjectStructure first = projectGenerator
+				.generateProject(createProjectRequest("web"));
+		ProjectRequest request = createProjectRequest("data-jpa");
+		request.setBaseDir("test");
+		ProjectStructure second = projectGenerator.generateProject(request);
+		assertThat(first.getEntry(".mvn/wrapper/maven-wrapper.jar").getContent())
+				.isSameAs(second.getEntry("test/.mvn/wrapper/maven-wrapper.jar")
+						.getContent());
+		assertThat(first.getEntry(".gitignore").getContent())
+				.isSameAs(second.getEntry("test/.gitignore").getContent());
+	}
+
+	@Test
+	public void gradleSkeletonDependsOnWrapperFamily() {
+		ProjectRequest request = createProjectRequest("web");
+		request.setType("gradle-project");
+		request.setBootVersion("1.5.0.RELEASE");
+		ProjectStructure gradle3 = projectGenerator.generateProject(request);
+		request = createProjectRequest("web");
+		request.setType("gradle-project");
+		request.setBootVersion("2.0.0.RELEASE");
+		ProjectStructure gradle4 = projectGenerator.generateProject(request);
+		assertThat(gradle3.getEntry("gradlew").getLocation())
+				.isEqualTo("classpath:project/gradle3/gradlew");
+		assertThat(gradle4.getEntry("gradlew").getLocation())
+				.isEqualTo("classpath:project/gradle4/gradlew");
+		assertThat(new String(gradle4.getEntry(".gitignore").getContent()))
+				.contains(".gradle").doesNotContain("/target/");
+	}
+
 	@Test
 	public void noDependencyAddsRootStarter() {
 		ProjectRequest request = createProjectRequest();
@@ -855,6 +923,78 @@ public class ProjectGeneratorTests extends AbstractProjectGeneratorTests {
 						"compile('org.acme:first:1.2.3')");
 	}
 
+	@Test
+	public void dependenciesAreSortedWithinEachScope() {
+		Dependency runtimeOne = Dependency.withId("runtime-one", "org.acme", "first",
+				"1.2.3", Dependency.SCOPE_RUNTIME);
+		Dependency runtimeTwo = Dependency.withId("runtime-two", "com.example",
+				"second", "1.2.3", Dependency.SCOPE_RUNTIME);
+		Dependency compile = Dependency.withId("compile", "org.acme", "third", "1.2.3");
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("core", "web")
+				.addDependencyGroup("sample", runtimeOne, runtimeTwo, compile).build();
+		applyMetadata(metadata);
+		ProjectRequest request = createProjectRequest("runtime-one", "compile",
+				"runtime-two", "web");
+		assertThat(generateGradleBuild(request).getGradleBuild())
+				.containsSubsequence(
+						"compile('org.springframework.boot:spring-boot-starter-web')",
+						"compile('org.acme:third:1.2.3')",
+						"runtime('com.example:second:1.2.3')",
+						"runtime('org.acme:first:1.2.3')");
+	}
+
+	@Test
+	public void bootVersionProfileIsCachedForKnownVersions() {
+		ProjectRequest request = createProjectRequest("web");
+		request.setBootVersion("1.2.3.RELEASE");
+		BootVersionProfile profile = projectGenerator.getBootVersionProfile(request);
+		assertThat(profile.getBootVersion()).isEqualTo("1.2.3.RELEASE");
+		assertThat(projectGenerator.getBootVersionProfile(request)).isSameAs(profile);
+		projectGenerator.onMetadataUpdated(
+				new InitializrMetadataUpdatedEvent(projectGenerator
+						.getMetadataProvider().get()));
+		assertThat(projectGenerator.getBootVersionProfile(request))
+				.isNotSameAs(profile);
+	}
+
+	@Test
+	public void bootVersionProfileIsResolvedAgainstTheSpecifiedMetadata() {
+		ProjectRequest request = createProjectRequest("web");
+		request.setBootVersion("1.2.3.RELEASE");
+		InitializrMetadata first = InitializrMetadataTestBuilder.withDefaults()
+				.setKotlinEnv("1.2.0").build();
+		InitializrMetadata second = InitializrMetadataTestBuilder.withDefaults()
+				.setKotlinEnv("1.2.1").build();
+		BootVersionProfile profile = projectGenerator.getBootVersionProfile(request,
+				first);
+		assertThat(profile.getKotlinVersion()).isEqualTo("1.2.0");
+		assertThat(projectGenerator.getBootVersionProfile(request, second)
+				.getKotlinVersion()).isEqualTo("1.2.1");
+		assertThat(projectGenerator.getBootVersionProfile(request, first))
+				.isSameAs(profile);
+	}
+
+	@Test
+	public void bootVersionProfileIsNotCachedForUnknownVersions() {
+		ProjectRequest request = createProjectRequest("web");
+		request.setBootVersion("1.5.99.RELEASE");
+		BootVersionProfile profile = projectGenerator.getBootVersionProfile(request);
+		assertThat(profile.isNewTestInfrastructure()).isTrue();
+		assertThat(projectGenerator.getBootVersionProfile(request))
+				.isNotSameAs(profile);
+	}
+
+	@Test
+	public void resolveRequestDoesNotGenerateProject() {
+		ProjectRequest request = createProjectRequest("web");
+		projectGenerator.resolveRequest(request,
+				projectGenerator.getMetadataProvider().get());
+		assertThat(request.getResolvedDependencies()).hasSize(1);
+		assertThat(request.getBuild()).isEqualTo("maven");
+		verifyZeroInteractions(eventPublisher);
+	}
+
 	@Test
 	public void invalidProjectTypeMavenPom() {
 		ProjectRequest request = createProjectRequest("web");
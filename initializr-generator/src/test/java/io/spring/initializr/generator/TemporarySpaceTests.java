@@ -0,0 +1,159 @@
+/*
+ * Copyright 2012-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TemporarySpace}.
+ *
+ * @author Stephane Nicoll
+ */
+public class TemporarySpaceTests {
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void releaseRemovesProjectFiles() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		File dir = space.createProjectDirectory();
+		Files.write(new File(dir, "pom.xml").toPath(), new byte[10]);
+		File archive = space.createFile(dir, ".zip");
+		Files.write(archive.toPath(), new byte[5]);
+		space.updateSize(dir);
+		assertThat(space.getProjectCount()).isEqualTo(1);
+		assertThat(space.getUsedBytes()).isEqualTo(15);
+		space.release(dir);
+		assertThat(dir).doesNotExist();
+		assertThat(archive).doesNotExist();
+		assertThat(space.getProjectCount()).isEqualTo(0);
+		assertThat(space.getUsedBytes()).isEqualTo(0);
+	}
+
+	@Test
+	public void trackedFilesAreReleasedWithTheirProject() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		File dir = new File(space.getDirectory(), "legacy");
+		File archive = new File(space.getDirectory(), "legacy.zip");
+		Files.createDirectories(dir.toPath());
+		Files.write(archive.toPath(), new byte[5]);
+		space.track(dir, Collections.singletonList(archive));
+		assertThat(space.getProjectCount()).isEqualTo(1);
+		space.release(dir);
+		assertThat(dir).doesNotExist();
+		assertThat(archive).doesNotExist();
+	}
+
+	@Test
+	public void releaseUnknownProject() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		space.release(new File(space.getDirectory(), "unknown"));
+		assertThat(space.getProjectCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void reapOrphanProjects() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		File dir = space.createProjectDirectory();
+		File leftOver = new File(space.getDirectory(), "tmp1234.zip");
+		Files.write(leftOver.toPath(), new byte[5]);
+		leftOver.setLastModified(System.currentTimeMillis() - 120_000);
+		assertThat(space.reap(Duration.ofMinutes(1))).isEqualTo(1);
+		assertThat(leftOver).doesNotExist();
+		assertThat(dir).exists();
+		assertThat(space.reap(Duration.ofMillis(-1))).isEqualTo(1);
+		assertThat(dir).doesNotExist();
+		assertThat(space.getProjectCount()).isEqualTo(0);
+		assertThat(space.getReapedCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void reapSkipsProjectsInUse() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		File dir = space.createProjectDirectory();
+		File archive = space.createFile(dir, ".zip");
+		Files.write(archive.toPath(), new byte[5]);
+		space.markInUse(dir);
+		assertThat(space.reap(Duration.ofMillis(-1))).isEqualTo(0);
+		assertThat(dir).exists();
+		assertThat(archive).exists();
+		space.release(dir);
+		assertThat(dir).doesNotExist();
+		assertThat(archive).doesNotExist();
+	}
+
+	@Test
+	public void reaperIsScheduledWhenStarted() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder());
+		space.setReaperSchedule(Duration.ofHours(1), Duration.ofHours(1));
+		assertThat(space.isRunning()).isFalse();
+		space.start();
+		assertThat(space.isRunning()).isTrue();
+		space.stop();
+		assertThat(space.isRunning()).isFalse();
+	}
+
+	@Test
+	public void quotaExceeded() throws IOException {
+		TemporarySpace space = new TemporarySpace(folder.newFolder(), 10,
+				Duration.ofMillis(50));
+		File dir = space.createProjectDirectory();
+		Files.write(new File(dir, "pom.xml").toPath(), new byte[10]);
+		space.updateSize(dir);
+		thrown.expect(TemporarySpaceExceededException.class);
+		space.createProjectDirectory();
+	}
+
+	@Test
+	public void quotaReleasedWhileWaiting() throws Exception {
+		TemporarySpace space = new TemporarySpace(folder.newFolder(), 10,
+				Duration.ofSeconds(10));
+		File dir = space.createProjectDirectory();
+		Files.write(new File(dir, "pom.xml").toPath(), new byte[10]);
+		space.updateSize(dir);
+		Thread thread = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			space.release(dir);
+		});
+		thread.start();
+		File another = space.createProjectDirectory();
+		thread.join();
+		assertThat(another).exists();
+		assertThat(space.getProjectCount()).isEqualTo(1);
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.metadata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import io.spring.initializr.util.Version;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CompatibilityIndex}.
+ *
+ * @author Stephane Nicoll
+ */
+public class CompatibilityIndexTests {
+
+	@Test
+	public void compatibleDependencies() {
+		Dependency first = Dependency.withId("first", "org.foo", "first");
+		first.setVersionRange("1.2.0.RELEASE");
+		Dependency second = Dependency.withId("second", "org.foo", "second");
+		second.setVersionRange("[1.1.0.RELEASE, 1.2.0.RELEASE)");
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", first, second).build();
+		CompatibilityIndex.BootVersion index = metadata.getCompatibilityIndex()
+				.get(Version.parse("1.2.3.RELEASE"));
+		assertThat(index.isCompatible("first")).isTrue();
+		assertThat(index.isCompatible("second")).isFalse();
+		assertThat(index.isCompatible("unknown")).isFalse();
+		assertThat(index.getDependency("second")).isSameAs(second);
+		assertThat(index.getDependencyMetadata().getDependencies())
+				.containsOnlyKeys("first");
+	}
+
+	@Test
+	public void resolvedDependencies() {
+		Dependency first = Dependency.withId("first", "org.foo", "first");
+		first.getMappings().add(Dependency.Mapping.create(
+				"[1.0.0.RELEASE, 1.2.0.RELEASE)", "org.bar", "second", "0.1.0.RELEASE"));
+		first.getMappings().add(Dependency.Mapping.create("1.2.0.RELEASE", "org.biz",
+				"third", "0.2.0.RELEASE"));
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", first).build();
+		CompatibilityIndex index = metadata.getCompatibilityIndex();
+		Dependency old = index.get(Version.parse("1.1.2.RELEASE")).getDependency("first");
+		assertThat(old.getGroupId()).isEqualTo("org.bar");
+		assertThat(old.getVersion()).isEqualTo("0.1.0.RELEASE");
+		Dependency current = index.get(Version.parse("1.2.3.RELEASE"))
+				.getDependency("first");
+		assertThat(current.getGroupId()).isEqualTo("org.biz");
+		assertThat(current.getVersion()).isEqualTo("0.2.0.RELEASE");
+	}
+
+	@Test
+	public void dependencyAliases() {
+		Dependency first = Dependency.withId("first", "org.foo", "first");
+		first.setAliases(Collections.singletonList("alias"));
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", first).build();
+		CompatibilityIndex.BootVersion index = metadata.getCompatibilityIndex()
+				.get(Version.parse("1.2.3.RELEASE"));
+		assertThat(index.getDependency("alias")).isSameAs(first);
+		assertThat(index.isCompatible("alias")).isTrue();
+		assertThat(index.getDependencyMetadata().getDependencies())
+				.containsOnlyKeys("first");
+	}
+
+	@Test
+	public void otherVersionsAreResolvedWithoutBeingIndexed() {
+		Dependency first = Dependency.withId("first", "org.foo", "first");
+		first.setVersionRange("9.0.0.RELEASE");
+		first.getMappings().add(Dependency.Mapping.create("9.1.0.RELEASE", null, null,
+				"2.0.0"));
+		Dependency second = Dependency.withId("second", "org.foo", "second");
+		second.setVersionRange("[1.0.0.RELEASE, 2.0.0.RELEASE)");
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", first, second).build();
+		CompatibilityIndex index = metadata.getCompatibilityIndex();
+		Version version = Version.parse("9.1.2.RELEASE");
+		CompatibilityIndex.BootVersion versionIndex = index.get(version);
+		assertThat(index.get(version)).isNotSameAs(versionIndex);
+		assertThat(versionIndex.isCompatible("first")).isTrue();
+		assertThat(versionIndex.isCompatible("second")).isFalse();
+		assertThat(versionIndex.getDependency("first").getVersion()).isEqualTo("2.0.0");
+		assertThat(versionIndex.getDependencyMetadata().getDependencies())
+				.containsOnlyKeys("first");
+	}
+
+	@Test
+	public void resolvedBomsIncludeAdditionalBoms() {
+		BillOfMaterials bom = BillOfMaterials.create("org.foo", "foo-bom");
+		bom.getMappings().add(BillOfMaterials.Mapping.create(
+				"[1.0.0.RELEASE, 1.2.0.RELEASE)", "1.0.0"));
+		BillOfMaterials.Mapping mapping = BillOfMaterials.Mapping.create("1.2.0.RELEASE",
+				"2.0.0");
+		mapping.getAdditionalBoms().add("bar-bom");
+		bom.getMappings().add(mapping);
+		Dependency first = Dependency.withId("first", "org.foo", "first");
+		first.setBom("foo-bom");
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addBom("foo-bom", bom)
+				.addBom("bar-bom", "org.bar", "bar-bom", "3.0.0")
+				.addDependencyGroup("test", first).build();
+		CompatibilityIndex.BootVersion index = metadata.getCompatibilityIndex()
+				.get(Version.parse("1.2.3.RELEASE"));
+		assertThat(index.getBom("foo-bom").getVersion()).isEqualTo("2.0.0");
+		assertThat(index.getBom("foo-bom").getAdditionalBoms()).containsExactly("bar-bom");
+		assertThat(index.getBom("bar-bom").getVersion()).isEqualTo("3.0.0");
+		assertThat(index.getDependencyMetadata().getBoms()).containsOnlyKeys("foo-bom");
+		assertThat(metadata.getCompatibilityIndex().get(Version.parse("1.1.2.RELEASE"))
+				.getBom("foo-bom").getVersion()).isEqualTo("1.0.0");
+	}
+
+	@Test
+	public void bootVersionsAreIndexedOnce() {
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", "first").build();
+		CompatibilityIndex index = metadata.getCompatibilityIndex();
+		assertThat(index.get(Version.parse("1.2.3.RELEASE")))
+				.isSameAs(index.get(Version.parse("1.2.3.RELEASE")));
+	}
+
+	@Test
+	public void indexIsDiscardedWhenBootVersionsAreUpdated() {
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("test", "first").build();
+		CompatibilityIndex index = metadata.getCompatibilityIndex();
+		assertThat(metadata.getCompatibilityIndex()).isSameAs(index);
+		metadata.updateSpringBootVersions(new ArrayList<>(
+				metadata.getBootVersions().getContent().subList(0, 1)));
+		assertThat(metadata.getCompatibilityIndex()).isNotSameAs(index);
+	}
+
+}
@@ -31,6 +31,7 @@ import org.springframework.core.io.Resource;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 
 /**
  * Tests for {@link InitializrMetadataBuilder}.
@@ -198,6 +199,39 @@ public class InitializrMetadataBuilderTests {
 		assertEquals(group, metadata.getDependencies().getContent().get(0));
 	}
 
+	@Test
+	public void copyMetadata() {
+		InitializrProperties bean = load(
+				new ClassPathResource("application-test-default.yml"));
+		InitializrMetadata original = InitializrMetadataBuilder
+				.fromInitializrProperties(bean).build();
+		InitializrMetadata metadata = InitializrMetadataBuilder.create()
+				.withInitializrMetadata(original).build();
+		assertDefaultConfig(metadata);
+		assertEquals(original.getConfiguration().getEnv().getBoms().keySet(),
+				metadata.getConfiguration().getEnv().getBoms().keySet());
+		assertEquals(original.getBootVersions().getDefault().getId(),
+				metadata.getBootVersions().getDefault().getId());
+		assertNotSame(original.getDependencies().get("web"),
+				metadata.getDependencies().get("web"));
+		assertNotSame(original.getConfiguration().getEnv().getBoms().get("my-api-bom"),
+				metadata.getConfiguration().getEnv().getBoms().get("my-api-bom"));
+	}
+
+	@Test
+	public void copyMetadataIsIndependent() {
+		InitializrProperties bean = load(
+				new ClassPathResource("application-test-default.yml"));
+		InitializrMetadata original = InitializrMetadataBuilder
+				.fromInitializrProperties(bean).build();
+		InitializrMetadata metadata = InitializrMetadataBuilder.create()
+				.withInitializrMetadata(original).build();
+		metadata.getBootVersions().getContent().clear();
+		metadata.getDependencies().get("web").setName("Changed");
+		assertEquals(3, original.getBootVersions().getContent().size());
+		assertEquals("Web", original.getDependencies().get("web").getName());
+	}
+
 	private static void assertDefaultConfig(InitializrMetadata metadata) {
 		assertNotNull(metadata);
 		assertEquals("Wrong number of dependencies", 9,
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.util;
+
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link BeanProperties}.
+ *
+ * @author Stephane Nicoll
+ */
+public class BeanPropertiesTests {
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void copyToMatchesBeanWrapper() {
+		InitializrMetadata metadata = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("core", "web", "security").build();
+		ProjectRequest request = new ProjectRequest();
+		request.initialize(metadata);
+		request.getStyle().add("web");
+		request.resolve(metadata);
+		assertThat(copy(request)).isEqualTo(copyWithBeanWrapper(request));
+		assertThat(copy(metadata)).isEqualTo(copyWithBeanWrapper(metadata));
+	}
+
+	@Test
+	public void primitiveProperty() {
+		BeanProperties<TestBean> properties = BeanProperties.of(TestBean.class);
+		TestBean bean = new TestBean();
+		properties.set(bean, "enabled", true);
+		assertThat(bean.isEnabled()).isTrue();
+		assertThat(properties.get(bean, "enabled")).isEqualTo(true);
+	}
+
+	@Test
+	public void isWritableChecksValueType() {
+		BeanProperties<TestBean> properties = BeanProperties.of(TestBean.class);
+		assertThat(properties.isWritable("name", "test")).isTrue();
+		assertThat(properties.isWritable("name", null)).isTrue();
+		assertThat(properties.isWritable("name", 42)).isFalse();
+		assertThat(properties.isWritable("enabled", null)).isFalse();
+		assertThat(properties.isWritable("readOnly", "test")).isFalse();
+		assertThat(properties.isWritable("class", TestBean.class)).isFalse();
+	}
+
+	@Test
+	public void readOnlyProperty() {
+		BeanProperties<TestBean> properties = BeanProperties.of(TestBean.class);
+		assertThat(properties.getReadableProperties())
+				.containsOnly("enabled", "name", "readOnly");
+		assertThat(properties.get(new TestBean(), "readOnly")).isEqualTo("read-only");
+	}
+
+	@Test
+	public void setUnknownProperty() {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("unknown");
+		BeanProperties.of(TestBean.class).set(new TestBean(), "unknown", "test");
+	}
+
+	@Test
+	public void introspectionIsCached() {
+		assertThat(BeanProperties.of(TestBean.class))
+				.isSameAs(BeanProperties.forInstance(new TestBean()));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void typeFromChildClassLoader() throws Exception {
+		ClassLoader classLoader = new ChildFirstClassLoader(TestBean.class,
+				getClass().getClassLoader());
+		Class<Object> type = (Class<Object>) classLoader
+				.loadClass(TestBean.class.getName());
+		assertThat(type).isNotSameAs(TestBean.class);
+		BeanProperties<Object> properties = BeanProperties.of(type);
+		Object bean = type.newInstance();
+		properties.set(bean, "name", "test");
+		properties.set(bean, "enabled", true);
+		assertThat(properties.get(bean, "name")).isEqualTo("test");
+		assertThat(properties.get(bean, "enabled")).isEqualTo(true);
+	}
+
+	private static Map<String, Object> copy(Object bean) {
+		Map<String, Object> model = new LinkedHashMap<>();
+		BeanProperties.forInstance(bean).copyTo(bean, model);
+		return model;
+	}
+
+	private static Map<String, Object> copyWithBeanWrapper(Object bean) {
+		Map<String, Object> model = new LinkedHashMap<>();
+		BeanWrapperImpl wrapper = new BeanWrapperImpl(bean);
+		for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
+			String name = descriptor.getName();
+			if (!"class".equals(name) && wrapper.isReadableProperty(name)) {
+				model.put(name, wrapper.getPropertyValue(name));
+			}
+		}
+		return model;
+	}
+
+	/**
+	 * A {@link ClassLoader} that defines its own copy of a given type.
+	 */
+	private static class ChildFirstClassLoader extends ClassLoader {
+
+		private final Class<?> type;
+
+		ChildFirstClassLoader(Class<?> type, ClassLoader parent) {
+			super(parent);
+			this.type = type;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve)
+				throws ClassNotFoundException {
+			if (!name.equals(this.type.getName())) {
+				return super.loadClass(name, resolve);
+			}
+			synchronized (getClassLoadingLock(name)) {
+				Class<?> loaded = findLoadedClass(name);
+				if (loaded == null) {
+					String resource = name.replace('.', '/') + ".class";
+					try (InputStream in = getParent().getResourceAsStream(resource)) {
+						byte[] bytes = StreamUtils.copyToByteArray(in);
+						loaded = defineClass(name, bytes, 0, bytes.length);
+					}
+					catch (IOException ex) {
+						throw new ClassNotFoundException(name, ex);
+					}
+				}
+				return loaded;
+			}
+		}
+
+	}
+
+	public static class TestBean {
+
+		private String name;
+
+		private boolean enabled;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getReadOnly() {
+			return "read-only";
+		}
+
+	}
+
+}
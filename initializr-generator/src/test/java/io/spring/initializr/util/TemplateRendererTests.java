@@ -0,0 +1,174 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.util;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.samskivert.mustache.Mustache;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TemplateRenderer}.
+ *
+ * @author Stephane Nicoll
+ */
+public class TemplateRendererTests {
+
+	private final Map<String, String> templates = new HashMap<>();
+
+	private final TemplateRenderer renderer = new TemplateRenderer(Mustache.compiler()
+			.withLoader(name -> new StringReader(this.templates.get(name))));
+
+	@Test
+	public void fragmentIsRenderedOncePerValues() {
+		this.templates.put("test", "{{name}}: {{>fragments/parent}}");
+		this.templates.put("fragments/parent", "{{#release}}{{version}}{{/release}}");
+		assertThat(this.renderer.process("test", model("one", "1.0", true)))
+				.isEqualTo("one: 1.0");
+		assertThat(this.renderer.process("test", model("two", "1.0", true)))
+				.isEqualTo("two: 1.0");
+		assertThat(this.renderer.process("test", model("three", "2.0", true)))
+				.isEqualTo("three: 2.0");
+		assertThat(this.renderer.getFragmentHitCount()).isEqualTo(1);
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void fragmentKeyIncludesEntriesOfAllBranches() {
+		this.templates.put("test", "{{>fragments/parent}}");
+		this.templates.put("fragments/parent",
+				"{{#release}}{{version}}{{/release}}{{^release}}snapshot{{/release}}");
+		assertThat(this.renderer.process("test", model("one", "1.0", false)))
+				.isEqualTo("snapshot");
+		assertThat(this.renderer.process("test", model("one", "1.0", true)))
+				.isEqualTo("1.0");
+		assertThat(this.renderer.process("test", model("one", "2.0", true)))
+				.isEqualTo("2.0");
+		assertThat(this.renderer.process("test", model("one", "3.0", false)))
+				.isEqualTo("snapshot");
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(4);
+	}
+
+	@Test
+	public void fragmentEvictsLeastRecentlyUsedOutputs() {
+		this.templates.put("test", "{{>fragments/parent}}");
+		this.templates.put("fragments/parent", "{{version}}");
+		for (int i = 0; i < 300; i++) {
+			this.renderer.process("test", model("one", "1." + i, true));
+		}
+		this.renderer.process("test", model("one", "2.0", true));
+		this.renderer.process("test", model("one", "2.0", true));
+		assertThat(this.renderer.getFragmentHitCount()).isEqualTo(1);
+		this.renderer.process("test", model("one", "1.0", true));
+		assertThat(this.renderer.getFragmentHitCount()).isEqualTo(1);
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(302);
+	}
+
+	@Test
+	public void fragmentReadingCollectionIsNotCached() {
+		this.templates.put("test", "{{>fragments/items}}");
+		this.templates.put("fragments/items", "{{#items}}{{.}}{{/items}}");
+		Map<String, Object> model = new LinkedHashMap<>();
+		model.put("items", Arrays.asList("a", "b"));
+		assertThat(this.renderer.process("test", model)).isEqualTo("ab");
+		model.put("items", Arrays.asList("c"));
+		assertThat(this.renderer.process("test", model)).isEqualTo("c");
+		assertThat(this.renderer.getFragmentHitCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void regularPartialIsNotCached() {
+		this.templates.put("test", "{{>partial}}");
+		this.templates.put("partial", "{{name}}");
+		assertThat(this.renderer.process("test", model("one", "1.0", true)))
+				.isEqualTo("one");
+		assertThat(this.renderer.process("test", model("two", "1.0", true)))
+				.isEqualTo("two");
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void fragmentIsNotCachedWhenCacheIsDisabled() {
+		this.renderer.setCache(false);
+		this.templates.put("test", "{{>fragments/parent}}");
+		this.templates.put("fragments/parent", "{{version}}");
+		assertThat(this.renderer.process("test", model("one", "1.0", true)))
+				.isEqualTo("1.0");
+		assertThat(this.renderer.process("test", model("one", "1.0", true)))
+				.isEqualTo("1.0");
+		assertThat(this.renderer.getFragmentHitCount()).isEqualTo(0);
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void clearFragments() {
+		this.templates.put("test", "{{>fragments/parent}}");
+		this.templates.put("fragments/parent", "{{version}}");
+		this.renderer.process("test", model("one", "1.0", true));
+		this.renderer.clearFragments();
+		this.renderer.process("test", model("one", "1.0", true));
+		assertThat(this.renderer.getFragmentMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	public void processToWriter() {
+		this.templates.put("test", "{{name}}: {{>fragments/parent}}");
+		this.templates.put("fragments/parent", "{{version}}");
+		StringWriter out = new StringWriter();
+		this.renderer.process("test", model("one", "1.0", true), out);
+		assertThat(out.toString()).isEqualTo("one: 1.0");
+	}
+
+	@Test
+	public void processAsBytesEncodesUtf8() {
+		this.templates.put("test", "{{name}}");
+		byte[] first = this.renderer.processAsBytes("test",
+				model("été", "1.0", true));
+		byte[] second = this.renderer.processAsBytes("test", model("a", "1.0", true));
+		assertThat(new String(first, StandardCharsets.UTF_8)).isEqualTo("été");
+		assertThat(new String(second, StandardCharsets.UTF_8)).isEqualTo("a");
+	}
+
+	@Test
+	public void processAsBytesDoesNotReusePartialOutputOfFailedRender() {
+		this.templates.put("failing", "{{name}} {{unknown}}");
+		this.templates.put("test", "{{name}}");
+		assertThatThrownBy(() -> this.renderer.processAsBytes("failing",
+				model("one", "1.0", true))).isInstanceOf(IllegalStateException.class);
+		byte[] content = this.renderer.processAsBytes("test", model("a", "1.0", true));
+		assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo("a");
+	}
+
+	private static Map<String, Object> model(String name, String version,
+			boolean release) {
+		Map<String, Object> model = new LinkedHashMap<>();
+		model.put("name", name);
+		model.put("version", version);
+		model.put("release", release);
+		return model;
+	}
+
+}
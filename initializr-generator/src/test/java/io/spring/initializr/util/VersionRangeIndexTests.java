@@ -0,0 +1,214 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link VersionRangeIndex}. Besides a few explicit cases, the index is
+ * checked against a linear scan of {@link VersionRange#match(Version)} for randomly
+ * generated ranges and versions.
+ *
+ * @author Stephane Nicoll
+ */
+public class VersionRangeIndexTests {
+
+	private static final int RUNS = 500;
+
+	private static final int VERSIONS_PER_RUN = 200;
+
+	private static final String[] QUALIFIERS = { null, "RELEASE", "M", "RC",
+			"BUILD-SNAPSHOT", "" };
+
+	private final VersionParser parser = VersionParser.DEFAULT;
+
+	@Test
+	public void emptyIndex() {
+		VersionRangeIndex index = VersionRangeIndex.of(new ArrayList<>());
+		assertThat(index.size()).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("1.5.0.RELEASE"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void firstMatchingRangeWins() {
+		VersionRangeIndex index = index("[1.0.0.RELEASE,2.0.0.M1)", "1.5.0.RELEASE",
+				"[2.0.0.M1,2.0.0.RELEASE]");
+		assertThat(index.size()).isEqualTo(3);
+		assertThat(index.indexOf(Version.parse("0.9.0.RELEASE"))).isEqualTo(-1);
+		assertThat(index.indexOf(Version.parse("1.0.0.RELEASE"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("1.5.10.RELEASE"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("2.0.0.M1"))).isEqualTo(1);
+		assertThat(index.indexOf(Version.parse("2.1.0.BUILD-SNAPSHOT"))).isEqualTo(1);
+	}
+
+	@Test
+	public void exclusiveBounds() {
+		VersionRangeIndex index = index("(1.0.0.RELEASE,1.2.0.RELEASE)");
+		assertThat(index.indexOf(Version.parse("1.0.0.RELEASE"))).isEqualTo(-1);
+		assertThat(index.indexOf(Version.parse("1.0.1.RELEASE"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("1.2.0.RC1"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("1.2.0.RELEASE"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void versionWithUnknownQualifier() {
+		VersionRangeIndex index = index("[1.0.0.RELEASE,2.0.0.M1)",
+				"[2.0.0.M1,2.0.0.RELEASE]");
+		assertThat(index.indexOf(Version.parse("1.5.0.BETA1"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("2.0.0.ALPHA"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("2.0.1.ALPHA"))).isEqualTo(-1);
+	}
+
+	@Test
+	public void rangeWithUnknownQualifier() {
+		VersionRangeIndex index = index("[1.0.0.ALPHA,2.0.0.M1)",
+				"[2.0.0.M1,2.0.0.RELEASE]");
+		assertThat(index.indexOf(Version.parse("1.0.0.BETA"))).isEqualTo(0);
+		assertThat(index.indexOf(Version.parse("2.0.0.RC2"))).isEqualTo(1);
+	}
+
+	@Test
+	public void encodeIsConsistentWithCompareTo() {
+		Random random = new Random(42);
+		for (int i = 0; i < RUNS * 10; i++) {
+			Version first = randomVersion(random);
+			Version second = randomVersion(random);
+			int expected = Integer.signum(first.compareTo(second));
+			assertThat(Long.signum(Long.compare(first.encode(), second.encode())))
+					.as("%s vs %s", first, second).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	public void encodeUnknownQualifier() {
+		assertThat(Version.parse("1.0.0.BETA1").encode()).isEqualTo(-1);
+		assertThat(new Version(1, 0, 0x10000, null).encode()).isEqualTo(-1);
+	}
+
+	@Test
+	public void agreesWithLinearScan() {
+		Random random = new Random(20180417);
+		for (int run = 0; run < RUNS; run++) {
+			agreesWithLinearScan(random, randomRanges(random));
+		}
+	}
+
+	@Test
+	public void agreesWithLinearScanWithUnknownQualifiers() {
+		Random random = new Random(7);
+		for (int run = 0; run < RUNS; run++) {
+			List<VersionRange> ranges = randomRanges(random);
+			if (random.nextInt(4) == 0) {
+				ranges.add(random.nextInt(ranges.size() + 1),
+						new VersionRange(customVersion(random)));
+			}
+			agreesWithLinearScan(random, ranges);
+		}
+	}
+
+	private void agreesWithLinearScan(Random random, List<VersionRange> ranges) {
+		VersionRangeIndex index = VersionRangeIndex.of(ranges);
+		for (int i = 0; i < VERSIONS_PER_RUN; i++) {
+			Version version = (random.nextInt(10) == 0 ? customVersion(random)
+					: randomVersion(random));
+			assertThat(index.indexOf(version)).as("%s in %s", version, ranges)
+					.isEqualTo(linearIndexOf(ranges, version));
+		}
+		for (VersionRange range : ranges) {
+			for (Version bound : Arrays.asList(range.lowerVersion,
+					range.higherVersion)) {
+				if (bound != null) {
+					assertThat(index.indexOf(bound)).as("%s in %s", bound, ranges)
+							.isEqualTo(linearIndexOf(ranges, bound));
+				}
+			}
+		}
+	}
+
+	private static int linearIndexOf(List<VersionRange> ranges, Version version) {
+		for (int i = 0; i < ranges.size(); i++) {
+			if (ranges.get(i).match(version)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static List<VersionRange> randomRanges(Random random) {
+		List<VersionRange> ranges = new ArrayList<>();
+		int size = 1 + random.nextInt(8);
+		for (int i = 0; i < size; i++) {
+			Version lower = randomVersion(random);
+			if (random.nextInt(4) == 0) {
+				ranges.add(new VersionRange(lower));
+			}
+			else {
+				Version higher = randomVersion(random);
+				if (random.nextInt(10) != 0 && lower.compareTo(higher) > 0) {
+					Version swap = lower;
+					lower = higher;
+					higher = swap;
+				}
+				ranges.add(new VersionRange(lower, random.nextBoolean(), higher,
+						random.nextBoolean()));
+			}
+		}
+		return ranges;
+	}
+
+	private static Version randomVersion(Random random) {
+		String qualifier = QUALIFIERS[random.nextInt(QUALIFIERS.length)];
+		Version.Qualifier versionQualifier = null;
+		if (qualifier != null) {
+			versionQualifier = new Version.Qualifier(qualifier);
+			if (random.nextBoolean()) {
+				versionQualifier.setVersion(random.nextInt(4));
+			}
+		}
+		return new Version(randomComponent(random), randomComponent(random),
+				randomComponent(random), versionQualifier);
+	}
+
+	private static Integer randomComponent(Random random) {
+		return (random.nextInt(8) == 0 ? null : random.nextInt(4));
+	}
+
+	private static Version customVersion(Random random) {
+		Version.Qualifier qualifier = new Version.Qualifier(
+				random.nextBoolean() ? "ALPHA" : "BETA");
+		qualifier.setVersion(random.nextInt(3));
+		return new Version(randomComponent(random), randomComponent(random),
+				randomComponent(random), qualifier);
+	}
+
+	private VersionRangeIndex index(String... ranges) {
+		List<VersionRange> result = new ArrayList<>();
+		for (String range : ranges) {
+			result.add(this.parser.parseRange(range));
+		}
+		return VersionRangeIndex.of(result);
+	}
+
+}
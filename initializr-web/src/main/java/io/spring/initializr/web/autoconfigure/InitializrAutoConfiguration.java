@@ -16,35 +16,50 @@
 
 package io.spring.initializr.web.autoconfigure;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
 import javax.cache.configuration.MutableConfiguration;
-import javax.cache.expiry.CreatedExpiryPolicy;
-import javax.cache.expiry.Duration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import io.spring.initializr.generator.ProjectGenerator;
 import io.spring.initializr.generator.ProjectRequestPostProcessor;
 import io.spring.initializr.generator.ProjectRequestResolver;
 import io.spring.initializr.generator.ProjectResourceLocator;
+import io.spring.initializr.generator.TemporarySpace;
 import io.spring.initializr.metadata.DependencyMetadataProvider;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataBuilder;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
 import io.spring.initializr.metadata.InitializrProperties;
 import io.spring.initializr.util.TemplateRenderer;
+import io.spring.initializr.web.project.GenerationProperties;
 import io.spring.initializr.web.project.MainController;
+import io.spring.initializr.web.project.ProjectArchiveCache;
+import io.spring.initializr.web.project.ProjectArchiveCacheMetrics;
+import io.spring.initializr.web.project.ProjectArchiveCoalescer;
+import io.spring.initializr.web.project.ProjectArchiveCoalescerMetrics;
+import io.spring.initializr.web.project.ProjectBatchController;
+import io.spring.initializr.web.project.ProjectDeltaController;
+import io.spring.initializr.web.project.ProjectFingerprinter;
+import io.spring.initializr.web.project.TemplateRendererMetrics;
+import io.spring.initializr.web.project.TemporarySpaceMetrics;
 import io.spring.initializr.web.support.DefaultDependencyMetadataProvider;
 import io.spring.initializr.web.support.DefaultInitializrMetadataProvider;
+import io.spring.initializr.web.support.InitializrMetadataProviderMetrics;
+import io.spring.initializr.web.support.MetadataProperties;
 import io.spring.initializr.web.ui.UiController;
 
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.client.RestTemplateAutoConfiguration;
@@ -68,7 +83,8 @@ import org.springframework.web.servlet.resource.ResourceUrlProvider;
  * @author Stephane Nicoll
  */
 @Configuration
-@EnableConfigurationProperties(InitializrProperties.class)
+@EnableConfigurationProperties({ InitializrProperties.class,
+		GenerationProperties.class, MetadataProperties.class })
 @AutoConfigureAfter({ CacheAutoConfiguration.class, JacksonAutoConfiguration.class,
 		RestTemplateAutoConfiguration.class })
 public class InitializrAutoConfiguration {
@@ -83,8 +99,24 @@ public class InitializrAutoConfiguration {
 
 	@Bean
 	@ConditionalOnMissingBean
-	public ProjectGenerator projectGenerator() {
-		return new ProjectGenerator();
+	public ProjectGenerator projectGenerator(Environment environment) {
+		ProjectGenerator projectGenerator = new ProjectGenerator();
+		projectGenerator.setCacheContributions(Binder.get(environment)
+				.bind("spring.mustache.cache", Boolean.class).orElse(true));
+		return projectGenerator;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public TemporarySpace temporarySpace(GenerationProperties generationProperties,
+			@Value("${TMPDIR:.}/initializr") String tmpdir) {
+		GenerationProperties.Temp temp = generationProperties.getTemp();
+		File directory = (temp.getDirectory() != null ? new File(temp.getDirectory())
+				: new File(tmpdir, "initializr"));
+		TemporarySpace temporarySpace = new TemporarySpace(directory, temp.getQuota(),
+				temp.getQuotaTimeout());
+		temporarySpace.setReaperSchedule(temp.getReaperInterval(), temp.getMaxAge());
+		return temporarySpace;
 	}
 
 	@Bean
@@ -112,12 +144,20 @@ public class InitializrAutoConfiguration {
 	@ConditionalOnMissingBean(InitializrMetadataProvider.class)
 	public InitializrMetadataProvider initializrMetadataProvider(
 			InitializrProperties properties,
+			MetadataProperties metadataProperties,
 			ObjectMapper objectMapper,
 			RestTemplateBuilder restTemplateBuilder) {
 		InitializrMetadata metadata = InitializrMetadataBuilder
 				.fromInitializrProperties(properties).build();
-		return new DefaultInitializrMetadataProvider(metadata,
-				objectMapper, restTemplateBuilder.build());
+		MetadataProperties.Refresh refresh = metadataProperties.getRefresh();
+		int timeout = (int) refresh.getTimeout().toMillis();
+		DefaultInitializrMetadataProvider provider = new DefaultInitializrMetadataProvider(
+				metadata, objectMapper, restTemplateBuilder.setConnectTimeout(timeout)
+						.setReadTimeout(timeout).build());
+		if (refresh.isEnabled()) {
+			provider.setRefreshSchedule(refresh.getInterval(), refresh.getBackoff());
+		}
+		return provider;
 	}
 
 	@Bean
@@ -130,7 +170,6 @@ public class InitializrAutoConfiguration {
 	@ConditionalOnWebApplication
 	static class InitializrWebConfiguration {
 
-
 		@Bean
 		public InitializrWebConfig initializrWebConfig() {
 			return new InitializrWebConfig();
@@ -143,9 +182,64 @@ public class InitializrAutoConfiguration {
 				TemplateRenderer templateRenderer,
 				ResourceUrlProvider resourceUrlProvider,
 				ProjectGenerator projectGenerator,
-				DependencyMetadataProvider dependencyMetadataProvider) {
-			return new MainController(metadataProvider, templateRenderer, resourceUrlProvider
-					, projectGenerator, dependencyMetadataProvider);
+				DependencyMetadataProvider dependencyMetadataProvider,
+				GenerationProperties generationProperties,
+				ObjectProvider<ProjectArchiveCache> archiveCache,
+				ObjectProvider<ProjectFingerprinter> fingerprinter,
+				ObjectProvider<ProjectArchiveCoalescer> archiveCoalescer) {
+			return new MainController(metadataProvider, templateRenderer,
+					resourceUrlProvider, projectGenerator, dependencyMetadataProvider,
+					generationProperties, archiveCache.getIfAvailable(),
+					fingerprinter.getIfAvailable(), archiveCoalescer.getIfAvailable());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ProjectFingerprinter projectFingerprinter(ObjectMapper objectMapper,
+				GenerationProperties generationProperties) {
+			return new ProjectFingerprinter(objectMapper,
+					generationProperties.getRequestHeaders());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ProjectBatchController initializrProjectBatchController(
+				InitializrMetadataProvider metadataProvider,
+				ResourceUrlProvider resourceUrlProvider,
+				ProjectGenerator projectGenerator,
+				GenerationProperties generationProperties) {
+			return new ProjectBatchController(metadataProvider, resourceUrlProvider,
+					projectGenerator, generationProperties);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ProjectDeltaController initializrProjectDeltaController(
+				InitializrMetadataProvider metadataProvider,
+				ResourceUrlProvider resourceUrlProvider,
+				ProjectGenerator projectGenerator,
+				GenerationProperties generationProperties) {
+			return new ProjectDeltaController(metadataProvider, resourceUrlProvider,
+					projectGenerator, generationProperties);
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		@ConditionalOnProperty(prefix = "initializr.generation.cache", name = "enabled")
+		public ProjectArchiveCache projectArchiveCache(
+				GenerationProperties generationProperties) {
+			return new ProjectArchiveCache(generationProperties.getCache().getMaxSize(),
+					generationProperties.getRequestHeaders());
+		}
+
+		@Bean
+		@ConditionalOnMissingBean
+		@ConditionalOnProperty(prefix = "initializr.generation.coalescing",
+				name = "enabled")
+		public ProjectArchiveCoalescer projectArchiveCoalescer(
+				GenerationProperties generationProperties) {
+			return new ProjectArchiveCoalescer(
+					generationProperties.getCoalescing().getTimeout());
 		}
 
 		@Bean
@@ -157,6 +251,70 @@ public class InitializrAutoConfiguration {
 
 	}
 
+	@Configuration
+	@ConditionalOnWebApplication
+	@ConditionalOnClass(MeterBinder.class)
+	@ConditionalOnProperty(prefix = "initializr.generation.cache", name = "enabled")
+	static class InitializrArchiveCacheMetricsConfiguration {
+
+		@Bean
+		public ProjectArchiveCacheMetrics projectArchiveCacheMetrics(
+				ProjectArchiveCache archiveCache) {
+			return new ProjectArchiveCacheMetrics(archiveCache);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnWebApplication
+	@ConditionalOnClass(MeterBinder.class)
+	@ConditionalOnProperty(prefix = "initializr.generation.coalescing", name = "enabled")
+	static class InitializrArchiveCoalescerMetricsConfiguration {
+
+		@Bean
+		public ProjectArchiveCoalescerMetrics projectArchiveCoalescerMetrics(
+				ProjectArchiveCoalescer archiveCoalescer) {
+			return new ProjectArchiveCoalescerMetrics(archiveCoalescer);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class InitializrMetadataProviderMetricsConfiguration {
+
+		@Bean
+		public InitializrMetadataProviderMetrics initializrMetadataProviderMetrics(
+				InitializrMetadataProvider metadataProvider) {
+			return new InitializrMetadataProviderMetrics(metadataProvider);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class InitializrTemporarySpaceMetricsConfiguration {
+
+		@Bean
+		public TemporarySpaceMetrics temporarySpaceMetrics(
+				TemporarySpace temporarySpace) {
+			return new TemporarySpaceMetrics(temporarySpace);
+		}
+
+	}
+
+	@Configuration
+	@ConditionalOnClass(MeterBinder.class)
+	static class InitializrTemplateRendererMetricsConfiguration {
+
+		@Bean
+		public TemplateRendererMetrics templateRendererMetrics(
+				TemplateRenderer templateRenderer) {
+			return new TemplateRendererMetrics(templateRenderer);
+		}
+
+	}
+
 	@Configuration
 	@ConditionalOnClass(javax.cache.CacheManager.class)
 	static class InitializrCacheConfiguration {
@@ -164,9 +322,6 @@ public class InitializrAutoConfiguration {
 		@Bean
 		public JCacheManagerCustomizer initializrCacheManagerCustomizer() {
 			return cm -> {
-				cm.createCache("initializr.metadata", config().setExpiryPolicyFactory(
-						CreatedExpiryPolicy.factoryOf(Duration.TEN_MINUTES)));
-				cm.createCache("initializr.dependency-metadata", config());
 				cm.createCache("initializr.project-resources", config());
 			};
 		}
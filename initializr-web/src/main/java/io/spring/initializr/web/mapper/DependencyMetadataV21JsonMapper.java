@@ -55,7 +55,7 @@ public class DependencyMetadataV21JsonMapper implements DependencyMetadataJsonMa
 		return json.toString();
 	}
 
-	private static JsonNode mapDependency(Dependency dep) {
+	static JsonNode mapDependency(Dependency dep) {
 		ObjectNode node = nodeFactory.objectNode();
 		node.put("groupId", dep.getGroupId());
 		node.put("artifactId", dep.getArtifactId());
@@ -72,7 +72,7 @@ public class DependencyMetadataV21JsonMapper implements DependencyMetadataJsonMa
 		return node;
 	}
 
-	private static JsonNode mapRepository(Repository repo) {
+	static JsonNode mapRepository(Repository repo) {
 		ObjectNode node = nodeFactory.objectNode();
 		node.put("name", repo.getName())
 				.put("url", (repo.getUrl() != null ? repo.getUrl().toString() : null))
@@ -80,7 +80,7 @@ public class DependencyMetadataV21JsonMapper implements DependencyMetadataJsonMa
 		return node;
 	}
 
-	private static JsonNode mapBom(BillOfMaterials bom) {
+	static JsonNode mapBom(BillOfMaterials bom) {
 		ObjectNode node = nodeFactory.objectNode();
 		node.put("groupId", bom.getGroupId());
 		node.put("artifactId", bom.getArtifactId());
@@ -51,6 +51,8 @@ public class InitializrMetadataV2JsonMapper implements InitializrMetadataJsonMap
 
 	private final TemplateVariables templateVariables;
 
+	private final TemplateVariables archiveTemplateVariables;
+
 	public InitializrMetadataV2JsonMapper() {
 		this.templateVariables = new TemplateVariables(
 				new TemplateVariable("dependencies",
@@ -74,6 +76,9 @@ public class InitializrMetadataV2JsonMapper implements InitializrMetadataJsonMap
 						TemplateVariable.VariableType.REQUEST_PARAM),
 				new TemplateVariable("packageName",
 						TemplateVariable.VariableType.REQUEST_PARAM));
+		this.archiveTemplateVariables = this.templateVariables.concat(
+				new TemplateVariable("compression",
+						TemplateVariable.VariableType.REQUEST_PARAM));
 	}
 
 	protected JsonNodeFactory nodeFactory() {
@@ -116,10 +121,16 @@ public class InitializrMetadataV2JsonMapper implements InitializrMetadataJsonMap
 	private String generateTemplatedUri(String appUrl, Type type) {
 		String uri = appUrl != null ? appUrl + type.getAction() : type.getAction();
 		uri = uri + "?type=" + type.getId();
-		UriTemplate uriTemplate = new UriTemplate(uri, this.templateVariables);
+		UriTemplate uriTemplate = new UriTemplate(uri, isArchive(type)
+				? this.archiveTemplateVariables : this.templateVariables);
 		return uriTemplate.toString();
 	}
 
+	private static boolean isArchive(Type type) {
+		String action = type.getAction();
+		return action != null && (action.endsWith(".zip") || action.endsWith(".tgz"));
+	}
+
 	protected void dependencies(ObjectNode parent, DependenciesCapability capability) {
 		ObjectNode dependencies = nodeFactory.objectNode();
 		dependencies.put("type", capability.getType().getName());
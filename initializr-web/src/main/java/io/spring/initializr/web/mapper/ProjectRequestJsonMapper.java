@@ -0,0 +1,71 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.mapper;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.Dependency;
+
+/**
+ * Generate a JSON representation of the outcome of the validation of a
+ * {@link ProjectRequest}: the resolved dependencies, boms and repositories of a valid
+ * request, or the errors of an invalid one.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectRequestJsonMapper {
+
+	private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+	/**
+	 * Write a json representation of the specified resolved request.
+	 */
+	public String write(ProjectRequest request) {
+		ObjectNode json = nodeFactory.objectNode();
+		json.put("valid", true);
+		json.put("bootVersion", request.getBootVersion());
+		json.put("build", request.getBuild());
+		ObjectNode dependencies = json.putObject("dependencies");
+		for (Dependency dependency : request.getResolvedDependencies()) {
+			dependencies.set(dependency.getId(),
+					DependencyMetadataV21JsonMapper.mapDependency(dependency));
+		}
+		ObjectNode repositories = json.putObject("repositories");
+		request.getRepositories().forEach((id, repository) -> repositories.set(id,
+				DependencyMetadataV21JsonMapper.mapRepository(repository)));
+		ObjectNode boms = json.putObject("boms");
+		request.getBoms().forEach((id, bom) -> boms.set(id,
+				DependencyMetadataV21JsonMapper.mapBom(bom)));
+		return json.toString();
+	}
+
+	/**
+	 * Write a json representation of the specified validation errors.
+	 */
+	public String writeErrors(String... messages) {
+		ObjectNode json = nodeFactory.objectNode();
+		json.put("valid", false);
+		ArrayNode errors = json.putArray("errors");
+		for (String message : messages) {
+			errors.addObject().put("message", message);
+		}
+		return json.toString();
+	}
+
+}
@@ -16,7 +16,6 @@
 
 package io.spring.initializr.web.project;
 
-import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.util.Map;
 import java.util.function.Function;
@@ -24,11 +23,12 @@ import java.util.function.Function;
 import javax.servlet.http.HttpServletResponse;
 
 import io.spring.initializr.generator.InvalidProjectRequestException;
+import io.spring.initializr.generator.TemporarySpaceExceededException;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
 import io.spring.initializr.metadata.TypeCapability;
+import io.spring.initializr.util.BeanProperties;
 
-import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.servlet.resource.ResourceUrlProvider;
@@ -66,9 +66,19 @@ public abstract class AbstractInitializrController {
 	@ExceptionHandler
 	public void invalidProjectRequest(HttpServletResponse response,
 			InvalidProjectRequestException ex) throws IOException {
+		if (!response.isCommitted()) {
+			// Discard any header of a streamed archive
+			response.reset();
+		}
 		response.sendError(HttpStatus.BAD_REQUEST.value(), ex.getMessage());
 	}
 
+	@ExceptionHandler
+	public void temporarySpaceExceeded(HttpServletResponse response,
+			TemporarySpaceExceededException ex) throws IOException {
+		response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage());
+	}
+
 	/**
 	 * Render the home page with the specified template.
 	 */
@@ -76,16 +86,8 @@ public abstract class AbstractInitializrController {
 		InitializrMetadata metadata = metadataProvider.get();
 
 		model.put("serviceUrl", generateAppUrl());
-		BeanWrapperImpl wrapper = new BeanWrapperImpl(metadata);
-		for (PropertyDescriptor descriptor : wrapper.getPropertyDescriptors()) {
-			if ("types".equals(descriptor.getName())) {
-				model.put("types", removeTypes(metadata.getTypes()));
-			}
-			else {
-				model.put(descriptor.getName(),
-						wrapper.getPropertyValue(descriptor.getName()));
-			}
-		}
+		BeanProperties.forInstance(metadata).copyTo(metadata, model);
+		model.put("types", removeTypes(metadata.getTypes()));
 
 		// Google analytics support
 		model.put("trackingCode",
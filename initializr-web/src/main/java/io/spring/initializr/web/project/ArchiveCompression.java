@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+import io.spring.initializr.generator.InvalidProjectRequestException;
+
+/**
+ * The compression levels a client can request for a project archive.
+ *
+ * @author Stephane Nicoll
+ */
+public enum ArchiveCompression {
+
+	/**
+	 * Store entries without compressing them.
+	 */
+	STORE("store", Deflater.NO_COMPRESSION),
+
+	/**
+	 * Favour speed over the size of the archive.
+	 */
+	FAST("fast", Deflater.BEST_SPEED),
+
+	/**
+	 * The default compression level.
+	 */
+	DEFAULT("default", Deflater.DEFAULT_COMPRESSION),
+
+	/**
+	 * Favour the size of the archive over speed.
+	 */
+	BEST("best", Deflater.BEST_COMPRESSION);
+
+	private final String id;
+
+	private final int level;
+
+	ArchiveCompression(String id, int level) {
+		this.id = id;
+		this.level = level;
+	}
+
+	/**
+	 * Return the identifier of the compression, as specified by a request.
+	 */
+	public String getId() {
+		return this.id;
+	}
+
+	/**
+	 * Return the {@link Deflater} level of the compression.
+	 */
+	public int getLevel() {
+		return this.level;
+	}
+
+	/**
+	 * Return the {@link ArchiveCompression} with the specified identifier.
+	 * @param id the identifier of the compression
+	 * @return the matching compression
+	 * @throws InvalidProjectRequestException if no compression matches
+	 */
+	public static ArchiveCompression forId(String id) {
+		for (ArchiveCompression compression : values()) {
+			if (compression.id.equalsIgnoreCase(id)) {
+				return compression;
+			}
+		}
+		throw new InvalidProjectRequestException("Unknown compression '" + id
+				+ "', expected one of " + Arrays.stream(values())
+						.map(ArchiveCompression::getId).collect(Collectors.joining(", ")));
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.function.DoubleSupplier;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * Resolve the {@link ArchiveCompression} to use for a request, according to the hint of
+ * the client and the server-side {@link GenerationProperties.Compression policy}.
+ * <p>
+ * A forced level always wins. Otherwise, the level requested by the client (or the
+ * default level) is used, capped to the configured load level while the system load
+ * exceeds the configured threshold.
+ *
+ * @author Stephane Nicoll
+ */
+public class ArchiveCompressionPolicy {
+
+	private final GenerationProperties.Compression properties;
+
+	private final DoubleSupplier systemLoad;
+
+	public ArchiveCompressionPolicy(GenerationProperties.Compression properties) {
+		this(properties, ArchiveCompressionPolicy::getSystemLoad);
+	}
+
+	ArchiveCompressionPolicy(GenerationProperties.Compression properties,
+			DoubleSupplier systemLoad) {
+		this.properties = properties;
+		this.systemLoad = systemLoad;
+	}
+
+	/**
+	 * Resolve the compression to use for the specified client hint.
+	 * @param hint the compression requested by the client, or {@code null}
+	 * @return the compression to use
+	 * @throws io.spring.initializr.generator.InvalidProjectRequestException if the hint
+	 * is invalid
+	 */
+	public ArchiveCompression resolve(String hint) {
+		ArchiveCompression compression = (StringUtils.hasText(hint)
+				? ArchiveCompression.forId(hint.trim()) : this.properties.getLevel());
+		if (this.properties.getForceLevel() != null) {
+			return this.properties.getForceLevel();
+		}
+		ArchiveCompression loadLevel = this.properties.getLoadLevel();
+		if (compression.compareTo(loadLevel) > 0 && isOverloaded()) {
+			return loadLevel;
+		}
+		return compression;
+	}
+
+	private boolean isOverloaded() {
+		double threshold = this.properties.getLoadThreshold();
+		return threshold > 0 && this.systemLoad.getAsDouble() > threshold;
+	}
+
+	private static double getSystemLoad() {
+		OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+		double loadAverage = os.getSystemLoadAverage();
+		return (loadAverage >= 0 ? loadAverage / os.getAvailableProcessors() : 0);
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import io.spring.initializr.generator.ProjectWriter;
+
+/**
+ * Base {@link ProjectWriter} that writes the project as an archive. Makes sure that an
+ * entry is written for each parent directory, once.
+ *
+ * @author Stephane Nicoll
+ */
+abstract class ArchiveProjectWriter implements ProjectWriter, Closeable {
+
+	private final Set<String> directories = new HashSet<>();
+
+	@Override
+	public void writeDirectory(String path) throws IOException {
+		String name = (path.endsWith("/") ? path : path + "/");
+		if (this.directories.add(name)) {
+			writeParentDirectories(name);
+			putDirectory(name);
+		}
+	}
+
+	@Override
+	public void writeFile(String path, byte[] content, boolean executable)
+			throws IOException {
+		writeParentDirectories(path);
+		putFile(path, content, executable);
+	}
+
+	@Override
+	public void writeResource(String path, String location, Supplier<byte[]> content,
+			boolean executable) throws IOException {
+		writeParentDirectories(path);
+		putResource(path, location, content, executable);
+	}
+
+	/**
+	 * Finish writing the archive. Does not close the underlying stream.
+	 * @throws IOException if the archive cannot be completed
+	 */
+	public abstract void finish() throws IOException;
+
+	/**
+	 * Release the resources held by this writer, whether the archive has been finished
+	 * or not. Does not close the underlying stream.
+	 */
+	@Override
+	public void close() {
+	}
+
+	/**
+	 * Add an entry for the directory with the specified name.
+	 * @param name the name of the directory, ending with a {@code /}
+	 * @throws IOException if the entry cannot be written
+	 */
+	protected abstract void putDirectory(String name) throws IOException;
+
+	/**
+	 * Add an entry for the specified file.
+	 * @param name the name of the file
+	 * @param content the content of the file
+	 * @param executable whether the file should be flagged as executable
+	 * @throws IOException if the entry cannot be written
+	 */
+	protected abstract void putFile(String name, byte[] content, boolean executable)
+			throws IOException;
+
+	/**
+	 * Add an entry for the specified file whose content is a static resource. By
+	 * default, the content is added as any other file.
+	 * @param name the name of the file
+	 * @param location the location of the resource
+	 * @param content a supplier of the content of the resource
+	 * @param executable whether the file should be flagged as executable
+	 * @throws IOException if the entry cannot be written
+	 */
+	protected void putResource(String name, String location, Supplier<byte[]> content,
+			boolean executable) throws IOException {
+		putFile(name, content.get(), executable);
+	}
+
+	private void writeParentDirectories(String path) throws IOException {
+		String trimmed = (path.endsWith("/") ? path.substring(0, path.length() - 1)
+				: path);
+		int index = trimmed.lastIndexOf('/');
+		if (index > 0) {
+			writeDirectory(trimmed.substring(0, index + 1));
+		}
+	}
+
+}
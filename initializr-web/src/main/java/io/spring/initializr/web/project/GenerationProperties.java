@@ -0,0 +1,344 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Project generation properties.
+ *
+ * @author Stephane Nicoll
+ */
+@ConfigurationProperties("initializr.generation")
+public class GenerationProperties {
+
+	/**
+	 * Whether archives should be streamed to the response as they are generated. When
+	 * disabled, the project is generated in a temporary directory first.
+	 */
+	private boolean streaming = true;
+
+	/**
+	 * Whether "/starter.zip" and "/starter.tgz" should redirect to the immutable URL of
+	 * the archive, that is derived from a fingerprint of the request and of the metadata
+	 * so that it can be cached for a long time. When disabled, the archive is served
+	 * directly with the fingerprint as a weak ETag.
+	 */
+	private boolean immutableUrls;
+
+	/**
+	 * Request headers that customizations, such as request post-processors, read to
+	 * generate a project. Archives are only cached, coalesced or fingerprinted for
+	 * requests with the same values for these headers: other headers are ignored.
+	 */
+	private final List<String> requestHeaders = new ArrayList<>();
+
+	private final Cache cache = new Cache();
+
+	private final Coalescing coalescing = new Coalescing();
+
+	private final Temp temp = new Temp();
+
+	private final Compression compression = new Compression();
+
+	private final Batch batch = new Batch();
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public boolean isImmutableUrls() {
+		return immutableUrls;
+	}
+
+	public void setImmutableUrls(boolean immutableUrls) {
+		this.immutableUrls = immutableUrls;
+	}
+
+	public List<String> getRequestHeaders() {
+		return requestHeaders;
+	}
+
+	public Cache getCache() {
+		return cache;
+	}
+
+	public Coalescing getCoalescing() {
+		return coalescing;
+	}
+
+	public Temp getTemp() {
+		return temp;
+	}
+
+	public Compression getCompression() {
+		return compression;
+	}
+
+	public Batch getBatch() {
+		return batch;
+	}
+
+	/**
+	 * Cache of generated archives.
+	 */
+	public static class Cache {
+
+		/**
+		 * Whether archives generated in streaming mode should be cached so that they
+		 * can be served again for equivalent requests. Archives are then fully buffered
+		 * in memory rather than streamed to the response.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Maximum total size of the cached archives, in bytes.
+		 */
+		private long maxSize = 32 * 1024 * 1024;
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getMaxSize() {
+			return maxSize;
+		}
+
+		public void setMaxSize(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+	}
+
+	/**
+	 * Coalescing of concurrent generations of the same archive.
+	 */
+	public static class Coalescing {
+
+		/**
+		 * Whether concurrent requests for the same archive, in streaming mode, should
+		 * wait for a single generation rather than generating the archive each. Archives
+		 * are then fully buffered in memory rather than streamed to the response.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Maximum time to wait for a concurrent generation before generating the
+		 * archive anyway.
+		 */
+		private Duration timeout = Duration.ofSeconds(10);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+	}
+
+	/**
+	 * Temporary space used to generate projects on disk.
+	 */
+	public static class Temp {
+
+		/**
+		 * Directory in which projects are generated, for instance on a tmpfs mount.
+		 * Default to an "initializr" directory in the system temporary directory.
+		 */
+		private String directory;
+
+		/**
+		 * Maximum total size of the projects generated on disk, in bytes. When the
+		 * quota is exceeded, new generations wait for space to be released. 0 means no
+		 * limit.
+		 */
+		private long quota;
+
+		/**
+		 * Maximum time to wait for space to be released when the quota is exceeded.
+		 */
+		private Duration quotaTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * Maximum age of a generated project before it is considered orphan and
+		 * removed.
+		 */
+		private Duration maxAge = Duration.ofMinutes(30);
+
+		/**
+		 * Interval at which orphan projects are looked up.
+		 */
+		private Duration reaperInterval = Duration.ofMinutes(5);
+
+		public String getDirectory() {
+			return directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public long getQuota() {
+			return quota;
+		}
+
+		public void setQuota(long quota) {
+			this.quota = quota;
+		}
+
+		public Duration getQuotaTimeout() {
+			return quotaTimeout;
+		}
+
+		public void setQuotaTimeout(Duration quotaTimeout) {
+			this.quotaTimeout = quotaTimeout;
+		}
+
+		public Duration getMaxAge() {
+			return maxAge;
+		}
+
+		public void setMaxAge(Duration maxAge) {
+			this.maxAge = maxAge;
+		}
+
+		public Duration getReaperInterval() {
+			return reaperInterval;
+		}
+
+		public void setReaperInterval(Duration reaperInterval) {
+			this.reaperInterval = reaperInterval;
+		}
+
+	}
+
+	/**
+	 * Compression of generated archives.
+	 */
+	public static class Compression {
+
+		/**
+		 * Compression level to use when the request does not specify one.
+		 */
+		private ArchiveCompression level = ArchiveCompression.DEFAULT;
+
+		/**
+		 * Compression level to use regardless of the level requested by the client.
+		 */
+		private ArchiveCompression forceLevel;
+
+		/**
+		 * System load average, per available processor, above which archives are
+		 * compressed with at most the load level. 0 means no limit.
+		 */
+		private double loadThreshold;
+
+		/**
+		 * Maximum compression level to use while the load threshold is exceeded.
+		 */
+		private ArchiveCompression loadLevel = ArchiveCompression.FAST;
+
+		public ArchiveCompression getLevel() {
+			return level;
+		}
+
+		public void setLevel(ArchiveCompression level) {
+			this.level = level;
+		}
+
+		public ArchiveCompression getForceLevel() {
+			return forceLevel;
+		}
+
+		public void setForceLevel(ArchiveCompression forceLevel) {
+			this.forceLevel = forceLevel;
+		}
+
+		public double getLoadThreshold() {
+			return loadThreshold;
+		}
+
+		public void setLoadThreshold(double loadThreshold) {
+			this.loadThreshold = loadThreshold;
+		}
+
+		public ArchiveCompression getLoadLevel() {
+			return loadLevel;
+		}
+
+		public void setLoadLevel(ArchiveCompression loadLevel) {
+			this.loadLevel = loadLevel;
+		}
+
+	}
+
+	/**
+	 * Generation of several projects in a single request.
+	 */
+	public static class Batch {
+
+		/**
+		 * Maximum number of projects in a batch.
+		 */
+		private int maxProjects = 100;
+
+		/**
+		 * Number of threads used to generate the projects of batches.
+		 */
+		private int parallelism = Runtime.getRuntime().availableProcessors();
+
+		public int getMaxProjects() {
+			return maxProjects;
+		}
+
+		public void setMaxProjects(int maxProjects) {
+			this.maxProjects = maxProjects;
+		}
+
+		public int getParallelism() {
+			return parallelism;
+		}
+
+		public void setParallelism(int parallelism) {
+			this.parallelism = parallelism;
+		}
+
+	}
+
+}
@@ -16,24 +16,38 @@
 
 package io.spring.initializr.web.project;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.samskivert.mustache.Mustache;
 import io.spring.initializr.generator.BasicProjectRequest;
 import io.spring.initializr.generator.CommandLineHelpGenerator;
+import io.spring.initializr.generator.InvalidProjectRequestException;
 import io.spring.initializr.generator.ProjectGenerator;
 import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.generator.ProjectStructure;
 import io.spring.initializr.metadata.DependencyMetadata;
 import io.spring.initializr.metadata.DependencyMetadataProvider;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
 import io.spring.initializr.util.Agent;
 import io.spring.initializr.util.TemplateRenderer;
 import io.spring.initializr.util.Version;
@@ -42,6 +56,9 @@ import io.spring.initializr.web.mapper.InitializrMetadataJsonMapper;
 import io.spring.initializr.web.mapper.InitializrMetadataV21JsonMapper;
 import io.spring.initializr.web.mapper.InitializrMetadataV2JsonMapper;
 import io.spring.initializr.web.mapper.InitializrMetadataVersion;
+import io.spring.initializr.web.mapper.ProjectRequestJsonMapper;
+import io.spring.initializr.web.support.MetadataContentCache;
+import io.spring.initializr.web.support.MetadataContentCache.MetadataContent;
 import org.apache.tools.ant.Project;
 import org.apache.tools.ant.taskdefs.Tar;
 import org.apache.tools.ant.taskdefs.Zip;
@@ -50,8 +67,10 @@ import org.apache.tools.ant.types.ZipFileSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ResponseEntity.BodyBuilder;
@@ -59,11 +78,15 @@ import org.springframework.stereotype.Controller;
 import org.springframework.util.DigestUtils;
 import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.resource.ResourceUrlProvider;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import static io.spring.initializr.util.Agent.AgentId.CURL;
 import static io.spring.initializr.util.Agent.AgentId.HTTPIE;
@@ -84,18 +107,62 @@ public class MainController extends AbstractInitializrController {
 	public static final MediaType HAL_JSON_CONTENT_TYPE = MediaType
 			.parseMediaType("application/hal+json");
 
+	private static final int MAX_METADATA_CONTENTS = 256;
+
+	private static final InitializrMetadataJsonMapper V2_JSON_MAPPER =
+			new InitializrMetadataV2JsonMapper();
+
+	private static final InitializrMetadataJsonMapper V21_JSON_MAPPER =
+			new InitializrMetadataV21JsonMapper();
+
+	private static final DependencyMetadataV21JsonMapper DEPENDENCIES_JSON_MAPPER =
+			new DependencyMetadataV21JsonMapper();
+
 	private final ProjectGenerator projectGenerator;
 	private final DependencyMetadataProvider dependencyMetadataProvider;
 	private final CommandLineHelpGenerator commandLineHelpGenerator;
+	private final GenerationProperties generationProperties;
+	private final ProjectArchiveCache archiveCache;
+	private final ProjectFingerprinter fingerprinter;
+	private final ProjectArchiveCoalescer archiveCoalescer;
+	private final ArchiveCompressionPolicy compressionPolicy;
+	private final ProjectRequestJsonMapper requestJsonMapper =
+			new ProjectRequestJsonMapper();
+	private final Map<String, ZipProjectWriter.CompressedContent> compressedResources =
+			new ConcurrentHashMap<>();
+	private final MetadataContentCache metadataContents = new MetadataContentCache(
+			MAX_METADATA_CONTENTS);
 
 	public MainController(InitializrMetadataProvider metadataProvider,
 			TemplateRenderer templateRenderer, ResourceUrlProvider resourceUrlProvider,
 			ProjectGenerator projectGenerator,
 			DependencyMetadataProvider dependencyMetadataProvider) {
+		this(metadataProvider, templateRenderer, resourceUrlProvider, projectGenerator,
+				dependencyMetadataProvider, new GenerationProperties(), null, null, null);
+	}
+
+	public MainController(InitializrMetadataProvider metadataProvider,
+			TemplateRenderer templateRenderer, ResourceUrlProvider resourceUrlProvider,
+			ProjectGenerator projectGenerator,
+			DependencyMetadataProvider dependencyMetadataProvider,
+			GenerationProperties generationProperties,
+			ProjectArchiveCache archiveCache, ProjectFingerprinter fingerprinter,
+			ProjectArchiveCoalescer archiveCoalescer) {
 		super(metadataProvider, resourceUrlProvider);
 		this.projectGenerator = projectGenerator;
 		this.dependencyMetadataProvider = dependencyMetadataProvider;
 		this.commandLineHelpGenerator = new CommandLineHelpGenerator(templateRenderer);
+		this.generationProperties = generationProperties;
+		this.archiveCache = archiveCache;
+		this.fingerprinter = fingerprinter;
+		this.archiveCoalescer = archiveCoalescer;
+		this.compressionPolicy = new ArchiveCompressionPolicy(
+				generationProperties.getCompression());
+	}
+
+	@EventListener
+	public void onMetadataUpdated(InitializrMetadataUpdatedEvent event) {
+		metadataContents.clear();
 	}
 
 	@ModelAttribute
@@ -151,63 +218,80 @@ public class MainController extends AbstractInitializrController {
 	}
 
 	@RequestMapping(path = "/", produces = "application/hal+json")
-	public ResponseEntity<String> serviceCapabilitiesHal() {
+	public ResponseEntity<byte[]> serviceCapabilitiesHal() {
 		return serviceCapabilitiesFor(InitializrMetadataVersion.V2_1,
 				HAL_JSON_CONTENT_TYPE);
 	}
 
 	@RequestMapping(path = "/", produces = { "application/vnd.initializr.v2.1+json",
 			"application/json" })
-	public ResponseEntity<String> serviceCapabilitiesV21() {
+	public ResponseEntity<byte[]> serviceCapabilitiesV21() {
 		return serviceCapabilitiesFor(InitializrMetadataVersion.V2_1);
 	}
 
 	@RequestMapping(path = "/", produces = "application/vnd.initializr.v2+json")
-	public ResponseEntity<String> serviceCapabilitiesV2() {
+	public ResponseEntity<byte[]> serviceCapabilitiesV2() {
 		return serviceCapabilitiesFor(InitializrMetadataVersion.V2);
 	}
 
-	private ResponseEntity<String> serviceCapabilitiesFor(
+	private ResponseEntity<byte[]> serviceCapabilitiesFor(
 			InitializrMetadataVersion version) {
 		return serviceCapabilitiesFor(version, version.getMediaType());
 	}
 
-	private ResponseEntity<String> serviceCapabilitiesFor(
+	private ResponseEntity<byte[]> serviceCapabilitiesFor(
 			InitializrMetadataVersion version, MediaType contentType) {
 		String appUrl = generateAppUrl();
-		String content = getJsonMapper(version).write(metadataProvider.get(), appUrl);
-		return ResponseEntity.ok().contentType(contentType).eTag(createUniqueId(content))
-				.cacheControl(CacheControl.maxAge(7, TimeUnit.DAYS)).body(content);
+		InitializrMetadata metadata = metadataProvider.get();
+		MetadataContent content = metadataContents.get(metadata,
+				Arrays.asList("capabilities", version, appUrl),
+				() -> getJsonMapper(version).write(metadata, appUrl));
+		return createJsonResponseEntity(content, contentType);
 	}
 
 	private static InitializrMetadataJsonMapper getJsonMapper(
 			InitializrMetadataVersion version) {
 		switch (version) {
 			case V2:
-				return new InitializrMetadataV2JsonMapper();
+				return V2_JSON_MAPPER;
 			default:
-				return new InitializrMetadataV21JsonMapper();
+				return V21_JSON_MAPPER;
 		}
 	}
 
+	/**
+	 * Create the response for a cached JSON document. If the request holds a matching
+	 * {@code If-None-Match} header, the content is not written and a
+	 * {@code 304 Not Modified} is sent instead.
+	 */
+	private static ResponseEntity<byte[]> createJsonResponseEntity(
+			MetadataContent content, MediaType contentType) {
+		return ResponseEntity.ok()
+				.contentType(new MediaType(contentType, StandardCharsets.UTF_8))
+				.eTag(content.getETag())
+				.cacheControl(CacheControl.maxAge(7, TimeUnit.DAYS))
+				.body(content.getContent());
+	}
+
 	@RequestMapping(path = "/dependencies", produces = {
 			"application/vnd.initializr.v2.1+json", "application/json" })
-	public ResponseEntity<String> dependenciesV21(
+	public ResponseEntity<byte[]> dependenciesV21(
 			@RequestParam(required = false) String bootVersion) {
 		return dependenciesFor(InitializrMetadataVersion.V2_1, bootVersion);
 	}
 
-	private ResponseEntity<String> dependenciesFor(InitializrMetadataVersion version,
+	private ResponseEntity<byte[]> dependenciesFor(InitializrMetadataVersion version,
 			String bootVersion) {
 		InitializrMetadata metadata = metadataProvider.get();
 		Version v = bootVersion != null ? Version.parse(bootVersion)
 				: Version.parse(metadata.getBootVersions().getDefault().getId());
-		DependencyMetadata dependencyMetadata = dependencyMetadataProvider.get(metadata,
-				v);
-		String content = new DependencyMetadataV21JsonMapper().write(dependencyMetadata);
-		return ResponseEntity.ok().contentType(version.getMediaType())
-				.eTag(createUniqueId(content))
-				.cacheControl(CacheControl.maxAge(7, TimeUnit.DAYS)).body(content);
+		MetadataContent content = metadataContents.get(metadata,
+				Arrays.asList("dependencies", version, v.toString()), () -> {
+					DependencyMetadata dependencyMetadata = dependencyMetadataProvider
+							.get(metadata, v);
+					return DEPENDENCIES_JSON_MAPPER.write(dependencyMetadata);
+				});
+		return createJsonResponseEntity(content, version.getMediaType());
 	}
 
 	@ModelAttribute("linkTo")
@@ -251,68 +335,316 @@ public class MainController extends AbstractInitializrController {
 				"build.gradle");
 	}
 
+	/**
+	 * Validate the request without generating the project. Return the resolved
+	 * dependencies, boms and repositories of a valid request or the error that prevents
+	 * the project from being generated.
+	 */
+	@RequestMapping(path = "/validate", produces = "application/json")
+	@ResponseBody
+	public ResponseEntity<String> validate(BasicProjectRequest basicRequest) {
+		ProjectRequest request = (ProjectRequest) basicRequest;
+		try {
+			projectGenerator.resolveRequest(request, metadataProvider.get());
+		}
+		catch (InvalidProjectRequestException ex) {
+			return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON)
+					.body(requestJsonMapper.writeErrors(ex.getMessage()));
+		}
+		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+				.body(requestJsonMapper.write(request));
+	}
+
 	@RequestMapping("/starter.zip")
 	@ResponseBody
-	public ResponseEntity<byte[]> springZip(BasicProjectRequest basicRequest)
-			throws IOException {
+	public void springZip(BasicProjectRequest basicRequest, ServletWebRequest webRequest,
+			HttpServletResponse response) throws IOException {
 		ProjectRequest request = (ProjectRequest) basicRequest;
-		File dir = projectGenerator.generateProjectStructure(request);
+		if (!handleFingerprint(request, "zip", webRequest, response)) {
+			generateZip(request, response);
+		}
+	}
 
-		File download = projectGenerator.createDistributionFile(dir, ".zip");
-
-		String wrapperScript = getWrapperScript(request);
-		new File(dir, wrapperScript).setExecutable(true);
-		Zip zip = new Zip();
-		zip.setProject(new Project());
-		zip.setDefaultexcludes(false);
-		ZipFileSet set = new ZipFileSet();
-		set.setDir(dir);
-		set.setFileMode("755");
-		set.setIncludes(wrapperScript);
-		set.setDefaultexcludes(false);
-		zip.addFileset(set);
-		set = new ZipFileSet();
-		set.setDir(dir);
-		set.setIncludes("**,");
-		set.setExcludes(wrapperScript);
-		set.setDefaultexcludes(false);
-		zip.addFileset(set);
-		zip.setDestFile(download.getCanonicalFile());
-		zip.execute();
-		return upload(download, dir, generateFileName(request, "zip"), "application/zip");
+	@RequestMapping("/starter/{fingerprint}.zip")
+	@ResponseBody
+	public void springZip(@PathVariable String fingerprint,
+			BasicProjectRequest basicRequest, ServletWebRequest webRequest,
+			HttpServletResponse response) throws IOException {
+		ProjectRequest request = (ProjectRequest) basicRequest;
+		if (!handleImmutable(fingerprint, request, "zip", webRequest, response)) {
+			generateZip(request, response);
+		}
+	}
+
+	private void generateZip(ProjectRequest request, HttpServletResponse response)
+			throws IOException {
+		ArchiveCompression compression = compressionPolicy
+				.resolve(request.getCompression());
+		if (generationProperties.isStreaming()) {
+			streamArchive(request, response, compression,
+					(out, level) -> new ZipProjectWriter(out, compressedResources,
+							level), "zip", "application/zip");
+			return;
+		}
+		File dir = projectGenerator.generateProjectStructure(request);
+		projectGenerator.getTemporarySpace().markInUse(dir);
+		try {
+			File download = projectGenerator.createDistributionFile(dir, ".zip");
+
+			String wrapperScript = getWrapperScript(request);
+			new File(dir, wrapperScript).setExecutable(true);
+			Zip zip = new Zip();
+			zip.setProject(new Project());
+			zip.setDefaultexcludes(false);
+			zip.setCompress(compression != ArchiveCompression.STORE);
+			zip.setLevel(compression.getLevel());
+			ZipFileSet set = new ZipFileSet();
+			set.setDir(dir);
+			set.setFileMode("755");
+			set.setIncludes(wrapperScript);
+			set.setDefaultexcludes(false);
+			zip.addFileset(set);
+			set = new ZipFileSet();
+			set.setDir(dir);
+			set.setIncludes("**,");
+			set.setExcludes(wrapperScript);
+			set.setDefaultexcludes(false);
+			zip.addFileset(set);
+			zip.setDestFile(download.getCanonicalFile());
+			zip.execute();
+			transfer(download, dir, generateFileName(request, "zip"), "application/zip",
+					response);
+		}
+		finally {
+			projectGenerator.cleanTempFiles(dir);
+		}
 	}
 
 	@RequestMapping(path = "/starter.tgz", produces = "application/x-compress")
 	@ResponseBody
-	public ResponseEntity<byte[]> springTgz(BasicProjectRequest basicRequest)
-			throws IOException {
+	public void springTgz(BasicProjectRequest basicRequest, ServletWebRequest webRequest,
+			HttpServletResponse response) throws IOException {
+		ProjectRequest request = (ProjectRequest) basicRequest;
+		if (!handleFingerprint(request, "tgz", webRequest, response)) {
+			generateTgz(request, response);
+		}
+	}
+
+	@RequestMapping(path = "/starter/{fingerprint}.tgz",
+			produces = "application/x-compress")
+	@ResponseBody
+	public void springTgz(@PathVariable String fingerprint,
+			BasicProjectRequest basicRequest, ServletWebRequest webRequest,
+			HttpServletResponse response) throws IOException {
 		ProjectRequest request = (ProjectRequest) basicRequest;
+		if (!handleImmutable(fingerprint, request, "tgz", webRequest, response)) {
+			generateTgz(request, response);
+		}
+	}
+
+	private void generateTgz(ProjectRequest request, HttpServletResponse response)
+			throws IOException {
+		ArchiveCompression compression = compressionPolicy
+				.resolve(request.getCompression());
+		if (generationProperties.isStreaming()) {
+			streamArchive(request, response, compression, TgzProjectWriter::new,
+					"tar.gz", "application/x-compress");
+			return;
+		}
 		File dir = projectGenerator.generateProjectStructure(request);
+		projectGenerator.getTemporarySpace().markInUse(dir);
+		try {
+			File download = projectGenerator.createDistributionFile(dir, ".tar.gz");
+
+			String wrapperScript = getWrapperScript(request);
+			new File(dir, wrapperScript).setExecutable(true);
+			Tar zip = new Tar();
+			zip.setProject(new Project());
+			zip.setDefaultexcludes(false);
+			TarFileSet set = zip.createTarFileSet();
+			set.setDir(dir);
+			set.setFileMode("755");
+			set.setIncludes(wrapperScript);
+			set.setDefaultexcludes(false);
+			set = zip.createTarFileSet();
+			set.setDir(dir);
+			set.setIncludes("**,");
+			set.setExcludes(wrapperScript);
+			set.setDefaultexcludes(false);
+			zip.setDestFile(download.getCanonicalFile());
+			Tar.TarCompressionMethod method = new Tar.TarCompressionMethod();
+			method.setValue("gzip");
+			zip.setCompression(method );
+			zip.execute();
+			transfer(download, dir, generateFileName(request, "tar.gz"),
+					"application/x-compress", response);
+		}
+		finally {
+			projectGenerator.cleanTempFiles(dir);
+		}
+	}
+
+	/**
+	 * Handle the fingerprint of the archive of the specified extension, if fingerprints
+	 * are available. Either redirect to the immutable URL of the archive or flag the
+	 * response with the fingerprint as a weak {@code ETag}. Return {@code true} if the
+	 * response is complete: the archive should not be generated.
+	 */
+	private boolean handleFingerprint(ProjectRequest request, String extension,
+			ServletWebRequest webRequest, HttpServletResponse response)
+			throws IOException {
+		if (fingerprinter == null) {
+			return false;
+		}
+		String fingerprint = fingerprinter.fingerprint(request, metadataProvider.get(),
+				extension);
+		if (generationProperties.isImmutableUrls()) {
+			response.sendRedirect(createImmutableUrl(request, fingerprint, extension));
+			return true;
+		}
+		return webRequest.checkNotModified(createETag(fingerprint));
+	}
+
+	/**
+	 * Handle a request for the immutable URL of an archive. Redirect to the up-to-date
+	 * URL if the fingerprint does not match the request and the current metadata. As
+	 * the archive is not reproducible byte for byte, it is cached for a long time but
+	 * not flagged as {@code immutable}. Return {@code true} if the response is
+	 * complete: the archive should not be generated.
+	 */
+	private boolean handleImmutable(String fingerprint, ProjectRequest request,
+			String extension, ServletWebRequest webRequest, HttpServletResponse response)
+			throws IOException {
+		if (fingerprinter == null) {
+			response.sendError(HttpStatus.NOT_FOUND.value());
+			return true;
+		}
+		String actual = fingerprinter.fingerprint(request, metadataProvider.get(),
+				extension);
+		if (!actual.equals(fingerprint)) {
+			response.sendRedirect(createImmutableUrl(request, actual, extension));
+			return true;
+		}
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl
+				.maxAge(365, TimeUnit.DAYS).cachePublic().getHeaderValue());
+		return webRequest.checkNotModified(createETag(fingerprint));
+	}
+
+	private static String createETag(String fingerprint) {
+		return "W/\"" + fingerprint + "\"";
+	}
 
-		File download = projectGenerator.createDistributionFile(dir, ".tar.gz");
-
-		String wrapperScript = getWrapperScript(request);
-		new File(dir, wrapperScript).setExecutable(true);
-		Tar zip = new Tar();
-		zip.setProject(new Project());
-		zip.setDefaultexcludes(false);
-		TarFileSet set = zip.createTarFileSet();
-		set.setDir(dir);
-		set.setFileMode("755");
-		set.setIncludes(wrapperScript);
-		set.setDefaultexcludes(false);
-		set = zip.createTarFileSet();
-		set.setDir(dir);
-		set.setIncludes("**,");
-		set.setExcludes(wrapperScript);
-		set.setDefaultexcludes(false);
-		zip.setDestFile(download.getCanonicalFile());
-		Tar.TarCompressionMethod method = new Tar.TarCompressionMethod();
-		method.setValue("gzip");
-		zip.setCompression(method );
-		zip.execute();
-		return upload(download, dir, generateFileName(request, "tar.gz"),
-				"application/x-compress");
+	private String createImmutableUrl(ProjectRequest request, String fingerprint,
+			String extension) {
+		UriComponentsBuilder builder = ServletUriComponentsBuilder
+				.fromCurrentContextPath()
+				.path("/starter/" + fingerprint + "." + extension);
+		ProjectFingerprinter.canonicalize(request, metadataProvider.get())
+				.forEach((name, value) -> {
+					if (value != null) {
+						builder.queryParam(name, value);
+					}
+				});
+		return builder.build().encode().toUriString();
+	}
+
+	/**
+	 * Generate the project straight into the response using an
+	 * {@link ArchiveProjectWriter}, without using any temporary file. If an archive cache
+	 * is available, the archive is served from the cache if an equivalent request has
+	 * been processed already with the same compression. If an archive coalescer is
+	 * available, concurrent requests for the same archive share a single generation. In
+	 * both cases, the archive is buffered in memory before it is written.
+	 */
+	private void streamArchive(ProjectRequest request, HttpServletResponse response,
+			ArchiveCompression compression,
+			BiFunction<OutputStream, ArchiveCompression, ArchiveProjectWriter> writerFactory,
+			String extension, String contentType) throws IOException {
+		String fileName = generateFileName(request, extension);
+		String format = extension + ";" + compression.getId();
+		ProjectArchiveCache.Key key = null;
+		if (archiveCache != null) {
+			key = archiveCache.createKey(request, metadataProvider.get(), format);
+			byte[] archive = archiveCache.get(key);
+			if (archive != null) {
+				projectGenerator.reuseProject(request);
+				writeArchive(response, archive, fileName, contentType);
+				log.info("Streamed from cache: {} ({} bytes)", fileName, archive.length);
+				return;
+			}
+		}
+		if (key == null && archiveCoalescer == null) {
+			ProjectStructure structure = projectGenerator.generateProject(request);
+			// Render templates before any header is written so that errors are reported
+			structure.resolve();
+			setArchiveHeaders(response, fileName, contentType);
+			try (ArchiveProjectWriter writer = writerFactory
+					.apply(response.getOutputStream(), compression)) {
+				structure.writeTo(writer);
+				writer.finish();
+			}
+			log.info("Streamed: {}", fileName);
+			return;
+		}
+		byte[] archive;
+		if (archiveCoalescer != null) {
+			AtomicBoolean generated = new AtomicBoolean();
+			archive = archiveCoalescer.generate(createFlightKey(request, format), () -> {
+				generated.set(true);
+				return generateArchive(request, compression, writerFactory);
+			});
+			if (!generated.get()) {
+				projectGenerator.reuseProject(request);
+			}
+		}
+		else {
+			archive = generateArchive(request, compression, writerFactory);
+		}
+		if (key != null) {
+			archiveCache.put(key, archive);
+		}
+		writeArchive(response, archive, fileName, contentType);
+		log.info("Streamed: {}", fileName);
+	}
+
+	private byte[] generateArchive(ProjectRequest request, ArchiveCompression compression,
+			BiFunction<OutputStream, ArchiveCompression, ArchiveProjectWriter> writerFactory)
+			throws IOException {
+		ProjectStructure structure = projectGenerator.generateProject(request);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ArchiveProjectWriter writer = writerFactory.apply(out, compression)) {
+			structure.writeTo(writer);
+			writer.finish();
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Create the key identifying concurrent generations of the same archive.
+	 */
+	private Object createFlightKey(ProjectRequest request, String format) {
+		List<String> key = new ArrayList<>();
+		key.add(format);
+		key.addAll(ProjectFingerprinter.canonicalize(request, metadataProvider.get())
+				.values());
+		key.addAll(ProjectFingerprinter.getRequestHeaders(request,
+				generationProperties.getRequestHeaders()));
+		return key;
+	}
+
+	private static void writeArchive(HttpServletResponse response, byte[] archive,
+			String fileName, String contentType) throws IOException {
+		setArchiveHeaders(response, fileName, contentType);
+		response.setContentLength(archive.length);
+		response.getOutputStream().write(archive);
+		response.flushBuffer();
+	}
+
+	private static void setArchiveHeaders(HttpServletResponse response, String fileName,
+			String contentType) {
+		response.setContentType(contentType);
+		response.setHeader("Content-Disposition",
+				"attachment; filename=\"" + fileName + "\"");
 	}
 
 	private static String generateFileName(ProjectRequest request, String extension) {
@@ -331,14 +663,20 @@ public class MainController extends AbstractInitializrController {
 				? request.getBaseDir() + "/" + script : script;
 	}
 
-	private ResponseEntity<byte[]> upload(File download, File dir, String fileName,
-			String contentType) throws IOException {
-		byte[] bytes = StreamUtils.copyToByteArray(new FileInputStream(download));
-		log.info("Uploading: {} ({} bytes)", download, bytes.length);
-		ResponseEntity<byte[]> result = createResponseEntity(bytes, contentType,
-				fileName);
-		projectGenerator.cleanTempFiles(dir);
-		return result;
+	/**
+	 * Transfer the specified archive to the response without loading it in memory.
+	 */
+	private void transfer(File download, File dir, String fileName, String contentType,
+			HttpServletResponse response) throws IOException {
+		projectGenerator.getTemporarySpace().updateSize(dir);
+		long size = download.length();
+		log.info("Uploading: {} ({} bytes)", download, size);
+		setArchiveHeaders(response, fileName, contentType);
+		response.setContentLengthLong(size);
+		try (InputStream in = new FileInputStream(download)) {
+			StreamUtils.copy(in, response.getOutputStream());
+		}
+		response.flushBuffer();
 	}
 
 	private ResponseEntity<byte[]> createResponseEntity(byte[] content,
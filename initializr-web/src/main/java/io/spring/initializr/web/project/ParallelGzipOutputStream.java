@@ -0,0 +1,229 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link OutputStream} that compresses its content in the gzip format, deflating
+ * independent blocks of data in parallel on a {@link ForkJoinPool}.
+ * <p>
+ * Similar to {@code pigz}, each block is primed with the last 32K of the previous block
+ * and all but the last block are terminated with a sync flush so that the compressed
+ * blocks can be concatenated as a single, standard, gzip member.
+ *
+ * @author Stephane Nicoll
+ */
+class ParallelGzipOutputStream extends FilterOutputStream {
+
+	static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+	private static final int DICTIONARY_SIZE = 32 * 1024;
+
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0,
+			0, 0, 0, 0, (byte) 0xff };
+
+	private final ForkJoinPool pool;
+
+	private final int level;
+
+	private final int maxPendingBlocks;
+
+	private final CRC32 crc = new CRC32();
+
+	private final Deque<ForkJoinTask<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+	private byte[] block;
+
+	private int blockLength;
+
+	private byte[] dictionary;
+
+	private long size;
+
+	private boolean headerWritten;
+
+	private boolean finished;
+
+	ParallelGzipOutputStream(OutputStream out) {
+		this(out, ForkJoinPool.commonPool(), Deflater.DEFAULT_COMPRESSION,
+				DEFAULT_BLOCK_SIZE);
+	}
+
+	ParallelGzipOutputStream(OutputStream out, ForkJoinPool pool, int level,
+			int blockSize) {
+		super(out);
+		this.pool = pool;
+		this.level = level;
+		this.maxPendingBlocks = pool.getParallelism() * 2;
+		this.block = new byte[blockSize];
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		write(new byte[] { (byte) b }, 0, 1);
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (this.finished) {
+			throw new IOException("Stream already finished");
+		}
+		this.crc.update(b, off, len);
+		this.size += len;
+		while (len > 0) {
+			int count = Math.min(len, this.block.length - this.blockLength);
+			System.arraycopy(b, off, this.block, this.blockLength, count);
+			this.blockLength += count;
+			off += count;
+			len -= count;
+			if (this.blockLength == this.block.length) {
+				submitBlock(false);
+			}
+		}
+	}
+
+	/**
+	 * Finish writing compressed data to the underlying stream without closing it.
+	 * @throws IOException if an I/O error has occurred
+	 */
+	public void finish() throws IOException {
+		if (!this.finished) {
+			submitBlock(true);
+			while (!this.pendingBlocks.isEmpty()) {
+				writeNextBlock();
+			}
+			writeTrailer();
+			this.finished = true;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			finish();
+		}
+		finally {
+			this.out.close();
+		}
+	}
+
+	private void submitBlock(boolean last) throws IOException {
+		byte[] input = this.block;
+		int length = this.blockLength;
+		byte[] blockDictionary = this.dictionary;
+		this.pendingBlocks.add(this.pool.submit(
+				() -> deflate(input, length, blockDictionary, this.level, last)));
+		if (!last) {
+			int dictionaryLength = Math.min(DICTIONARY_SIZE, length);
+			this.dictionary = Arrays.copyOfRange(input, length - dictionaryLength,
+					length);
+			this.block = new byte[input.length];
+			this.blockLength = 0;
+		}
+		while (this.pendingBlocks.size() > this.maxPendingBlocks
+				|| (!this.pendingBlocks.isEmpty() && this.pendingBlocks.peek().isDone())) {
+			writeNextBlock();
+		}
+	}
+
+	private void writeNextBlock() throws IOException {
+		ForkJoinTask<byte[]> task = this.pendingBlocks.poll();
+		try {
+			writeHeader();
+			this.out.write(task.get());
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while compressing");
+		}
+		catch (ExecutionException ex) {
+			throw new IOException("Failed to compress block", ex.getCause());
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		if (!this.headerWritten) {
+			this.out.write(HEADER);
+			this.headerWritten = true;
+		}
+	}
+
+	private void writeTrailer() throws IOException {
+		writeHeader();
+		writeInt((int) this.crc.getValue());
+		writeInt((int) this.size);
+	}
+
+	private void writeInt(int value) throws IOException {
+		this.out.write(value & 0xff);
+		this.out.write((value >> 8) & 0xff);
+		this.out.write((value >> 16) & 0xff);
+		this.out.write((value >> 24) & 0xff);
+	}
+
+	private static byte[] deflate(byte[] input, int length, byte[] dictionary,
+			int level, boolean last) {
+		Deflater deflater = new Deflater(level, true);
+		try {
+			if (dictionary != null) {
+				deflater.setDictionary(dictionary);
+			}
+			deflater.setInput(input, 0, length);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+			byte[] buffer = new byte[8192];
+			if (last) {
+				deflater.finish();
+				while (!deflater.finished()) {
+					int count = deflater.deflate(buffer);
+					out.write(buffer, 0, count);
+				}
+			}
+			else {
+				int count;
+				do {
+					count = deflater.deflate(buffer, 0, buffer.length,
+							Deflater.SYNC_FLUSH);
+					out.write(buffer, 0, count);
+				}
+				while (count == buffer.length);
+			}
+			return out.toByteArray();
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+}
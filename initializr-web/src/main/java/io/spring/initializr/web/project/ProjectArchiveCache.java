@@ -0,0 +1,244 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+
+import org.springframework.context.event.EventListener;
+
+/**
+ * A cache of generated project archives, bounded by the total size of the archives it
+ * holds. The least recently used archives are evicted first.
+ * <p>
+ * Archives are identified by a canonical {@link Key} of the request: dependency aliases
+ * are resolved, dependencies are sorted and the metadata generation is included so that
+ * the cache is invalidated as soon as an {@link InitializrMetadataUpdatedEvent} is
+ * received. Request parameters (i.e. headers) are not part of the key, except the
+ * configured request headers. If a customization such as a
+ * {@code ProjectRequestPostProcessor} reads a header, that header must be configured,
+ * or the cache disabled, for its archives not to be served to other clients.
+ * <p>
+ * Using the cache implies that archives are fully buffered in memory, rather than
+ * streamed to the response, so that they can be stored.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectArchiveCache {
+
+	private final long maxSize;
+
+	private final Collection<String> requestHeaders;
+
+	private final Map<Key, byte[]> archives = new LinkedHashMap<>(16, 0.75f, true);
+
+	private long size;
+
+	private volatile long generation;
+
+	private final LongAdder hits = new LongAdder();
+
+	private final LongAdder misses = new LongAdder();
+
+	private final LongAdder evictions = new LongAdder();
+
+	public ProjectArchiveCache(long maxSize) {
+		this(maxSize, Collections.emptyList());
+	}
+
+	/**
+	 * Create an instance whose keys include the specified request headers.
+	 * @param maxSize the maximum total size of the cached archives
+	 * @param requestHeaders the names of the request headers that are part of the key
+	 */
+	public ProjectArchiveCache(long maxSize, Collection<String> requestHeaders) {
+		this.maxSize = maxSize;
+		this.requestHeaders = new ArrayList<>(requestHeaders);
+	}
+
+	/**
+	 * Create the {@link Key} of the archive of the specified format for a request that
+	 * has been initialized with the defaults of the specified {@link InitializrMetadata}.
+	 * @param request the project request
+	 * @param metadata the metadata to use to resolve the request
+	 * @param format the format of the archive, including its compression
+	 * @return the key of the archive
+	 */
+	public Key createKey(ProjectRequest request, InitializrMetadata metadata,
+			String format) {
+		List<String> attributes = new ArrayList<>();
+		attributes.add(format);
+		attributes.addAll(ProjectFingerprinter.canonicalize(request, metadata).values());
+		attributes.addAll(
+				ProjectFingerprinter.getRequestHeaders(request, this.requestHeaders));
+		return new Key(this.generation, attributes);
+	}
+
+	/**
+	 * Return the archive for the specified {@link Key} or {@code null} if it is not
+	 * cached.
+	 * @param key the key of the archive
+	 * @return the archive or {@code null}
+	 */
+	public byte[] get(Key key) {
+		byte[] archive;
+		synchronized (this.archives) {
+			archive = this.archives.get(key);
+		}
+		(archive != null ? this.hits : this.misses).increment();
+		return archive;
+	}
+
+	/**
+	 * Cache the specified archive, evicting the least recently used archives if
+	 * necessary. Archives larger than the maximum size or whose key belongs to a
+	 * previous metadata generation are ignored.
+	 * @param key the key of the archive
+	 * @param archive the content of the archive
+	 */
+	public void put(Key key, byte[] archive) {
+		if (archive.length > this.maxSize) {
+			return;
+		}
+		synchronized (this.archives) {
+			if (key.generation != this.generation) {
+				return;
+			}
+			byte[] previous = this.archives.put(key, archive);
+			this.size += archive.length - (previous != null ? previous.length : 0);
+			Iterator<byte[]> it = this.archives.values().iterator();
+			while (this.size > this.maxSize && it.hasNext()) {
+				this.size -= it.next().length;
+				it.remove();
+				this.evictions.increment();
+			}
+		}
+	}
+
+	/**
+	 * Remove all archives from the cache.
+	 */
+	public void invalidate() {
+		synchronized (this.archives) {
+			this.generation++;
+			this.archives.clear();
+			this.size = 0;
+		}
+	}
+
+	@EventListener
+	public void onMetadataUpdated(InitializrMetadataUpdatedEvent event) {
+		invalidate();
+	}
+
+	/**
+	 * Return the maximum size of the archives in this cache, in bytes.
+	 */
+	public long getMaxSize() {
+		return this.maxSize;
+	}
+
+	/**
+	 * Return the total size of the archives in this cache, in bytes.
+	 */
+	public long getSize() {
+		synchronized (this.archives) {
+			return this.size;
+		}
+	}
+
+	/**
+	 * Return the number of archives in this cache.
+	 */
+	public int getCount() {
+		synchronized (this.archives) {
+			return this.archives.size();
+		}
+	}
+
+	/**
+	 * Return the number of lookups that returned a cached archive.
+	 */
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not return a cached archive.
+	 */
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Return the number of archives that were evicted to honour the maximum size.
+	 */
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+
+	/**
+	 * The canonical key of a cached archive.
+	 */
+	public static final class Key {
+
+		private final long generation;
+
+		private final List<String> attributes;
+
+		private Key(long generation, List<String> attributes) {
+			this.generation = generation;
+			this.attributes = attributes;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (obj == null || getClass() != obj.getClass()) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return this.generation == other.generation
+					&& this.attributes.equals(other.attributes);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Long.hashCode(this.generation) + this.attributes.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "Key [generation=" + this.generation + ", attributes="
+					+ this.attributes + "]";
+		}
+
+	}
+
+}
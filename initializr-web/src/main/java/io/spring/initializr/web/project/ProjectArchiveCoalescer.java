@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesce the concurrent generations of the same archive. The first request for a
+ * given key generates the archive while the others wait for its content rather than
+ * generating it again. A request that waits longer than the configured timeout
+ * generates the archive itself.
+ * <p>
+ * As the content of an archive is shared, it is fully buffered in memory: each
+ * generation holds the complete archive until all the requests waiting for it have
+ * written it, instead of streaming it to a single response.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectArchiveCoalescer {
+
+	private final long timeout;
+
+	private final ConcurrentMap<Object, CompletableFuture<byte[]>> inFlight =
+			new ConcurrentHashMap<>();
+
+	private final LongAdder generations = new LongAdder();
+
+	private final LongAdder coalesced = new LongAdder();
+
+	private final LongAdder timeouts = new LongAdder();
+
+	public ProjectArchiveCoalescer(Duration timeout) {
+		this.timeout = timeout.toMillis();
+	}
+
+	/**
+	 * Return the archive for the specified key, invoking the specified
+	 * {@link ArchiveGenerator} unless the same archive is being generated already.
+	 * @param key the key of the archive
+	 * @param generator the generator of the archive
+	 * @return the content of the archive
+	 * @throws IOException if the archive could not be generated
+	 */
+	public byte[] generate(Object key, ArchiveGenerator generator) throws IOException {
+		CompletableFuture<byte[]> flight = new CompletableFuture<>();
+		CompletableFuture<byte[]> existing = this.inFlight.putIfAbsent(key, flight);
+		if (existing != null) {
+			this.coalesced.increment();
+			return await(existing, generator);
+		}
+		this.generations.increment();
+		try {
+			byte[] archive = generator.generate();
+			flight.complete(archive);
+			return archive;
+		}
+		catch (IOException | RuntimeException | Error ex) {
+			flight.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlight.remove(key, flight);
+		}
+	}
+
+	private byte[] await(CompletableFuture<byte[]> flight, ArchiveGenerator generator)
+			throws IOException {
+		try {
+			return flight.get(this.timeout, TimeUnit.MILLISECONDS);
+		}
+		catch (TimeoutException ex) {
+			this.timeouts.increment();
+			return generator.generate();
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IOException(cause.getMessage(), cause);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for archive", ex);
+		}
+	}
+
+	/**
+	 * Return the number of archives that are being generated.
+	 */
+	public int getInFlightCount() {
+		return this.inFlight.size();
+	}
+
+	/**
+	 * Return the number of archives that were generated without waiting for another
+	 * request.
+	 */
+	public long getGenerationCount() {
+		return this.generations.sum();
+	}
+
+	/**
+	 * Return the number of requests that waited for an archive generated by another
+	 * request.
+	 */
+	public long getCoalescedCount() {
+		return this.coalesced.sum();
+	}
+
+	/**
+	 * Return the number of coalesced requests that timed out and generated the archive
+	 * themselves.
+	 */
+	public long getTimeoutCount() {
+		return this.timeouts.sum();
+	}
+
+	/**
+	 * Generate the content of an archive.
+	 */
+	@FunctionalInterface
+	public interface ArchiveGenerator {
+
+		byte[] generate() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * A {@link MeterBinder} exposing the statistics of a {@link ProjectArchiveCoalescer}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectArchiveCoalescerMetrics implements MeterBinder {
+
+	private static final String PREFIX = "initializr.archive-coalescing.";
+
+	private final ProjectArchiveCoalescer coalescer;
+
+	public ProjectArchiveCoalescerMetrics(ProjectArchiveCoalescer coalescer) {
+		this.coalescer = coalescer;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(PREFIX + "generations", this.coalescer,
+				ProjectArchiveCoalescer::getGenerationCount)
+				.description("Number of archives generated without waiting")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "coalesced", this.coalescer,
+				ProjectArchiveCoalescer::getCoalescedCount)
+				.description("Number of requests served by a concurrent generation")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "timeouts", this.coalescer,
+				ProjectArchiveCoalescer::getTimeoutCount)
+				.description("Number of coalesced requests that timed out")
+				.register(registry);
+		Gauge.builder(PREFIX + "in-flight", this.coalescer,
+				ProjectArchiveCoalescer::getInFlightCount)
+				.description("Number of archives being generated").register(registry);
+	}
+
+}
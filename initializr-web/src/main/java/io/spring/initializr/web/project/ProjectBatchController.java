@@ -0,0 +1,217 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.spring.initializr.generator.InvalidProjectRequestException;
+import io.spring.initializr.generator.ProjectGenerator;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.generator.ProjectStructure;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+/**
+ * A controller generating several projects in a single call. All projects are resolved
+ * against the same metadata and generated in parallel on a bounded pool. The projects
+ * are streamed back in a single zip archive, each in its own directory, alongside a
+ * {@value #REPORT_NAME} report describing the outcome of each project: a project that
+ * cannot be generated does not fail the whole batch.
+ *
+ * @author Stephane Nicoll
+ */
+@Controller
+public class ProjectBatchController extends AbstractInitializrController
+		implements DisposableBean {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ProjectBatchController.class);
+
+	static final String REPORT_NAME = "batch.json";
+
+	private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+	private final ProjectGenerator projectGenerator;
+
+	private final int maxProjects;
+
+	private final ArchiveCompressionPolicy compressionPolicy;
+
+	private final ExecutorService executor;
+
+	private final Map<String, ZipProjectWriter.CompressedContent> compressedResources =
+			new ConcurrentHashMap<>();
+
+	public ProjectBatchController(InitializrMetadataProvider metadataProvider,
+			ResourceUrlProvider resourceUrlProvider, ProjectGenerator projectGenerator,
+			GenerationProperties generationProperties) {
+		super(metadataProvider, resourceUrlProvider);
+		this.projectGenerator = projectGenerator;
+		this.maxProjects = generationProperties.getBatch().getMaxProjects();
+		this.compressionPolicy = new ArchiveCompressionPolicy(
+				generationProperties.getCompression());
+		AtomicInteger counter = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(
+				generationProperties.getBatch().getParallelism(), runnable -> {
+					Thread thread = new Thread(runnable,
+							"initializr-batch-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	@PostMapping(path = "/starters.zip", consumes = "application/json",
+			produces = "application/zip")
+	@ResponseBody
+	public void springZips(@RequestBody List<Map<String, Object>> projects,
+			@RequestParam(required = false) String compression,
+			@RequestHeader Map<String, String> headers, HttpServletResponse response)
+			throws IOException {
+		if (projects.isEmpty()) {
+			throw new InvalidProjectRequestException("No project to generate");
+		}
+		if (projects.size() > this.maxProjects) {
+			throw new InvalidProjectRequestException("Too many projects ("
+					+ projects.size() + "), at most " + this.maxProjects
+					+ " can be generated at once");
+		}
+		ArchiveCompression level = this.compressionPolicy.resolve(compression);
+		InitializrMetadata metadata = metadataProvider.get();
+		List<Future<GeneratedProject>> results = new ArrayList<>();
+		for (Map<String, Object> attributes : projects) {
+			results.add(this.executor
+					.submit(() -> generateProject(attributes, headers, metadata)));
+		}
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition",
+				"attachment; filename=\"starters.zip\"");
+		ArrayNode report = nodeFactory.arrayNode();
+		Set<String> directories = new HashSet<>();
+		int failures = 0;
+		try (ZipProjectWriter writer = new ZipProjectWriter(response.getOutputStream(),
+				this.compressedResources, level)) {
+			try {
+				for (int i = 0; i < results.size(); i++) {
+					ObjectNode outcome = report.addObject();
+					outcome.put("index", i);
+					try {
+						GeneratedProject project = results.get(i).get();
+						String directory = uniqueDirectory(project.request, directories);
+						ProjectStructure structure = new ProjectStructure();
+						structure.addAll(directory + "/", project.structure);
+						structure.writeTo(writer);
+						outcome.put("directory", directory);
+						outcome.put("status", "generated");
+					}
+					catch (ExecutionException ex) {
+						Throwable cause = ex.getCause();
+						outcome.put("status", "failed");
+						outcome.put("error", (cause.getMessage() != null
+								? cause.getMessage() : cause.getClass().getName()));
+						failures++;
+					}
+				}
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while generating projects",
+						ex);
+			}
+			finally {
+				results.forEach(result -> result.cancel(true));
+			}
+			ObjectNode root = nodeFactory.objectNode();
+			root.set("projects", report);
+			writer.writeFile(REPORT_NAME,
+					root.toString().getBytes(StandardCharsets.UTF_8), false);
+			writer.finish();
+		}
+		log.info("Streamed batch: {} project(s), {} failure(s)", results.size(),
+				failures);
+	}
+
+	@Override
+	public void destroy() {
+		this.executor.shutdownNow();
+	}
+
+	private GeneratedProject generateProject(Map<String, Object> attributes,
+			Map<String, String> headers, InitializrMetadata metadata) {
+		ProjectRequest request = ProjectRequestBinder.bind(attributes, headers,
+				metadata);
+		ProjectStructure structure = this.projectGenerator.generateProject(request,
+				metadata);
+		// Render the content of the project on this thread
+		structure.getEntries().forEach(ProjectStructure.Entry::getContent);
+		return new GeneratedProject(request, structure);
+	}
+
+	private static String uniqueDirectory(ProjectRequest request,
+			Set<String> directories) {
+		String name = (StringUtils.hasText(request.getArtifactId())
+				? request.getArtifactId().replaceAll("[\\s/\\\\]", "_") : "project");
+		String directory = name;
+		int counter = 1;
+		while (!directories.add(directory)) {
+			directory = name + "-" + (++counter);
+		}
+		return directory;
+	}
+
+	private static final class GeneratedProject {
+
+		private final ProjectRequest request;
+
+		private final ProjectStructure structure;
+
+		private GeneratedProject(ProjectRequest request, ProjectStructure structure) {
+			this.request = request;
+			this.structure = structure;
+		}
+
+	}
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.spring.initializr.generator.InvalidProjectRequestException;
+import io.spring.initializr.generator.ProjectDelta;
+import io.spring.initializr.generator.ProjectGenerator;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.generator.ProjectStructure;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.resource.ResourceUrlProvider;
+
+/**
+ * A controller returning the files that differ between the project generated for an
+ * original request and the project generated for a modified version of it, so that a
+ * client can update an existing project without downloading it again.
+ * <p>
+ * Both requests are resolved against the same metadata. The changed files are streamed
+ * back in a zip archive alongside a {@value #REPORT_NAME} report listing the added,
+ * modified and removed paths, with the hash of the new content of each file. Files
+ * provided by the same static resource in both projects, such as the wrapper, are
+ * neither rendered nor compressed.
+ *
+ * @author Stephane Nicoll
+ */
+@Controller
+public class ProjectDeltaController extends AbstractInitializrController {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ProjectDeltaController.class);
+
+	static final String REPORT_NAME = "delta.json";
+
+	private static final JsonNodeFactory nodeFactory = JsonNodeFactory.instance;
+
+	private final ProjectGenerator projectGenerator;
+
+	private final ArchiveCompressionPolicy compressionPolicy;
+
+	private final Map<String, ZipProjectWriter.CompressedContent> compressedResources =
+			new ConcurrentHashMap<>();
+
+	public ProjectDeltaController(InitializrMetadataProvider metadataProvider,
+			ResourceUrlProvider resourceUrlProvider, ProjectGenerator projectGenerator,
+			GenerationProperties generationProperties) {
+		super(metadataProvider, resourceUrlProvider);
+		this.projectGenerator = projectGenerator;
+		this.compressionPolicy = new ArchiveCompressionPolicy(
+				generationProperties.getCompression());
+	}
+
+	@PostMapping(path = "/starter.delta.zip", consumes = "application/json",
+			produces = "application/zip")
+	@ResponseBody
+	public void springZipDelta(@RequestBody Map<String, Map<String, Object>> projects,
+			@RequestParam(required = false) String compression,
+			@RequestHeader Map<String, String> headers, HttpServletResponse response)
+			throws IOException {
+		Map<String, Object> from = projects.get("from");
+		Map<String, Object> to = projects.get("to");
+		if (from == null || to == null) {
+			throw new InvalidProjectRequestException(
+					"Both the 'from' and 'to' projects must be specified");
+		}
+		ArchiveCompression level = this.compressionPolicy.resolve(compression);
+		InitializrMetadata metadata = metadataProvider.get();
+		ProjectDelta delta = ProjectDelta.between(
+				generateProject(from, headers, metadata),
+				generateProject(to, headers, metadata));
+		response.setContentType("application/zip");
+		response.setHeader("Content-Disposition",
+				"attachment; filename=\"starter.delta.zip\"");
+		try (ZipProjectWriter writer = new ZipProjectWriter(response.getOutputStream(),
+				this.compressedResources, level)) {
+			delta.getChanges().writeTo(writer);
+			ObjectNode report = nodeFactory.objectNode();
+			report.set("added", createChanges(delta, delta.getAdded()));
+			report.set("modified", createChanges(delta, delta.getModified()));
+			ArrayNode removed = report.putArray("removed");
+			delta.getRemoved().forEach(removed::add);
+			writer.writeFile(REPORT_NAME,
+					report.toString().getBytes(StandardCharsets.UTF_8), false);
+			writer.finish();
+		}
+		log.info("Streamed delta: {} added, {} modified, {} removed",
+				delta.getAdded().size(), delta.getModified().size(),
+				delta.getRemoved().size());
+	}
+
+	private ProjectStructure generateProject(Map<String, Object> attributes,
+			Map<String, String> headers, InitializrMetadata metadata) {
+		ProjectRequest request = ProjectRequestBinder.bind(attributes, headers,
+				metadata);
+		return this.projectGenerator.generateProject(request, metadata);
+	}
+
+	private static ArrayNode createChanges(ProjectDelta delta, List<String> paths) {
+		ArrayNode changes = nodeFactory.arrayNode();
+		for (String path : paths) {
+			ObjectNode change = changes.addObject();
+			change.put("path", path);
+			String hash = delta.getHash(path);
+			if (hash != null) {
+				change.put("hash", hash);
+			}
+		}
+		return changes;
+	}
+
+}
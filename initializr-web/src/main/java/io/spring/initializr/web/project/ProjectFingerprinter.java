@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.Dependency;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Compute a fingerprint that identifies the content of the archive generated for a
+ * request. The fingerprint is a hash of the canonical form of the request, of the
+ * configured request headers and of the metadata it is generated against, so that it
+ * changes as soon as the metadata instance is replaced or an
+ * {@link InitializrMetadataUpdatedEvent} is received. Other request parameters (i.e.
+ * headers) are not part of the fingerprint.
+ * <p>
+ * Two archives with the same fingerprint have the same entries but are not necessarily
+ * identical byte for byte: entry timestamps and the compression level resolved by the
+ * {@link ArchiveCompressionPolicy} may differ. The fingerprint should therefore only be
+ * used as a weak validator.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectFingerprinter {
+
+	private final ObjectMapper objectMapper;
+
+	private final List<String> requestHeaders;
+
+	private final AtomicLong generation = new AtomicLong();
+
+	private volatile MetadataId metadataId;
+
+	public ProjectFingerprinter(ObjectMapper objectMapper) {
+		this(objectMapper, Collections.emptyList());
+	}
+
+	/**
+	 * Create an instance.
+	 * @param objectMapper the object mapper to use to identify the metadata
+	 * @param requestHeaders the names of the request headers that affect the generated
+	 * projects
+	 */
+	public ProjectFingerprinter(ObjectMapper objectMapper,
+			Collection<String> requestHeaders) {
+		this.objectMapper = objectMapper;
+		this.requestHeaders = new ArrayList<>(requestHeaders);
+	}
+
+	/**
+	 * Return the canonical attributes of a request that has been initialized with the
+	 * defaults of the specified {@link InitializrMetadata}, keyed by the name of the
+	 * matching request parameter: dependency aliases are resolved, dependencies are
+	 * sorted and the default Spring Boot version is made explicit.
+	 * @param request the project request
+	 * @param metadata the metadata to use to resolve the request
+	 * @return the canonical attributes, {@code null} values standing for absent ones
+	 */
+	static Map<String, String> canonicalize(ProjectRequest request,
+			InitializrMetadata metadata) {
+		List<String> dependencies = (!request.getStyle().isEmpty()
+				? request.getStyle() : request.getDependencies()).stream().map(id -> {
+					Dependency dependency = metadata.getDependencies().get(id);
+					return dependency != null ? dependency.getId() : id;
+				}).distinct().sorted().collect(Collectors.toList());
+		Map<String, String> attributes = new LinkedHashMap<>();
+		attributes.put("type", request.getType());
+		attributes.put("bootVersion", (request.getBootVersion() != null
+				? request.getBootVersion()
+				: metadata.getBootVersions().getDefault().getId()));
+		attributes.put("groupId", request.getGroupId());
+		attributes.put("artifactId", request.getArtifactId());
+		attributes.put("name", request.getName());
+		attributes.put("description", request.getDescription());
+		attributes.put("version", request.getVersion());
+		attributes.put("packaging", request.getPackaging());
+		attributes.put("applicationName", request.getApplicationName());
+		attributes.put("language", request.getLanguage());
+		attributes.put("packageName", request.getPackageName());
+		attributes.put("javaVersion", request.getJavaVersion());
+		attributes.put("baseDir", request.getBaseDir());
+		attributes.put("dependencies", (!dependencies.isEmpty()
+				? StringUtils.collectionToCommaDelimitedString(dependencies) : null));
+		attributes.put("compression", (StringUtils.hasText(request.getCompression())
+				? request.getCompression().trim() : null));
+		return attributes;
+	}
+
+	/**
+	 * Return the values of the specified request headers, in order. Header names are
+	 * case insensitive and {@code null} stands for an absent header.
+	 * @param request the project request
+	 * @param names the names of the headers
+	 * @return the values of these headers
+	 */
+	static List<String> getRequestHeaders(ProjectRequest request,
+			Collection<String> names) {
+		List<String> values = new ArrayList<>(names.size());
+		for (String name : names) {
+			String value = null;
+			for (Map.Entry<String, Object> entry : request.getParameters().entrySet()) {
+				if (entry.getKey().equalsIgnoreCase(name) && entry.getValue() != null) {
+					value = entry.getValue().toString();
+					break;
+				}
+			}
+			values.add(value);
+		}
+		return values;
+	}
+
+	/**
+	 * Compute the fingerprint of the archive of the specified format for a request that
+	 * has been initialized with the defaults of the specified {@link InitializrMetadata}.
+	 * @param request the project request
+	 * @param metadata the metadata to use to resolve the request
+	 * @param format the format of the archive
+	 * @return the fingerprint, as an hexadecimal string
+	 */
+	public String fingerprint(ProjectRequest request, InitializrMetadata metadata,
+			String format) {
+		StringBuilder content = new StringBuilder(getMetadataId(metadata));
+		content.append('\n').append(format);
+		canonicalize(request, metadata).forEach((name, value) -> content.append('\n')
+				.append(name).append('=').append(value != null ? value : ""));
+		List<String> headers = getRequestHeaders(request, this.requestHeaders);
+		for (int i = 0; i < headers.size(); i++) {
+			content.append('\n').append(this.requestHeaders.get(i).toLowerCase())
+					.append(':').append(headers.get(i) != null ? headers.get(i) : "");
+		}
+		return DigestUtils
+				.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Return an identifier of the current state of the specified metadata. The
+	 * identifier is computed once per metadata instance and recomputed when the
+	 * metadata is updated.
+	 * @param metadata the metadata
+	 * @return an identifier of that metadata
+	 */
+	public String getMetadataId(InitializrMetadata metadata) {
+		long generation = this.generation.get();
+		MetadataId current = this.metadataId;
+		if (current != null && current.metadata == metadata
+				&& current.generation == generation) {
+			return current.id;
+		}
+		String id;
+		try {
+			id = DigestUtils
+					.md5DigestAsHex(this.objectMapper.writeValueAsBytes(metadata));
+		}
+		catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Failed to write metadata", ex);
+		}
+		this.metadataId = new MetadataId(metadata, generation, id);
+		return id;
+	}
+
+	@EventListener
+	public void onMetadataUpdated(InitializrMetadataUpdatedEvent event) {
+		this.generation.incrementAndGet();
+		this.metadataId = null;
+	}
+
+	/**
+	 * The identifier of a metadata instance, computed while no update was received
+	 * since the specified generation.
+	 */
+	private static final class MetadataId {
+
+		private final InitializrMetadata metadata;
+
+		private final long generation;
+
+		private final String id;
+
+		private MetadataId(InitializrMetadata metadata, long generation, String id) {
+			this.metadata = metadata;
+			this.generation = generation;
+			this.id = id;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.beans.PropertyDescriptor;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.spring.initializr.generator.BasicProjectRequest;
+import io.spring.initializr.generator.InvalidProjectRequestException;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.InitializrMetadata;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.DataBinder;
+import org.springframework.validation.FieldError;
+
+/**
+ * Bind the attributes of a project, typically read from a JSON document, to a
+ * {@link ProjectRequest}. Only the properties of {@link BasicProjectRequest} can be set.
+ *
+ * @author Stephane Nicoll
+ */
+final class ProjectRequestBinder {
+
+	private static final String[] BINDABLE_FIELDS = Arrays
+			.stream(BeanUtils.getPropertyDescriptors(BasicProjectRequest.class))
+			.map(PropertyDescriptor::getName).filter(name -> !"class".equals(name))
+			.toArray(String[]::new);
+
+	private ProjectRequestBinder() {
+	}
+
+	/**
+	 * Create a {@link ProjectRequest} initialized with the defaults of the specified
+	 * {@link InitializrMetadata} and bind the specified attributes to it.
+	 * @param attributes the attributes of the project
+	 * @param headers the headers of the current request
+	 * @param metadata the metadata to use
+	 * @return the request
+	 * @throws InvalidProjectRequestException if an attribute cannot be bound
+	 */
+	static ProjectRequest bind(Map<String, Object> attributes,
+			Map<String, String> headers, InitializrMetadata metadata) {
+		ProjectRequest request = new ProjectRequest();
+		request.getParameters().putAll(headers);
+		request.initialize(metadata);
+		DataBinder binder = new DataBinder(request);
+		binder.setAllowedFields(BINDABLE_FIELDS);
+		binder.setConversionService(DefaultConversionService.getSharedInstance());
+		binder.bind(new MutablePropertyValues(attributes));
+		BindingResult result = binder.getBindingResult();
+		if (result.hasErrors()) {
+			throw new InvalidProjectRequestException("Invalid project request: "
+					+ result.getFieldErrors().stream().map(FieldError::getField)
+							.collect(Collectors.joining(", ")));
+		}
+		return request;
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.spring.initializr.util.TemplateRenderer;
+
+/**
+ * A {@link MeterBinder} exposing the statistics of the cached fragments of a
+ * {@link TemplateRenderer}.
+ *
+ * @author Stephane Nicoll
+ */
+public class TemplateRendererMetrics implements MeterBinder {
+
+	private static final String PREFIX = "initializr.template.fragments.";
+
+	private final TemplateRenderer templateRenderer;
+
+	public TemplateRendererMetrics(TemplateRenderer templateRenderer) {
+		this.templateRenderer = templateRenderer;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		FunctionCounter.builder(PREFIX + "hits", this.templateRenderer,
+				TemplateRenderer::getFragmentHitCount)
+				.description("Number of fragments served from the cache")
+				.register(registry);
+		FunctionCounter.builder(PREFIX + "misses", this.templateRenderer,
+				TemplateRenderer::getFragmentMissCount)
+				.description("Number of fragments that had to be rendered")
+				.register(registry);
+	}
+
+}
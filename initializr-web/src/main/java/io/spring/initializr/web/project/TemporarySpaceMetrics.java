@@ -0,0 +1,56 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.spring.initializr.generator.TemporarySpace;
+
+/**
+ * A {@link MeterBinder} exposing the usage of a {@link TemporarySpace}.
+ *
+ * @author Stephane Nicoll
+ */
+public class TemporarySpaceMetrics implements MeterBinder {
+
+	private static final String PREFIX = "initializr.temp.";
+
+	private final TemporarySpace temporarySpace;
+
+	public TemporarySpaceMetrics(TemporarySpace temporarySpace) {
+		this.temporarySpace = temporarySpace;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		Gauge.builder(PREFIX + "projects", this.temporarySpace,
+				TemporarySpace::getProjectCount)
+				.description("Number of projects generated on disk and not yet released")
+				.register(registry);
+		Gauge.builder(PREFIX + "size", this.temporarySpace,
+				TemporarySpace::getUsedBytes)
+				.description("Total size of the projects generated on disk")
+				.baseUnit("bytes").register(registry);
+		FunctionCounter.builder(PREFIX + "reaped", this.temporarySpace,
+				TemporarySpace::getReapedCount)
+				.description("Number of orphan temporary files that have been removed")
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.tools.tar.TarEntry;
+import org.apache.tools.tar.TarOutputStream;
+
+/**
+ * An {@link ArchiveProjectWriter} that writes each entry of the project straight into a
+ * tar stream, compressed using a {@link ParallelGzipOutputStream}.
+ *
+ * @author Stephane Nicoll
+ */
+class TgzProjectWriter extends ArchiveProjectWriter {
+
+	private static final int EXECUTABLE_FILE_MODE = 0100755;
+
+	private final ParallelGzipOutputStream gzip;
+
+	private final TarOutputStream tar;
+
+	TgzProjectWriter(OutputStream out) {
+		this(out, ArchiveCompression.DEFAULT);
+	}
+
+	TgzProjectWriter(OutputStream out, ArchiveCompression compression) {
+		this.gzip = new ParallelGzipOutputStream(out, ForkJoinPool.commonPool(),
+				compression.getLevel(), ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE);
+		this.tar = new TarOutputStream(this.gzip, "UTF-8");
+		this.tar.setLongFileMode(TarOutputStream.LONGFILE_GNU);
+	}
+
+	@Override
+	protected void putDirectory(String name) throws IOException {
+		this.tar.putNextEntry(new TarEntry(name));
+		this.tar.closeEntry();
+	}
+
+	@Override
+	protected void putFile(String name, byte[] content, boolean executable)
+			throws IOException {
+		TarEntry entry = new TarEntry(name);
+		entry.setSize(content.length);
+		if (executable) {
+			entry.setMode(EXECUTABLE_FILE_MODE);
+		}
+		this.tar.putNextEntry(entry);
+		this.tar.write(content);
+		this.tar.closeEntry();
+	}
+
+	@Override
+	public void finish() throws IOException {
+		this.tar.finish();
+		this.gzip.finish();
+		this.gzip.flush();
+	}
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An {@link ArchiveProjectWriter} that writes each entry of the project straight into a
+ * zip stream, without using any temporary file.
+ * <p>
+ * As the content of each entry is known upfront, the sizes and checksum are written in
+ * the local header of each entry. Static resources are deflated once and their
+ * compressed content is copied as is in each archive.
+ *
+ * @author Stephane Nicoll
+ */
+class ZipProjectWriter extends ArchiveProjectWriter {
+
+	private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+
+	private static final int CENTRAL_FILE_HEADER_SIGNATURE = 0x02014b50;
+
+	private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+	private static final int VERSION = 20;
+
+	private static final int UNIX_VERSION_MADE_BY = (3 << 8) | VERSION;
+
+	private static final int UTF8_FLAG = 1 << 11;
+
+	private static final int STORED = 0;
+
+	private static final int DEFLATED = 8;
+
+	private static final int DIRECTORY_MODE = 040755;
+
+	private static final int FILE_MODE = 0100644;
+
+	private static final int EXECUTABLE_FILE_MODE = 0100755;
+
+	private static final int MSDOS_DIRECTORY_FLAG = 0x10;
+
+	private final OutputStream out;
+
+	private final Map<String, CompressedContent> resources;
+
+	private final boolean stored;
+
+	private final Deflater deflater;
+
+	private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+
+	private final int dosTime = toDosTime(LocalDateTime.now());
+
+	private long offset;
+
+	private int entries;
+
+	/**
+	 * Create an instance using the specified cache of compressed static resources.
+	 * @param out the stream to write to
+	 * @param resources a cache of compressed static resources, keyed by location
+	 */
+	ZipProjectWriter(OutputStream out, Map<String, CompressedContent> resources) {
+		this(out, resources, ArchiveCompression.DEFAULT);
+	}
+
+	/**
+	 * Create an instance using the specified cache of compressed static resources and
+	 * {@link ArchiveCompression}. With {@link ArchiveCompression#STORE}, every entry,
+	 * including static resources, is stored.
+	 * @param out the stream to write to
+	 * @param resources a cache of compressed static resources, keyed by location
+	 * @param compression the compression to apply to generated entries
+	 */
+	ZipProjectWriter(OutputStream out, Map<String, CompressedContent> resources,
+			ArchiveCompression compression) {
+		this.out = out;
+		this.resources = resources;
+		this.stored = (compression == ArchiveCompression.STORE);
+		this.deflater = new Deflater(compression.getLevel(), true);
+	}
+
+	@Override
+	protected void putDirectory(String name) throws IOException {
+		writeEntry(name, CompressedContent.EMPTY,
+				(DIRECTORY_MODE << 16) | MSDOS_DIRECTORY_FLAG);
+	}
+
+	@Override
+	protected void putFile(String name, byte[] content, boolean executable)
+			throws IOException {
+		writeEntry(name, (this.stored ? CompressedContent.store(content)
+				: CompressedContent.compress(content, this.deflater)),
+				fileAttributes(executable));
+	}
+
+	@Override
+	protected void putResource(String name, String location, Supplier<byte[]> content,
+			boolean executable) throws IOException {
+		CompressedContent compressed = (this.stored
+				? CompressedContent.store(content.get())
+				: this.resources.computeIfAbsent(location,
+						key -> compressResource(content.get())));
+		writeEntry(name, compressed, fileAttributes(executable));
+	}
+
+	private static CompressedContent compressResource(byte[] content) {
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+		try {
+			return CompressedContent.compress(content, deflater);
+		}
+		finally {
+			deflater.end();
+		}
+	}
+
+	@Override
+	public void finish() throws IOException {
+		long centralDirectoryOffset = this.offset;
+		int centralDirectorySize = this.centralDirectory.size();
+		if (this.entries > 0xffff || centralDirectoryOffset > 0xffffffffL) {
+			throw new IOException("Project is too large for a zip archive");
+		}
+		this.centralDirectory.writeTo(this.out);
+		ByteArrayOutputStream end = new ByteArrayOutputStream(22);
+		writeInt(end, END_OF_CENTRAL_DIRECTORY_SIGNATURE);
+		writeShort(end, 0);
+		writeShort(end, 0);
+		writeShort(end, this.entries);
+		writeShort(end, this.entries);
+		writeInt(end, centralDirectorySize);
+		writeInt(end, (int) centralDirectoryOffset);
+		writeShort(end, 0);
+		end.writeTo(this.out);
+		this.out.flush();
+	}
+
+	@Override
+	public void close() {
+		this.deflater.end();
+	}
+
+	private void writeEntry(String name, CompressedContent content, int attributes)
+			throws IOException {
+		byte[] encodedName = name.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream header = new ByteArrayOutputStream(
+				30 + encodedName.length);
+		writeInt(header, LOCAL_FILE_HEADER_SIGNATURE);
+		writeShort(header, VERSION);
+		writeShort(header, UTF8_FLAG);
+		writeShort(header, content.method);
+		writeInt(header, this.dosTime);
+		writeInt(header, content.crc);
+		writeInt(header, content.data.length);
+		writeInt(header, content.size);
+		writeShort(header, encodedName.length);
+		writeShort(header, 0);
+		header.write(encodedName);
+
+		ByteArrayOutputStream entry = this.centralDirectory;
+		writeInt(entry, CENTRAL_FILE_HEADER_SIGNATURE);
+		writeShort(entry, UNIX_VERSION_MADE_BY);
+		writeShort(entry, VERSION);
+		writeShort(entry, UTF8_FLAG);
+		writeShort(entry, content.method);
+		writeInt(entry, this.dosTime);
+		writeInt(entry, content.crc);
+		writeInt(entry, content.data.length);
+		writeInt(entry, content.size);
+		writeShort(entry, encodedName.length);
+		writeShort(entry, 0);
+		writeShort(entry, 0);
+		writeShort(entry, 0);
+		writeShort(entry, 0);
+		writeInt(entry, attributes);
+		writeInt(entry, (int) this.offset);
+		entry.write(encodedName);
+
+		header.writeTo(this.out);
+		this.out.write(content.data);
+		this.offset += header.size() + content.data.length;
+		this.entries++;
+	}
+
+	private static int fileAttributes(boolean executable) {
+		return (executable ? EXECUTABLE_FILE_MODE : FILE_MODE) << 16;
+	}
+
+	private static int toDosTime(LocalDateTime time) {
+		return ((time.getYear() - 1980) << 25) | (time.getMonthValue() << 21)
+				| (time.getDayOfMonth() << 16) | (time.getHour() << 11)
+				| (time.getMinute() << 5) | (time.getSecond() >> 1);
+	}
+
+	private static void writeShort(ByteArrayOutputStream out, int value) {
+		out.write(value & 0xff);
+		out.write((value >> 8) & 0xff);
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		writeShort(out, value & 0xffff);
+		writeShort(out, (value >>> 16) & 0xffff);
+	}
+
+	/**
+	 * The content of a zip entry, alongside its checksum and uncompressed size.
+	 */
+	static final class CompressedContent {
+
+		static final CompressedContent EMPTY = new CompressedContent(STORED,
+				new byte[0], 0, 0);
+
+		private final int method;
+
+		private final byte[] data;
+
+		private final int crc;
+
+		private final int size;
+
+		private CompressedContent(int method, byte[] data, int crc, int size) {
+			this.method = method;
+			this.data = data;
+			this.crc = crc;
+			this.size = size;
+		}
+
+		/**
+		 * Compress the specified content using the specified raw {@link Deflater}. The
+		 * content is stored if it does not benefit from compression.
+		 * @param content the content to compress
+		 * @param deflater the deflater to use, reset once the content has been
+		 * compressed
+		 * @return the compressed content
+		 */
+		static CompressedContent compress(byte[] content, Deflater deflater) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			ByteArrayOutputStream out = new ByteArrayOutputStream(
+					content.length / 2 + 64);
+			byte[] buffer = new byte[8192];
+			try {
+				deflater.setInput(content);
+				deflater.finish();
+				while (!deflater.finished()) {
+					int count = deflater.deflate(buffer);
+					out.write(buffer, 0, count);
+				}
+			}
+			finally {
+				deflater.reset();
+			}
+			byte[] data = out.toByteArray();
+			if (data.length >= content.length) {
+				return new CompressedContent(STORED, content, (int) crc.getValue(),
+						content.length);
+			}
+			return new CompressedContent(DEFLATED, data, (int) crc.getValue(),
+					content.length);
+		}
+
+		/**
+		 * Store the specified content as is.
+		 * @param content the content to store
+		 * @return the stored content
+		 */
+		static CompressedContent store(byte[] content) {
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			return new CompressedContent(STORED, content, (int) crc.getValue(),
+					content.length);
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2017 the original author or authors.
+ * Copyright 2012-2018 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,72 +16,334 @@
 
 package io.spring.initializr.web.support;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.spring.initializr.metadata.DefaultMetadataElement;
 import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.ApplicationEventPublisherAware;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * A default {@link InitializrMetadataProvider} that is able to refresh
- * the metadata with the status of the main spring.io site.
+ * the metadata with the status of the main spring.io site. An
+ * {@link InitializrMetadataUpdatedEvent} is published each time the
+ * refresh changes the metadata.
+ * <p>
+ * The metadata is always served as is: it is {@link #refresh() refreshed} explicitly
+ * or {@link #scheduleRefresh(Duration, Duration) in the background} so that serving
+ * it never involves a call to spring.io. If a refresh fails, the last good metadata
+ * is kept and the next attempt is made after an increasing, randomized, delay. When
+ * the provider is managed by an application context, the metadata is fetched in the
+ * background once the context is started, so that the listeners of the first
+ * {@link InitializrMetadataUpdatedEvent} are registered. It is then refreshed
+ * periodically if a {@link #setRefreshSchedule(Duration, Duration) schedule} has been
+ * configured.
+ * <p>
+ * A served instance is never modified: a refresh that changes the metadata builds and
+ * validates a new snapshot that replaces the current one atomically. Each snapshot has
+ * a {@link #getSnapshotId() monotonically increasing id}.
  *
  * @author Stephane Nicoll
  */
-public class DefaultInitializrMetadataProvider implements InitializrMetadataProvider {
+public class DefaultInitializrMetadataProvider implements InitializrMetadataProvider,
+		ApplicationEventPublisherAware, SmartLifecycle, DisposableBean {
 
 	private static final Logger log = LoggerFactory
 			.getLogger(DefaultInitializrMetadataProvider.class);
 
-	private final InitializrMetadata metadata;
+	private final AtomicReference<Snapshot> snapshot;
 	private final ObjectMapper objectMapper;
 	private final RestTemplate restTemplate;
+	private volatile ApplicationEventPublisher eventPublisher;
+
+	private volatile long lastRefresh = System.currentTimeMillis();
+	private final AtomicInteger consecutiveFailures = new AtomicInteger();
+	private final LongAdder refreshFailures = new LongAdder();
+	private ScheduledExecutorService refresher;
+	private Duration refreshInterval;
+	private Duration refreshBackoff;
 
 	public DefaultInitializrMetadataProvider(InitializrMetadata metadata,
 			ObjectMapper objectMapper, RestTemplate restTemplate) {
-		this.metadata = metadata;
+		this.snapshot = new AtomicReference<>(new Snapshot(1, metadata));
 		this.objectMapper = objectMapper;
 		this.restTemplate = restTemplate;
 	}
 
 	@Override
-	@Cacheable(value = "initializr.metadata", key = "'metadata'")
+	public void setApplicationEventPublisher(ApplicationEventPublisher eventPublisher) {
+		this.eventPublisher = eventPublisher;
+	}
+
+	@Override
 	public InitializrMetadata get() {
-		updateInitializrMetadata(metadata);
-		return metadata;
+		return this.snapshot.get().metadata;
+	}
+
+	/**
+	 * Return the id of the metadata currently served. The id is incremented each time
+	 * the metadata changes.
+	 */
+	public long getSnapshotId() {
+		return this.snapshot.get().id;
+	}
+
+	/**
+	 * Refresh the metadata with the latest Spring Boot versions. Keep the current
+	 * metadata if they could not be fetched.
+	 * @return {@code true} if the metadata has been refreshed
+	 */
+	public synchronized boolean refresh() {
+		try {
+			updateInitializrMetadata();
+			this.lastRefresh = System.currentTimeMillis();
+			this.consecutiveFailures.set(0);
+			return true;
+		}
+		catch (Exception ex) {
+			this.consecutiveFailures.incrementAndGet();
+			this.refreshFailures.increment();
+			log.warn("Failed to refresh spring boot metadata", ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Configure the background refresh that is {@link #scheduleRefresh(Duration,
+	 * Duration) scheduled} when this provider is {@link #start() started}. Without a
+	 * schedule, the metadata is only fetched once on start.
+	 * @param interval the interval between two successful refreshes
+	 * @param backoff the delay after a first failure
+	 */
+	public synchronized void setRefreshSchedule(Duration interval, Duration backoff) {
+		this.refreshInterval = interval;
+		this.refreshBackoff = backoff;
+	}
+
+	/**
+	 * Refresh the metadata in the background, starting immediately. After a failure,
+	 * the next attempt is made after the specified backoff, doubled for each
+	 * consecutive failure up to the specified interval.
+	 * @param interval the interval between two successful refreshes
+	 * @param backoff the delay after a first failure
+	 */
+	public synchronized void scheduleRefresh(Duration interval, Duration backoff) {
+		if (this.refresher != null) {
+			this.refresher.shutdownNow();
+		}
+		this.refresher = createRefresher();
+		scheduleRefresh(this.refresher, 0, interval.toMillis(), backoff.toMillis());
+	}
+
+	private static ScheduledExecutorService createRefresher() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "initializr-metadata-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	private void scheduleRefresh(ScheduledExecutorService executor, long delay,
+			long interval, long backoff) {
+		executor.schedule(() -> {
+			refresh();
+			if (!executor.isShutdown()) {
+				long next = computeDelay(this.consecutiveFailures.get(), interval,
+						backoff, ThreadLocalRandom.current().nextDouble());
+				scheduleRefresh(executor, next, interval, backoff);
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Compute the delay before the next refresh. The delay is spread randomly so that
+	 * several instances do not all hit spring.io at the same time.
+	 * @param failures the number of consecutive failures
+	 * @param interval the interval between two successful refreshes
+	 * @param backoff the delay after a first failure
+	 * @param random a random number between 0 and 1
+	 * @return the delay, in milliseconds
+	 */
+	static long computeDelay(int failures, long interval, long backoff, double random) {
+		if (failures == 0) {
+			return (long) (interval * (0.9 + random * 0.2));
+		}
+		long delay = Math.min(interval, backoff << Math.min(failures - 1, 30));
+		if (delay <= 0) {
+			delay = interval;
+		}
+		return (long) (delay * (0.5 + random * 0.5));
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.refresher != null) {
+			return;
+		}
+		if (this.refreshInterval != null) {
+			scheduleRefresh(this.refreshInterval, this.refreshBackoff);
+		}
+		else {
+			this.refresher = createRefresher();
+			this.refresher.execute(this::refresh);
+			this.refresher.shutdown();
+		}
+	}
+
+	@Override
+	public void stop() {
+		destroy();
+	}
+
+	@Override
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return this.refresher != null;
+	}
+
+	@Override
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	@Override
+	public int getPhase() {
+		return 0;
+	}
+
+	@Override
+	public synchronized void destroy() {
+		if (this.refresher != null) {
+			this.refresher.shutdownNow();
+			this.refresher = null;
+		}
+	}
+
+	/**
+	 * Return the time elapsed since the metadata was last refreshed successfully, or
+	 * created if it has never been refreshed.
+	 */
+	public Duration getAge() {
+		return Duration.ofMillis(System.currentTimeMillis() - this.lastRefresh);
+	}
+
+	/**
+	 * Return the number of refreshes that failed.
+	 */
+	public long getRefreshFailureCount() {
+		return this.refreshFailures.sum();
 	}
 
-	protected void updateInitializrMetadata(InitializrMetadata metadata) {
+	private void updateInitializrMetadata() throws IOException {
 		List<DefaultMetadataElement> bootVersions = fetchBootVersions();
 		if (bootVersions != null && !bootVersions.isEmpty()) {
 			if (bootVersions.stream().noneMatch(DefaultMetadataElement::isDefault)) {
 				// No default specified
 				bootVersions.get(0).setDefault(true);
 			}
-			metadata.updateSpringBootVersions(bootVersions);
+			Snapshot current = this.snapshot.get();
+			if (!isSame(current.metadata.getBootVersions().getContent(),
+					bootVersions)) {
+				InitializrMetadata metadata = createMetadata(current.metadata,
+						bootVersions);
+				this.snapshot.set(new Snapshot(current.id + 1, metadata));
+				ApplicationEventPublisher publisher = this.eventPublisher;
+				if (publisher != null) {
+					publisher.publishEvent(new InitializrMetadataUpdatedEvent(metadata));
+				}
+			}
 		}
 	}
 
-	protected List<DefaultMetadataElement> fetchBootVersions() {
-		String url = metadata.getConfiguration().getEnv().getSpringBootMetadataUrl();
-		if (StringUtils.hasText(url)) {
-			try {
-				log.info("Fetching boot metadata from {}", url);
-				return new SpringBootMetadataReader(objectMapper, restTemplate, url)
-						.getBootVersions();
-			}
-			catch (Exception e) {
-				log.warn("Failed to fetch spring boot metadata", e);
+	/**
+	 * Create a new metadata instance based on the current one, with the specified
+	 * Spring Boot versions. The current instance must not be modified: it is
+	 * {@link InitializrMetadata#merge(InitializrMetadata) merged} into a new instance of
+	 * the same type. The {@link InitializrMetadata#getCompatibilityIndex() compatibility
+	 * index} of the new instance is built before it is published.
+	 * @param current the metadata currently served
+	 * @param bootVersions the Spring Boot versions to use
+	 * @return a new, validated, metadata instance
+	 */
+	protected InitializrMetadata createMetadata(InitializrMetadata current,
+			List<DefaultMetadataElement> bootVersions) {
+		InitializrMetadata metadata = BeanUtils.instantiateClass(current.getClass());
+		metadata.merge(current);
+		metadata.validate();
+		metadata.updateSpringBootVersions(bootVersions);
+		metadata.getCompatibilityIndex();
+		return metadata;
+	}
+
+	private static boolean isSame(List<DefaultMetadataElement> current,
+			List<DefaultMetadataElement> candidates) {
+		if (current.size() != candidates.size()) {
+			return false;
+		}
+		for (int i = 0; i < current.size(); i++) {
+			DefaultMetadataElement element = current.get(i);
+			DefaultMetadataElement candidate = candidates.get(i);
+			if (!ObjectUtils.nullSafeEquals(element.getId(), candidate.getId())
+					|| !ObjectUtils.nullSafeEquals(element.getName(), candidate.getName())
+					|| element.isDefault() != candidate.isDefault()) {
+				return false;
 			}
 		}
+		return true;
+	}
+
+	/**
+	 * Fetch the latest Spring Boot versions.
+	 * @return the Spring Boot versions or {@code null} if no url is configured
+	 * @throws IOException if the versions could not be parsed
+	 */
+	protected List<DefaultMetadataElement> fetchBootVersions() throws IOException {
+		String url = get().getConfiguration().getEnv().getSpringBootMetadataUrl();
+		if (StringUtils.hasText(url)) {
+			log.info("Fetching boot metadata from {}", url);
+			return new SpringBootMetadataReader(objectMapper, restTemplate, url)
+					.getBootVersions();
+		}
 		return null;
 	}
 
+	private static final class Snapshot {
+
+		private final long id;
+
+		private final InitializrMetadata metadata;
+
+		private Snapshot(long id, InitializrMetadata metadata) {
+			this.id = id;
+			this.metadata = metadata;
+		}
+
+	}
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.support;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.spring.initializr.metadata.InitializrMetadataProvider;
+
+/**
+ * A {@link MeterBinder} exposing the freshness of the metadata served by a
+ * {@link DefaultInitializrMetadataProvider}. Other providers are ignored.
+ *
+ * @author Stephane Nicoll
+ */
+public class InitializrMetadataProviderMetrics implements MeterBinder {
+
+	private static final String PREFIX = "initializr.metadata.";
+
+	private final InitializrMetadataProvider provider;
+
+	public InitializrMetadataProviderMetrics(InitializrMetadataProvider provider) {
+		this.provider = provider;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		if (!(this.provider instanceof DefaultInitializrMetadataProvider)) {
+			return;
+		}
+		DefaultInitializrMetadataProvider metadataProvider =
+				(DefaultInitializrMetadataProvider) this.provider;
+		Gauge.builder(PREFIX + "age", metadataProvider,
+				(p) -> p.getAge().toMillis() / (double) TimeUnit.SECONDS.toMillis(1))
+				.description("Time elapsed since the metadata was last refreshed")
+				.baseUnit("seconds").register(registry);
+		FunctionCounter.builder(PREFIX + "refresh-failures", metadataProvider,
+				DefaultInitializrMetadataProvider::getRefreshFailureCount)
+				.description("Number of failed refreshes of the metadata")
+				.register(registry);
+	}
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.web.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataProvider;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Cache the serialized representations of an {@link InitializrMetadata} snapshot,
+ * alongside the {@code ETag} of their content. As required by
+ * {@link InitializrMetadataProvider}, a served instance is not modified so an entry is
+ * valid as long as the same metadata instance is served: entries are discarded as soon
+ * as a different instance is requested, or when the cache is {@link #clear() cleared}
+ * on an {@link InitializrMetadataUpdatedEvent}.
+ * <p>
+ * Keys typically derive from request parameters and are bounded to a maximum number of
+ * entries per snapshot, the least recently used entries being evicted first.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataContentCache {
+
+	private final int maxEntries;
+
+	private final AtomicReference<Entries> entries = new AtomicReference<>();
+
+	public MetadataContentCache(int maxEntries) {
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * Return the content for the specified metadata and key, invoking the specified
+	 * {@code writer} only if that content is not cached already.
+	 * @param metadata the metadata snapshot that is serialized
+	 * @param key the key of the representation, such as its version and the url of the
+	 * service
+	 * @param writer the writer of the content
+	 * @return the content and its {@code ETag}
+	 */
+	public MetadataContent get(InitializrMetadata metadata, Object key,
+			Supplier<String> writer) {
+		Entries current = getEntries(metadata);
+		MetadataContent content = current.get(key);
+		if (content == null) {
+			content = current.putIfAbsent(key, new MetadataContent(writer.get()));
+		}
+		return content;
+	}
+
+	/**
+	 * Discard all the cached entries.
+	 */
+	public void clear() {
+		this.entries.set(null);
+	}
+
+	private Entries getEntries(InitializrMetadata metadata) {
+		Entries current = this.entries.get();
+		while (current == null || current.metadata != metadata) {
+			Entries candidate = new Entries(metadata, this.maxEntries);
+			if (this.entries.compareAndSet(current, candidate)) {
+				return candidate;
+			}
+			current = this.entries.get();
+		}
+		return current;
+	}
+
+	/**
+	 * Return the number of entries cached for the current snapshot.
+	 */
+	public int size() {
+		Entries current = this.entries.get();
+		return (current != null ? current.size() : 0);
+	}
+
+	private static final class Entries {
+
+		private final InitializrMetadata metadata;
+
+		private final Map<Object, MetadataContent> contents;
+
+		private Entries(InitializrMetadata metadata, int maxEntries) {
+			this.metadata = metadata;
+			this.contents = new LinkedHashMap<Object, MetadataContent>(16, 0.75f, true) {
+
+				@Override
+				protected boolean removeEldestEntry(
+						Map.Entry<Object, MetadataContent> eldest) {
+					return size() > maxEntries;
+				}
+
+			};
+		}
+
+		synchronized MetadataContent get(Object key) {
+			return this.contents.get(key);
+		}
+
+		synchronized MetadataContent putIfAbsent(Object key, MetadataContent content) {
+			MetadataContent existing = this.contents.putIfAbsent(key, content);
+			return (existing != null ? existing : content);
+		}
+
+		synchronized int size() {
+			return this.contents.size();
+		}
+
+	}
+
+	/**
+	 * The serialized content of a metadata snapshot.
+	 */
+	public static final class MetadataContent {
+
+		private final byte[] content;
+
+		private final String eTag;
+
+		MetadataContent(String content) {
+			this.content = content.getBytes(StandardCharsets.UTF_8);
+			this.eTag = DigestUtils.md5DigestAsHex(this.content);
+		}
+
+		/**
+		 * Return the content, encoded in {@code UTF-8}.
+		 */
+		public byte[] getContent() {
+			return this.content;
+		}
+
+		/**
+		 * Return the {@code ETag} of the content.
+		 */
+		public String getETag() {
+			return this.eTag;
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.support;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Metadata properties.
+ *
+ * @author Stephane Nicoll
+ */
+@ConfigurationProperties("initializr.metadata")
+public class MetadataProperties {
+
+	private final Refresh refresh = new Refresh();
+
+	public Refresh getRefresh() {
+		return refresh;
+	}
+
+	/**
+	 * Background refresh of the Spring Boot versions.
+	 */
+	public static class Refresh {
+
+		/**
+		 * Whether the Spring Boot versions should be refreshed periodically. When
+		 * disabled, they are only fetched once on startup.
+		 */
+		private boolean enabled = true;
+
+		/**
+		 * Interval between two refreshes.
+		 */
+		private Duration interval = Duration.ofMinutes(10);
+
+		/**
+		 * Delay before retrying a failed refresh, doubled for each consecutive failure
+		 * up to the interval.
+		 */
+		private Duration backoff = Duration.ofSeconds(10);
+
+		/**
+		 * Connect and read timeout of the requests to fetch the Spring Boot versions.
+		 */
+		private Duration timeout = Duration.ofSeconds(10);
+
+		public boolean isEnabled() {
+			return enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public Duration getInterval() {
+			return interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public Duration getBackoff() {
+			return backoff;
+		}
+
+		public void setBackoff(Duration backoff) {
+			this.backoff = backoff;
+		}
+
+		public Duration getTimeout() {
+			return timeout;
+		}
+
+		public void setTimeout(Duration timeout) {
+			this.timeout = timeout;
+		}
+
+	}
+
+}
@@ -25,13 +25,17 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.spring.initializr.metadata.Dependency;
 import io.spring.initializr.metadata.DependencyGroup;
+import io.spring.initializr.metadata.InitializrMetadata;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
 import io.spring.initializr.util.Version;
+import io.spring.initializr.web.support.MetadataContentCache;
+import io.spring.initializr.web.support.MetadataContentCache.MetadataContent;
 
+import org.springframework.context.event.EventListener;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.DigestUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -45,19 +49,38 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 public class UiController {
 
+	private static final int MAX_METADATA_CONTENTS = 256;
+
 	protected final InitializrMetadataProvider metadataProvider;
 
+	private final MetadataContentCache metadataContents = new MetadataContentCache(
+			MAX_METADATA_CONTENTS);
+
 	public UiController(InitializrMetadataProvider metadataProvider) {
 		this.metadataProvider = metadataProvider;
 	}
 
+	@EventListener
+	public void onMetadataUpdated(InitializrMetadataUpdatedEvent event) {
+		metadataContents.clear();
+	}
+
 	@GetMapping(path = "/ui/dependencies", produces = "application/json")
-	public ResponseEntity<String> dependencies(
+	public ResponseEntity<byte[]> dependencies(
 			@RequestParam(required = false) String version) {
-		List<DependencyGroup> dependencyGroups = metadataProvider.get()
-				.getDependencies().getContent();
-		List<DependencyItem> content = new ArrayList<>();
+		InitializrMetadata metadata = metadataProvider.get();
 		Version v = StringUtils.isEmpty(version) ? null : Version.parse(version);
+		MetadataContent json = metadataContents.get(metadata,
+				(v != null ? v.toString() : ""), () -> writeDependencies(metadata, v));
+		return ResponseEntity.ok()
+				.contentType(new MediaType(MediaType.APPLICATION_JSON,
+						StandardCharsets.UTF_8))
+				.eTag(json.getETag()).body(json.getContent());
+	}
+
+	private static String writeDependencies(InitializrMetadata metadata, Version v) {
+		List<DependencyGroup> dependencyGroups = metadata.getDependencies().getContent();
+		List<DependencyItem> content = new ArrayList<>();
 		dependencyGroups.forEach(g -> g.getContent().forEach(d -> {
 			if (v != null && d.getVersionRange() != null) {
 				if (d.match(v)) {
@@ -68,9 +91,7 @@ public class UiController {
 				content.add(new DependencyItem(g.getName(), d));
 			}
 		}));
-		String json = writeDependencies(content);
-		return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).
-				eTag(createUniqueId(json)).body(json);
+		return writeDependencies(content);
 	}
 
 	private static String writeDependencies(List<DependencyItem> items) {
@@ -111,10 +132,4 @@ public class UiController {
 		}
 	}
 
-	private String createUniqueId(String content) {
-		StringBuilder builder = new StringBuilder();
-		DigestUtils.appendMd5DigestAsHex(content.getBytes(StandardCharsets.UTF_8), builder);
-		return builder.toString();
-	}
-
 }
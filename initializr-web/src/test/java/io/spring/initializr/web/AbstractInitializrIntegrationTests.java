@@ -27,7 +27,7 @@ import java.util.List;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.DefaultMetadataElement;
 import io.spring.initializr.metadata.InitializrMetadataBuilder;
 import io.spring.initializr.metadata.InitializrMetadataProvider;
 import io.spring.initializr.metadata.InitializrProperties;
@@ -294,8 +294,9 @@ public abstract class AbstractInitializrIntegrationTests {
 					.fromInitializrProperties(properties).build(), new ObjectMapper(),
 					new RestTemplate()) {
 				@Override
-				protected void updateInitializrMetadata(InitializrMetadata metadata) {
+				protected List<DefaultMetadataElement> fetchBootVersions() {
 					// Disable metadata fetching from spring.io
+					return null;
 				}
 			};
 		}
@@ -16,6 +16,8 @@
 
 package io.spring.initializr.web.autoconfigure;
 
+import java.util.concurrent.ExecutorService;
+
 import io.spring.initializr.metadata.InitializrMetadataProvider;
 import org.junit.Test;
 
@@ -59,6 +61,25 @@ public class InitializrAutoConfigurationTests {
 				});
 	}
 
+	@Test
+	public void metadataIsRefreshedInTheBackgroundByDefault() {
+		this.contextRunner.run((context) -> assertThat(new DirectFieldAccessor(
+				context.getBean(InitializrMetadataProvider.class))
+				.getPropertyValue("refresher")).isNotNull());
+	}
+
+	@Test
+	public void periodicMetadataRefreshCanBeDisabled() {
+		this.contextRunner.withPropertyValues("initializr.metadata.refresh.enabled=false")
+				.run((context) -> {
+					Object refresher = new DirectFieldAccessor(
+							context.getBean(InitializrMetadataProvider.class))
+							.getPropertyValue("refresher");
+					assertThat(refresher).isInstanceOf(ExecutorService.class);
+					assertThat(((ExecutorService) refresher).isShutdown()).isTrue();
+				});
+	}
+
 	@Configuration
 	static class CustomRestTemplateConfiguration {
 
@@ -47,7 +47,8 @@ public class InitializrMetadataJsonMapperTests {
 		String json = jsonMapper.write(metadata, null);
 		JsonNode result = objectMapper.readTree(json);
 		assertEquals("/foo.zip?type=foo{&dependencies,packaging,javaVersion,language,bootVersion," +
-				"groupId,artifactId,version,name,description,packageName}", get(result, "_links.foo.href"));
+				"groupId,artifactId,version,name,description,packageName,compression}",
+				get(result, "_links.foo.href"));
 	}
 
 	@Test
@@ -58,10 +59,22 @@ public class InitializrMetadataJsonMapperTests {
 		String json = jsonMapper.write(metadata, "http://server:8080/my-app");
 		JsonNode result = objectMapper.readTree(json);
 		assertEquals("http://server:8080/my-app/foo.zip?type=foo{&dependencies,packaging,javaVersion," +
-						"language,bootVersion,groupId,artifactId,version,name,description,packageName}",
+						"language,bootVersion,groupId,artifactId,version,name,description,packageName," +
+						"compression}",
 				get(result, "_links.foo.href"));
 	}
 
+	@Test
+	public void buildLinkHasNoCompression() throws IOException {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addType("foo", true, "/pom.xml", "none", "test")
+				.addDependencyGroup("foo", "one", "two").build();
+		String json = jsonMapper.write(metadata, null);
+		JsonNode result = objectMapper.readTree(json);
+		assertEquals("/pom.xml?type=foo{&dependencies,packaging,javaVersion,language,bootVersion," +
+				"groupId,artifactId,version,name,description,packageName}", get(result, "_links.foo.href"));
+	}
+
 	@Test
 	public void linksRendered() {
 		Dependency dependency = Dependency.withId("foo", "com.example", "foo");
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.spring.initializr.generator.InvalidProjectRequestException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ArchiveCompressionPolicy}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ArchiveCompressionPolicyTests {
+
+	@Rule
+	public final ExpectedException thrown = ExpectedException.none();
+
+	private final GenerationProperties.Compression properties =
+			new GenerationProperties.Compression();
+
+	@Test
+	public void defaultLevel() {
+		assertThat(resolve(null, 0)).isEqualTo(ArchiveCompression.DEFAULT);
+		assertThat(resolve("", 0)).isEqualTo(ArchiveCompression.DEFAULT);
+	}
+
+	@Test
+	public void customDefaultLevel() {
+		properties.setLevel(ArchiveCompression.BEST);
+		assertThat(resolve(null, 0)).isEqualTo(ArchiveCompression.BEST);
+	}
+
+	@Test
+	public void requestedLevel() {
+		assertThat(resolve("store", 0)).isEqualTo(ArchiveCompression.STORE);
+		assertThat(resolve("FAST", 0)).isEqualTo(ArchiveCompression.FAST);
+		assertThat(resolve("best", 0)).isEqualTo(ArchiveCompression.BEST);
+	}
+
+	@Test
+	public void forcedLevel() {
+		properties.setForceLevel(ArchiveCompression.STORE);
+		assertThat(resolve("best", 0)).isEqualTo(ArchiveCompression.STORE);
+	}
+
+	@Test
+	public void loadLevelCapsRequestedLevel() {
+		properties.setLoadThreshold(0.8);
+		assertThat(resolve("best", 0.5)).isEqualTo(ArchiveCompression.BEST);
+		assertThat(resolve("best", 2)).isEqualTo(ArchiveCompression.FAST);
+		assertThat(resolve("store", 2)).isEqualTo(ArchiveCompression.STORE);
+	}
+
+	@Test
+	public void loadIgnoredWithoutThreshold() {
+		assertThat(resolve("best", 10)).isEqualTo(ArchiveCompression.BEST);
+	}
+
+	@Test
+	public void invalidLevel() {
+		thrown.expect(InvalidProjectRequestException.class);
+		thrown.expectMessage("store, fast, default, best");
+		resolve("ultra", 0);
+	}
+
+	private ArchiveCompression resolve(String hint, double load) {
+		return new ArchiveCompressionPolicy(properties, () -> load).resolve(hint);
+	}
+
+}
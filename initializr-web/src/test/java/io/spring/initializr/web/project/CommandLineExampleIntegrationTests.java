@@ -66,6 +66,13 @@ public class CommandLineExampleIntegrationTests
 				.contains("spring-boot-starter-data-jpa");
 	}
 
+	@Test
+	public void generateStoredProject() {
+		downloadZip("/starter.zip?compression=store").isJavaProject()
+				.isMavenProject().pomAssert()
+				.hasSpringBootStarterRootDependency();
+	}
+
 	@Test
 	public void generateMavenPomWithWarPackaging() {
 		ResponseEntity<String> response = getRestTemplate().getForEntity(
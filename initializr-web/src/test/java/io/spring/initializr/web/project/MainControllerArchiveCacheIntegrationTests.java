@@ -0,0 +1,65 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the archive cache.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+@TestPropertySource(properties = "initializr.generation.cache.enabled=true")
+public class MainControllerArchiveCacheIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Autowired
+	private ProjectArchiveCache archiveCache;
+
+	@Test
+	public void equivalentRequestIsServedFromCache() {
+		downloadZip("/starter.zip?style=web&style=jpa&artifactId=cached")
+				.isJavaProject("com.example.cached", "DemoApplication").isMavenProject();
+		long hits = archiveCache.getHitCount();
+		downloadZip("/starter.zip?style=data-jpa&style=web&artifactId=cached")
+				.isJavaProject("com.example.cached", "DemoApplication")
+				.hasExecutableFile("mvnw").isMavenProject().pomAssert()
+				.hasDependenciesCount(3).hasSpringBootStarterDependency("web")
+				.hasSpringBootStarterDependency("data-jpa");
+		assertThat(archiveCache.getHitCount()).isEqualTo(hits + 1);
+	}
+
+	@Test
+	public void formatIsPartOfTheKey() {
+		downloadZip("/starter.zip?style=web&artifactId=format")
+				.isJavaProject("com.example.format", "DemoApplication");
+		long hits = archiveCache.getHitCount();
+		downloadTgz("/starter.tgz?style=web&artifactId=format")
+				.isJavaProject("com.example.format", "DemoApplication")
+				.hasExecutableFile("mvnw");
+		assertThat(archiveCache.getHitCount()).isEqualTo(hits);
+	}
+
+}
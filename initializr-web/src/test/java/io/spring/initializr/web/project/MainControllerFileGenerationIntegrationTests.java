@@ -0,0 +1,76 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the file-based project generation.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+@TestPropertySource(properties = "initializr.generation.streaming=false")
+public class MainControllerFileGenerationIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Test
+	public void simpleZipProject() {
+		downloadZip("/starter.zip?style=web&style=jpa").isJavaProject()
+				.hasFile(".gitignore")
+				.hasExecutableFile("mvnw").isMavenProject()
+				.hasStaticAndTemplatesResources(true).pomAssert().hasDependenciesCount(3)
+				.hasSpringBootStarterDependency("web")
+				.hasSpringBootStarterDependency("data-jpa")
+				.hasSpringBootStarterTest();
+	}
+
+	@Test
+	public void simpleTgzProject() {
+		downloadTgz("/starter.tgz?style=org.acme:foo").isJavaProject()
+				.hasFile(".gitignore")
+				.hasExecutableFile("mvnw").isMavenProject()
+				.hasStaticAndTemplatesResources(false).pomAssert().hasDependenciesCount(2)
+				.hasDependency("org.acme", "foo", "1.3.5");
+	}
+
+	@Test
+	public void archiveHasContentLength() {
+		ResponseEntity<byte[]> entity = execute("/starter.zip?style=web", byte[].class,
+				null, (String[]) null);
+		assertThat(entity.getHeaders().getContentLength())
+				.isEqualTo(entity.getBody().length);
+		assertThat(entity.getHeaders().getContentType().toString())
+				.isEqualTo("application/zip");
+		zipProjectAssert(entity.getBody()).isJavaProject().isMavenProject();
+	}
+
+	@Test
+	public void gradleZipProjectWithBaseDir() {
+		downloadZip("/starter.zip?style=web&type=gradle-project&baseDir=my-project")
+				.hasBaseDir("my-project").isJavaProject().isGradleProject()
+				.hasExecutableFile("gradlew");
+	}
+
+}
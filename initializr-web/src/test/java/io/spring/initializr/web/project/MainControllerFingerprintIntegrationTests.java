@@ -0,0 +1,103 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.net.URI;
+
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the fingerprint of generated archives.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+public class MainControllerFingerprintIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Test
+	public void archiveHasETag() {
+		ResponseEntity<byte[]> response = get("/starter.zip?dependencies=web", null);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getETag()).startsWith("W/");
+		assertThat(get("/starter.zip?dependencies=web", null).getHeaders().getETag())
+				.isEqualTo(response.getHeaders().getETag());
+		assertThat(get("/starter.tgz?dependencies=web", null).getHeaders().getETag())
+				.isNotEqualTo(response.getHeaders().getETag());
+	}
+
+	@Test
+	public void matchingETagIsNotModified() {
+		String etag = get("/starter.zip?dependencies=web", null).getHeaders().getETag();
+		ResponseEntity<byte[]> response = get("/starter.zip?dependencies=web", etag);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(response.getBody()).isNull();
+	}
+
+	@Test
+	public void staleFingerprintRedirectsToImmutableUrl() {
+		ResponseEntity<byte[]> response = get("/starter/stale.zip?dependencies=web"
+				+ "&artifactId=immutable&description=demo", null);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FOUND);
+		String location = pathOf(response.getHeaders().getLocation());
+		assertThat(location).startsWith("/starter/").contains(".zip?")
+				.contains("artifactId=immutable").contains("dependencies=web");
+		ResponseEntity<byte[]> archive = get(location, null);
+		assertThat(archive.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(archive.getHeaders().getCacheControl()).contains("max-age");
+		assertThat(location).contains(archive.getHeaders().getETag()
+				.replace("W/", "").replace("\"", ""));
+		zipProjectAssert(archive.getBody())
+				.isJavaProject("com.example.immutable", "DemoApplication")
+				.isMavenProject();
+	}
+
+	@Test
+	public void immutableUrlWithMatchingETagIsNotModified() {
+		String location = pathOf(
+				get("/starter/stale.tgz?dependencies=web&description=demo", null)
+						.getHeaders().getLocation());
+		String etag = get(location, null).getHeaders().getETag();
+		ResponseEntity<byte[]> response = get(location, etag);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(response.getHeaders().getCacheControl()).contains("max-age");
+	}
+
+	private ResponseEntity<byte[]> get(String context, String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		if (etag != null) {
+			headers.setIfNoneMatch(etag);
+		}
+		return getRestTemplate().exchange(createUrl(context), HttpMethod.GET,
+				new HttpEntity<Void>(headers), byte[].class);
+	}
+
+	private static String pathOf(URI uri) {
+		return uri.getPath() + "?" + uri.getQuery();
+	}
+
+}
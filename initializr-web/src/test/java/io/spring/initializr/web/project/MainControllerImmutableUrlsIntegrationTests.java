@@ -0,0 +1,53 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import io.spring.initializr.web.AbstractFullStackInitializrIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the redirection to the immutable URL of archives.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+@TestPropertySource(properties = "initializr.generation.immutable-urls=true")
+public class MainControllerImmutableUrlsIntegrationTests
+		extends AbstractFullStackInitializrIntegrationTests {
+
+	@Test
+	public void archiveIsServedFromImmutableUrl() {
+		ResponseEntity<byte[]> response = getRestTemplate().getForEntity(
+				createUrl("/starter.zip?dependencies=web&name=My Project"),
+				byte[].class);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getCacheControl()).contains("max-age")
+				.doesNotContain("immutable");
+		assertThat(response.getHeaders().getETag()).startsWith("W/");
+		zipProjectAssert(response.getBody())
+				.isJavaProject("com.example.demo", "MyProjectApplication").isMavenProject()
+				.pomAssert().hasName("My Project");
+	}
+
+}
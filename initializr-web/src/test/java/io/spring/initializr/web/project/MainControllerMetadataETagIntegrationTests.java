@@ -0,0 +1,94 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.web.project;
+
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration tests for the {@code ETag} of the metadata endpoints.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+public class MainControllerMetadataETagIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Test
+	public void metadataETagIsStable() {
+		ResponseEntity<String> response = get("/", "application/json", null);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(response.getHeaders().getETag()).isNotNull();
+		assertThat(get("/", "application/json", null).getHeaders().getETag())
+				.isEqualTo(response.getHeaders().getETag());
+		assertThat(get("/", "application/vnd.initializr.v2+json", null).getHeaders()
+				.getETag()).isNotEqualTo(response.getHeaders().getETag());
+	}
+
+	@Test
+	public void metadataWithMatchingETagIsNotModified() {
+		assertNotModified("/", "application/json");
+	}
+
+	@Test
+	public void dependenciesWithMatchingETagIsNotModified() {
+		assertNotModified("/dependencies?bootVersion=1.1.4.RELEASE", "application/json");
+	}
+
+	@Test
+	public void dependenciesETagDependsOnBootVersion() {
+		String etag = get("/dependencies?bootVersion=1.1.4.RELEASE", "application/json",
+				null).getHeaders().getETag();
+		assertThat(get("/dependencies?bootVersion=1.2.1.RELEASE", "application/json",
+				null).getHeaders().getETag()).isNotEqualTo(etag);
+	}
+
+	@Test
+	public void uiDependenciesWithMatchingETagIsNotModified() {
+		assertNotModified("/ui/dependencies?version=1.1.4.RELEASE", "application/json");
+	}
+
+	private void assertNotModified(String context, String accept) {
+		String etag = get(context, accept, null).getHeaders().getETag();
+		assertThat(etag).isNotNull();
+		ResponseEntity<String> response = get(context, accept, etag);
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(response.getBody()).isNull();
+	}
+
+	private ResponseEntity<String> get(String context, String accept, String etag) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(MediaType.parseMediaTypes(accept));
+		if (etag != null) {
+			headers.setIfNoneMatch(etag);
+		}
+		return getRestTemplate().exchange(createUrl(context), HttpMethod.GET,
+				new HttpEntity<Void>(headers), String.class);
+	}
+
+}
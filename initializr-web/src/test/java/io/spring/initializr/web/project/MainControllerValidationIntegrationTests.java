@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.spring.initializr.web.AbstractFullStackInitializrIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.client.HttpClientErrorException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration tests for the validation endpoint of {@link MainController}.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+public class MainControllerValidationIntegrationTests
+		extends AbstractFullStackInitializrIntegrationTests {
+
+	@Test
+	public void validRequest() {
+		JsonNode json = parseJson(getRestTemplate().getForObject(
+				createUrl("/validate?dependencies=web,my-api"), String.class));
+		assertThat(json.at("/valid").asBoolean()).isTrue();
+		assertThat(json.at("/bootVersion").asText()).isEqualTo("1.1.4.RELEASE");
+		assertThat(json.at("/build").asText()).isEqualTo("maven");
+		assertThat(json.at("/dependencies/web/artifactId").asText())
+				.isEqualTo("spring-boot-starter-web");
+		assertThat(json.at("/dependencies/my-api/bom").asText())
+				.isEqualTo("my-api-bom");
+		assertThat(json.at("/boms/my-api-bom/version").asText())
+				.isEqualTo("1.0.0.RELEASE");
+		assertThat(json.at("/boms/my-api-dependencies-bom").isMissingNode()).isFalse();
+		assertThat(json.at("/repositories/my-api-repo-1/url").asText())
+				.isEqualTo("http://example.com/repo1");
+	}
+
+	@Test
+	public void validRequestUsesType() {
+		JsonNode json = parseJson(getRestTemplate().getForObject(
+				createUrl("/validate?type=gradle-project"), String.class));
+		assertThat(json.at("/valid").asBoolean()).isTrue();
+		assertThat(json.at("/build").asText()).isEqualTo("gradle");
+		assertThat(json.at("/dependencies/root_starter/artifactId").asText())
+				.isEqualTo("spring-boot-starter");
+	}
+
+	@Test
+	public void incompatibleDependency() {
+		JsonNode json = validateInvalid("/validate?dependencies=org.acme:biz");
+		assertThat(json.at("/valid").asBoolean()).isFalse();
+		assertThat(json.at("/errors/0/message").asText()).contains("org.acme:biz",
+				"1.1.4.RELEASE");
+	}
+
+	@Test
+	public void unknownDependency() {
+		JsonNode json = validateInvalid("/validate?dependencies=web,foo-bar");
+		assertThat(json.at("/errors").size()).isEqualTo(1);
+		assertThat(json.at("/errors/0/message").asText()).contains("foo-bar");
+	}
+
+	private JsonNode validateInvalid(String context) {
+		try {
+			getRestTemplate().getForObject(createUrl(context), String.class);
+			fail("Should have failed to validate " + context);
+			return null;
+		}
+		catch (HttpClientErrorException ex) {
+			assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+			assertThat(ex.getResponseHeaders().getContentType()
+					.isCompatibleWith(MediaType.APPLICATION_JSON)).isTrue();
+			return parseJson(ex.getResponseBodyAsString());
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ParallelGzipOutputStream}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ParallelGzipOutputStreamTests {
+
+	private static final int BLOCK_SIZE = 1024;
+
+	@Test
+	public void emptyContent() throws IOException {
+		assertRoundTrip(new byte[0]);
+	}
+
+	@Test
+	public void contentSmallerThanBlock() throws IOException {
+		assertRoundTrip(generateContent(BLOCK_SIZE / 2));
+	}
+
+	@Test
+	public void contentMatchingBlockSize() throws IOException {
+		assertRoundTrip(generateContent(BLOCK_SIZE));
+	}
+
+	@Test
+	public void contentSpanningSeveralBlocks() throws IOException {
+		assertRoundTrip(generateContent(BLOCK_SIZE * 100 + 42));
+	}
+
+	@Test
+	public void singleByteWrites() throws IOException {
+		byte[] content = generateContent(BLOCK_SIZE * 3 + 1);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ParallelGzipOutputStream gzip = createStream(out)) {
+			for (byte b : content) {
+				gzip.write(b);
+			}
+		}
+		assertThat(gunzip(out.toByteArray())).isEqualTo(content);
+	}
+
+	@Test
+	public void finishDoesNotCloseUnderlyingStream() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream() {
+			@Override
+			public void close() {
+				throw new IllegalStateException("Should not be closed");
+			}
+		};
+		ParallelGzipOutputStream gzip = createStream(out);
+		gzip.write(generateContent(BLOCK_SIZE * 2));
+		gzip.finish();
+		assertThat(out.size()).isGreaterThan(0);
+	}
+
+	private void assertRoundTrip(byte[] content) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (ParallelGzipOutputStream gzip = createStream(out)) {
+			gzip.write(content);
+		}
+		assertThat(gunzip(out.toByteArray())).isEqualTo(content);
+	}
+
+	private ParallelGzipOutputStream createStream(ByteArrayOutputStream out) {
+		return new ParallelGzipOutputStream(out, ForkJoinPool.commonPool(),
+				Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE);
+	}
+
+	private static byte[] gunzip(byte[] content) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(
+				new ByteArrayInputStream(content))) {
+			return StreamUtils.copyToByteArray(in);
+		}
+	}
+
+	private static byte[] generateContent(int size) {
+		Random random = new Random(size);
+		byte[] content = new byte[size];
+		for (int i = 0; i < size; i++) {
+			// Mix of compressible text and noise
+			content[i] = (byte) (random.nextInt(10) < 7 ? 'a' + random.nextInt(4)
+					: random.nextInt());
+		}
+		return content;
+	}
+
+}
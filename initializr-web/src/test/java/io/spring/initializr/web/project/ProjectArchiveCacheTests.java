@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.util.Collections;
+
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.Dependency;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProjectArchiveCache}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectArchiveCacheTests {
+
+	private final InitializrMetadata metadata = createMetadata();
+
+	private final ProjectArchiveCache cache = new ProjectArchiveCache(100);
+
+	@Test
+	public void keyIgnoresDependenciesOrder() {
+		assertThat(createKey("web", "data-jpa"))
+				.isEqualTo(createKey("data-jpa", "web"));
+	}
+
+	@Test
+	public void keyResolvesAliases() {
+		assertThat(createKey("the-web", "web")).isEqualTo(createKey("web"));
+	}
+
+	@Test
+	public void keyAppliesDefaultBootVersion() {
+		ProjectRequest request = createRequest("web");
+		request.setBootVersion(null);
+		assertThat(cache.createKey(request, metadata, "zip"))
+				.isEqualTo(createKey("web"));
+	}
+
+	@Test
+	public void keyDependsOnFormat() {
+		ProjectRequest request = createRequest("web");
+		assertThat(cache.createKey(request, metadata, "zip"))
+				.isNotEqualTo(cache.createKey(request, metadata, "tar.gz"));
+	}
+
+	@Test
+	public void keyDependsOnRequestAttributes() {
+		ProjectRequest request = createRequest("web");
+		request.setArtifactId("another");
+		assertThat(cache.createKey(request, metadata, "zip"))
+				.isNotEqualTo(createKey("web"));
+	}
+
+	@Test
+	public void hitAndMiss() {
+		ProjectArchiveCache.Key key = createKey("web");
+		assertThat(cache.get(key)).isNull();
+		byte[] archive = new byte[10];
+		cache.put(key, archive);
+		assertThat(cache.get(createKey("web"))).isSameAs(archive);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+		assertThat(cache.getSize()).isEqualTo(10);
+		assertThat(cache.getCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void leastRecentlyUsedArchiveIsEvicted() {
+		ProjectArchiveCache.Key first = createKey("web");
+		ProjectArchiveCache.Key second = createKey("data-jpa");
+		ProjectArchiveCache.Key third = createKey("web", "data-jpa");
+		cache.put(first, new byte[40]);
+		cache.put(second, new byte[40]);
+		cache.get(first);
+		cache.put(third, new byte[40]);
+		assertThat(cache.get(first)).isNotNull();
+		assertThat(cache.get(second)).isNull();
+		assertThat(cache.get(third)).isNotNull();
+		assertThat(cache.getSize()).isEqualTo(80);
+		assertThat(cache.getEvictionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void archiveLargerThanMaxSizeIsNotCached() {
+		ProjectArchiveCache.Key key = createKey("web");
+		cache.put(key, new byte[101]);
+		assertThat(cache.get(key)).isNull();
+		assertThat(cache.getSize()).isEqualTo(0);
+	}
+
+	@Test
+	public void metadataUpdateInvalidatesCache() {
+		ProjectArchiveCache.Key key = createKey("web");
+		cache.put(key, new byte[10]);
+		cache.onMetadataUpdated(new InitializrMetadataUpdatedEvent(metadata));
+		assertThat(cache.getCount()).isEqualTo(0);
+		assertThat(cache.getSize()).isEqualTo(0);
+		assertThat(createKey("web")).isNotEqualTo(key);
+	}
+
+	@Test
+	public void keyIgnoresRequestHeadersByDefault() {
+		ProjectRequest request = createRequest("web");
+		request.getParameters().put("user-agent", "curl/1.2.4");
+		assertThat(cache.createKey(request, metadata, "zip"))
+				.isEqualTo(createKey("web"));
+	}
+
+	@Test
+	public void keyIncludesConfiguredRequestHeaders() {
+		ProjectArchiveCache headersCache = new ProjectArchiveCache(100,
+				Collections.singletonList("User-Agent"));
+		ProjectRequest curl = createRequest("web");
+		curl.getParameters().put("user-agent", "curl/1.2.4");
+		ProjectRequest sameCurl = createRequest("web");
+		sameCurl.getParameters().put("User-Agent", "curl/1.2.4");
+		ProjectRequest httpie = createRequest("web");
+		httpie.getParameters().put("user-agent", "HTTPie/0.8.0");
+		assertThat(headersCache.createKey(curl, metadata, "zip"))
+				.isEqualTo(headersCache.createKey(sameCurl, metadata, "zip"));
+		assertThat(headersCache.createKey(curl, metadata, "zip"))
+				.isNotEqualTo(headersCache.createKey(httpie, metadata, "zip"));
+		assertThat(headersCache.createKey(curl, metadata, "zip")).isNotEqualTo(
+				headersCache.createKey(createRequest("web"), metadata, "zip"));
+	}
+
+	@Test
+	public void archiveWithStaleKeyIsIgnored() {
+		ProjectArchiveCache.Key key = createKey("web");
+		cache.invalidate();
+		cache.put(key, new byte[10]);
+		assertThat(cache.getCount()).isEqualTo(0);
+	}
+
+	private ProjectArchiveCache.Key createKey(String... dependencies) {
+		return cache.createKey(createRequest(dependencies), metadata, "zip");
+	}
+
+	private ProjectRequest createRequest(String... dependencies) {
+		ProjectRequest request = new ProjectRequest();
+		request.initialize(metadata);
+		for (String dependency : dependencies) {
+			request.getStyle().add(dependency);
+		}
+		return request;
+	}
+
+	private static InitializrMetadata createMetadata() {
+		Dependency web = Dependency.withId("web");
+		web.getAliases().add("the-web");
+		return InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("core", web, Dependency.withId("data-jpa"))
+				.build();
+	}
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.spring.initializr.generator.InvalidProjectRequestException;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link ProjectArchiveCoalescer}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectArchiveCoalescerTests {
+
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	private final AtomicInteger invocations = new AtomicInteger();
+
+	@After
+	public void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentRequestsShareGeneration() throws Exception {
+		ProjectArchiveCoalescer coalescer = new ProjectArchiveCoalescer(
+				Duration.ofSeconds(10));
+		CountDownLatch release = new CountDownLatch(1);
+		Future<byte[]> first = this.executor
+				.submit(() -> coalescer.generate("key", blockingGenerator(release)));
+		awaitInFlight(coalescer, 1);
+		Future<byte[]> second = this.executor
+				.submit(() -> coalescer.generate("key", blockingGenerator(release)));
+		awaitCoalesced(coalescer, 1);
+		release.countDown();
+		assertThat(second.get(5, TimeUnit.SECONDS))
+				.isSameAs(first.get(5, TimeUnit.SECONDS));
+		assertThat(this.invocations.get()).isEqualTo(1);
+		assertThat(coalescer.getGenerationCount()).isEqualTo(1);
+		assertThat(coalescer.getInFlightCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void sequentialRequestsAreNotCoalesced() throws IOException {
+		ProjectArchiveCoalescer coalescer = new ProjectArchiveCoalescer(
+				Duration.ofSeconds(10));
+		byte[] first = coalescer.generate("key", this::generate);
+		byte[] second = coalescer.generate("key", this::generate);
+		assertThat(first).isNotSameAs(second);
+		assertThat(coalescer.getGenerationCount()).isEqualTo(2);
+		assertThat(coalescer.getCoalescedCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void differentKeysAreNotCoalesced() throws Exception {
+		ProjectArchiveCoalescer coalescer = new ProjectArchiveCoalescer(
+				Duration.ofSeconds(10));
+		CountDownLatch release = new CountDownLatch(1);
+		Future<byte[]> first = this.executor
+				.submit(() -> coalescer.generate("first", blockingGenerator(release)));
+		awaitInFlight(coalescer, 1);
+		assertThat(coalescer.generate("second", this::generate)).isNotNull();
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		assertThat(coalescer.getGenerationCount()).isEqualTo(2);
+		assertThat(coalescer.getCoalescedCount()).isEqualTo(0);
+	}
+
+	@Test
+	public void failureIsPropagatedToWaiters() throws Exception {
+		ProjectArchiveCoalescer coalescer = new ProjectArchiveCoalescer(
+				Duration.ofSeconds(10));
+		CountDownLatch release = new CountDownLatch(1);
+		ProjectArchiveCoalescer.ArchiveGenerator generator = blockingGenerator(release);
+		this.executor.submit(() -> coalescer.generate("key", () -> {
+			generator.generate();
+			throw new InvalidProjectRequestException("Invalid");
+		}));
+		awaitInFlight(coalescer, 1);
+		Future<byte[]> waiter = this.executor
+				.submit(() -> coalescer.generate("key", this::generate));
+		awaitCoalesced(coalescer, 1);
+		release.countDown();
+		try {
+			waiter.get(5, TimeUnit.SECONDS);
+			fail("Should have failed");
+		}
+		catch (ExecutionException ex) {
+			assertThat(ex.getCause()).isInstanceOf(InvalidProjectRequestException.class)
+					.hasMessage("Invalid");
+		}
+		assertThat(this.invocations.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void waiterGeneratesArchiveOnTimeout() throws Exception {
+		ProjectArchiveCoalescer coalescer = new ProjectArchiveCoalescer(
+				Duration.ofMillis(50));
+		CountDownLatch release = new CountDownLatch(1);
+		Future<byte[]> first = this.executor
+				.submit(() -> coalescer.generate("key", blockingGenerator(release)));
+		awaitInFlight(coalescer, 1);
+		byte[] archive = coalescer.generate("key", this::generate);
+		assertThat(archive).isNotNull();
+		assertThat(coalescer.getTimeoutCount()).isEqualTo(1);
+		release.countDown();
+		assertThat(first.get(5, TimeUnit.SECONDS)).isNotSameAs(archive);
+		assertThat(this.invocations.get()).isEqualTo(2);
+	}
+
+	private ProjectArchiveCoalescer.ArchiveGenerator blockingGenerator(
+			CountDownLatch release) {
+		return () -> {
+			try {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return generate();
+		};
+	}
+
+	private byte[] generate() {
+		this.invocations.incrementAndGet();
+		return new byte[] { 1, 2, 3 };
+	}
+
+	private static void awaitInFlight(ProjectArchiveCoalescer coalescer, int count)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (coalescer.getInFlightCount() != count
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(coalescer.getInFlightCount()).isEqualTo(count);
+	}
+
+	private static void awaitCoalesced(ProjectArchiveCoalescer coalescer, long count)
+			throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (coalescer.getCoalescedCount() != count
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(coalescer.getCoalescedCount()).isEqualTo(count);
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.spring.initializr.test.generator.ProjectAssert;
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration tests for {@link ProjectBatchController}.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+public class ProjectBatchControllerIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Test
+	public void generateSeveralProjects() throws IOException {
+		byte[] archive = generate("[{\"artifactId\":\"first\",\"dependencies\":[\"web\"]},"
+				+ "{\"artifactId\":\"second\",\"type\":\"gradle-project\","
+				+ "\"dependencies\":\"web,data-jpa\"}]");
+		ProjectAssert project = zipProjectAssert(archive);
+		project.hasBaseDir("first").isJavaProject("com.example.first", "DemoApplication")
+				.isMavenProject()
+				.hasExecutableFile("mvnw").pomAssert()
+				.hasSpringBootStarterDependency("web");
+		project.hasBaseDir("second")
+				.isJavaProject("com.example.second", "DemoApplication").isGradleProject()
+				.gradleBuildAssert().contains("spring-boot-starter-web")
+				.contains("spring-boot-starter-data-jpa");
+		JsonNode report = readReport(archive);
+		assertThat(report.at("/projects/0/status").asText()).isEqualTo("generated");
+		assertThat(report.at("/projects/1/directory").asText()).isEqualTo("second");
+	}
+
+	@Test
+	public void sameArtifactIdUsesDistinctDirectories() throws IOException {
+		byte[] archive = generate("[{\"artifactId\":\"demo\"},{\"artifactId\":\"demo\"}]");
+		ProjectAssert project = zipProjectAssert(archive);
+		project.hasBaseDir("demo").isMavenProject();
+		project.hasBaseDir("demo-2").isMavenProject();
+	}
+
+	@Test
+	public void invalidProjectDoesNotFailBatch() throws IOException {
+		byte[] archive = generate("[{\"artifactId\":\"valid\"},"
+				+ "{\"artifactId\":\"invalid\",\"type\":\"foo-bar\"}]");
+		zipProjectAssert(archive).hasBaseDir("valid")
+				.isJavaProject("com.example.valid", "DemoApplication").isMavenProject();
+		JsonNode report = readReport(archive);
+		assertThat(report.at("/projects/0/status").asText()).isEqualTo("generated");
+		assertThat(report.at("/projects/1/status").asText()).isEqualTo("failed");
+		assertThat(report.at("/projects/1/error").asText()).contains("foo-bar");
+		assertThat(report.at("/projects/1/directory").isMissingNode()).isTrue();
+	}
+
+	@Test
+	public void emptyBatchIsRejected() {
+		try {
+			generate("[]");
+			fail("Should have failed to generate an empty batch");
+		}
+		catch (HttpClientErrorException ex) {
+			assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	private byte[] generate(String json) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		return getRestTemplate().postForObject(createUrl("/starters.zip"),
+				new HttpEntity<>(json, headers), byte[].class);
+	}
+
+	private JsonNode readReport(byte[] archive) throws IOException {
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(archive))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (entry.getName().equals(ProjectBatchController.REPORT_NAME)) {
+					return parseJson(StreamUtils.copyToString(zip,
+							StandardCharsets.UTF_8));
+				}
+			}
+		}
+		throw new IllegalStateException("No report found");
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.spring.initializr.web.AbstractInitializrControllerIntegrationTests;
+import org.junit.Test;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Integration tests for {@link ProjectDeltaController}.
+ *
+ * @author Stephane Nicoll
+ */
+@ActiveProfiles("test-default")
+public class ProjectDeltaControllerIntegrationTests
+		extends AbstractInitializrControllerIntegrationTests {
+
+	@Test
+	public void addDependency() throws IOException {
+		Map<String, byte[]> entries = readEntries(
+				generate("{\"from\":{\"dependencies\":[\"web\"]},"
+						+ "\"to\":{\"dependencies\":[\"web\",\"data-jpa\"]}}"));
+		assertThat(entries).containsOnlyKeys("pom.xml",
+				ProjectDeltaController.REPORT_NAME);
+		String pom = new String(entries.get("pom.xml"), StandardCharsets.UTF_8);
+		assertThat(pom).contains("spring-boot-starter-data-jpa");
+		JsonNode report = parseJson(new String(
+				entries.get(ProjectDeltaController.REPORT_NAME), StandardCharsets.UTF_8));
+		assertThat(report.at("/added").size()).isEqualTo(0);
+		assertThat(report.at("/modified/0/path").asText()).isEqualTo("pom.xml");
+		assertThat(report.at("/modified/0/hash").asText())
+				.isEqualTo(DigestUtils.md5DigestAsHex(entries.get("pom.xml")));
+		assertThat(report.at("/removed").size()).isEqualTo(0);
+	}
+
+	@Test
+	public void identicalProjects() throws IOException {
+		Map<String, byte[]> entries = readEntries(
+				generate("{\"from\":{\"dependencies\":[\"web\"]},"
+						+ "\"to\":{\"dependencies\":\"web\"}}"));
+		assertThat(entries).containsOnlyKeys(ProjectDeltaController.REPORT_NAME);
+	}
+
+	@Test
+	public void switchBuildSystem() throws IOException {
+		Map<String, byte[]> entries = readEntries(generate(
+				"{\"from\":{},\"to\":{\"type\":\"gradle-project\"}}"));
+		assertThat(entries).containsKeys("build.gradle", "gradlew",
+				".gitignore").doesNotContainKeys("pom.xml", "mvnw");
+		JsonNode report = parseJson(new String(
+				entries.get(ProjectDeltaController.REPORT_NAME), StandardCharsets.UTF_8));
+		assertThat(report.at("/removed").toString()).contains("\"pom.xml\"",
+				"\"mvnw\"");
+	}
+
+	@Test
+	public void missingProjectIsRejected() {
+		try {
+			generate("{\"from\":{}}");
+			fail("Should have failed to generate a delta without target");
+		}
+		catch (HttpClientErrorException ex) {
+			assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+		}
+	}
+
+	private byte[] generate(String json) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		return getRestTemplate().postForObject(createUrl("/starter.delta.zip"),
+				new HttpEntity<>(json, headers), byte[].class);
+	}
+
+	private static Map<String, byte[]> readEntries(byte[] archive) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		try (ZipInputStream zip = new ZipInputStream(
+				new ByteArrayInputStream(archive))) {
+			ZipEntry entry;
+			while ((entry = zip.getNextEntry()) != null) {
+				if (!entry.isDirectory()) {
+					entries.put(entry.getName(), StreamUtils.copyToByteArray(zip));
+				}
+			}
+		}
+		return entries;
+	}
+
+}
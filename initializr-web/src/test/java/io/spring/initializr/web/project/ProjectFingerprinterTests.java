@@ -0,0 +1,146 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.util.Collections;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.spring.initializr.generator.ProjectRequest;
+import io.spring.initializr.metadata.DefaultMetadataElement;
+import io.spring.initializr.metadata.Dependency;
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ProjectFingerprinter}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ProjectFingerprinterTests {
+
+	private final InitializrMetadata metadata = createMetadata();
+
+	private final ProjectFingerprinter fingerprinter = new ProjectFingerprinter(
+			new ObjectMapper());
+
+	@Test
+	public void canonicalizeResolvesDependencies() {
+		ProjectRequest request = createRequest("web", "the-web", "data-jpa");
+		request.setBootVersion(null);
+		Map<String, String> attributes = ProjectFingerprinter.canonicalize(request,
+				metadata);
+		assertThat(attributes.get("dependencies")).isEqualTo("data-jpa,web");
+		assertThat(attributes.get("bootVersion")).isEqualTo(
+				metadata.getBootVersions().getDefault().getId());
+		assertThat(attributes.get("compression")).isNull();
+	}
+
+	@Test
+	public void fingerprintIgnoresDependenciesOrder() {
+		assertThat(fingerprint("web", "data-jpa"))
+				.isEqualTo(fingerprint("data-jpa", "the-web"));
+	}
+
+	@Test
+	public void fingerprintDependsOnRequestAttributes() {
+		ProjectRequest request = createRequest("web");
+		request.setArtifactId("another");
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isNotEqualTo(fingerprint("web"));
+	}
+
+	@Test
+	public void fingerprintDependsOnFormat() {
+		ProjectRequest request = createRequest("web");
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isNotEqualTo(fingerprinter.fingerprint(request, metadata, "tgz"));
+	}
+
+	@Test
+	public void fingerprintDependsOnCompressionHint() {
+		ProjectRequest request = createRequest("web");
+		request.setCompression("fast");
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isNotEqualTo(fingerprint("web"));
+	}
+
+	@Test
+	public void metadataUpdateChangesFingerprint() {
+		ProjectRequest request = createRequest("web");
+		request.setBootVersion("1.5.0.RELEASE");
+		String fingerprint = fingerprinter.fingerprint(request, metadata, "zip");
+		DefaultMetadataElement bootVersion = DefaultMetadataElement
+				.create("2.0.1.RELEASE", true);
+		metadata.updateSpringBootVersions(Collections.singletonList(bootVersion));
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isEqualTo(fingerprint);
+		fingerprinter.onMetadataUpdated(new InitializrMetadataUpdatedEvent(metadata));
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	public void fingerprintDependsOnConfiguredRequestHeaders() {
+		ProjectFingerprinter fingerprinter = new ProjectFingerprinter(new ObjectMapper(),
+				Collections.singletonList("X-Tenant"));
+		ProjectRequest request = createRequest("web");
+		String fingerprint = fingerprinter.fingerprint(request, metadata, "zip");
+		request.getParameters().put("x-tenant", "acme");
+		assertThat(fingerprinter.fingerprint(request, metadata, "zip"))
+				.isNotEqualTo(fingerprint);
+		request.getParameters().put("user-agent", "curl");
+		assertThat(this.fingerprinter.fingerprint(request, metadata, "zip"))
+				.isEqualTo(fingerprint("web"));
+	}
+
+	@Test
+	public void metadataIdDependsOnMetadataInstance() {
+		String id = fingerprinter.getMetadataId(metadata);
+		assertThat(fingerprinter.getMetadataId(metadata)).isEqualTo(id);
+		InitializrMetadata another = InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("core", "web").build();
+		assertThat(fingerprinter.getMetadataId(another)).isNotEqualTo(id);
+		assertThat(fingerprinter.getMetadataId(metadata)).isEqualTo(id);
+	}
+
+		private String fingerprint(String... dependencies) {
+		return fingerprinter.fingerprint(createRequest(dependencies), metadata, "zip");
+	}
+
+	private ProjectRequest createRequest(String... dependencies) {
+		ProjectRequest request = new ProjectRequest();
+		request.initialize(metadata);
+		for (String dependency : dependencies) {
+			request.getDependencies().add(dependency);
+		}
+		return request;
+	}
+
+	private static InitializrMetadata createMetadata() {
+		Dependency web = Dependency.withId("web");
+		web.getAliases().add("the-web");
+		return InitializrMetadataTestBuilder.withDefaults()
+				.addDependencyGroup("core", web, Dependency.withId("data-jpa"))
+				.build();
+	}
+
+}
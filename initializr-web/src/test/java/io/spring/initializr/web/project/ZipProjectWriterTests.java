@@ -0,0 +1,176 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.spring.initializr.web.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.tools.zip.UnixStat;
+import org.apache.tools.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ZipProjectWriter}.
+ *
+ * @author Stephane Nicoll
+ */
+public class ZipProjectWriterTests {
+
+	@Rule
+	public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final Map<String, ZipProjectWriter.CompressedContent> resources =
+			new ConcurrentHashMap<>();
+
+	@Test
+	public void entriesAreReadable() throws IOException {
+		byte[] jar = new byte[4096];
+		new Random(42).nextBytes(jar);
+		File archive = write(writer -> {
+			writer.writeFile("demo/pom.xml",
+					"<project>été</project>".getBytes(StandardCharsets.UTF_8), false);
+			writer.writeResource("demo/mvnw", "classpath:mvnw",
+					() -> "#!/bin/sh\n".getBytes(StandardCharsets.UTF_8), true);
+			writer.writeResource("demo/.mvn/wrapper/maven-wrapper.jar",
+					"classpath:maven-wrapper.jar", () -> jar, false);
+			writer.writeDirectory("demo/src/main/resources/static");
+		});
+		Map<String, byte[]> entries = readEntries(archive);
+		assertThat(entries).containsOnlyKeys("demo/", "demo/pom.xml", "demo/mvnw",
+				"demo/.mvn/", "demo/.mvn/wrapper/", "demo/.mvn/wrapper/maven-wrapper.jar",
+				"demo/src/", "demo/src/main/", "demo/src/main/resources/",
+				"demo/src/main/resources/static/");
+		assertThat(new String(entries.get("demo/pom.xml"), StandardCharsets.UTF_8))
+				.isEqualTo("<project>été</project>");
+		assertThat(entries.get("demo/.mvn/wrapper/maven-wrapper.jar")).isEqualTo(jar);
+	}
+
+	@Test
+	public void unixModes() throws IOException {
+		File archive = write(writer -> {
+			writer.writeFile("pom.xml", new byte[] { 1, 2, 3 }, false);
+			writer.writeResource("mvnw", "classpath:mvnw", () -> new byte[] { 4 },
+					true);
+			writer.writeDirectory("src");
+		});
+		try (ZipFile zip = new ZipFile(archive, "UTF-8")) {
+			assertThat(zip.getEntry("pom.xml").getUnixMode())
+					.isEqualTo(UnixStat.FILE_FLAG | 0644);
+			assertThat(zip.getEntry("mvnw").getUnixMode())
+					.isEqualTo(UnixStat.FILE_FLAG | 0755);
+			assertThat(zip.getEntry("src/").getUnixMode())
+					.isEqualTo(UnixStat.DIR_FLAG | 0755);
+		}
+	}
+
+	@Test
+	public void resourceIsCompressedOnce() throws IOException {
+		AtomicInteger counter = new AtomicInteger();
+		ArchiveCallback callback = writer -> writer.writeResource("mvnw",
+				"classpath:mvnw", () -> {
+					counter.incrementAndGet();
+					return "#!/bin/sh\n".getBytes(StandardCharsets.UTF_8);
+				}, true);
+		File first = write(callback);
+		File second = write(callback);
+		assertThat(counter.get()).isEqualTo(1);
+		assertThat(resources).containsOnlyKeys("classpath:mvnw");
+		assertThat(readEntries(first).get("mvnw"))
+				.isEqualTo(readEntries(second).get("mvnw"));
+	}
+
+	@Test
+	public void storeCompression() throws IOException {
+		byte[] content = new byte[1024];
+		File archive = write(writer -> {
+			writer.writeFile("pom.xml", content, false);
+			writer.writeResource("mvnw", "classpath:mvnw", () -> content, true);
+		}, ArchiveCompression.STORE);
+		try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(archive)) {
+			for (java.util.zip.ZipEntry entry : Collections.list(zip.entries())) {
+				assertThat(entry.getMethod()).isEqualTo(java.util.zip.ZipEntry.STORED);
+				assertThat(entry.getCompressedSize()).isEqualTo(content.length);
+			}
+		}
+		assertThat(readEntries(archive).get("mvnw")).isEqualTo(content);
+		assertThat(resources).isEmpty();
+	}
+
+	@Test
+	public void closeReleasesDeflaterOfUnfinishedArchive() throws IOException {
+		ZipProjectWriter writer = new ZipProjectWriter(new ByteArrayOutputStream(),
+				resources, ArchiveCompression.DEFAULT);
+		writer.writeFile("pom.xml", new byte[1024], false);
+		writer.close();
+		assertThatThrownBy(() -> writer.writeFile("build.gradle", new byte[1024], false))
+				.isInstanceOf(NullPointerException.class)
+				.hasMessageContaining("Deflater has been closed");
+	}
+
+	private File write(ArchiveCallback callback) throws IOException {
+		return write(callback, ArchiveCompression.DEFAULT);
+	}
+
+	private File write(ArchiveCallback callback, ArchiveCompression compression)
+			throws IOException {
+		File archive = temporaryFolder.newFile();
+		try (OutputStream out = new FileOutputStream(archive);
+				ZipProjectWriter writer = new ZipProjectWriter(out, resources,
+						compression)) {
+			callback.write(writer);
+			writer.finish();
+		}
+		return archive;
+	}
+
+	private static Map<String, byte[]> readEntries(File archive) throws IOException {
+		Map<String, byte[]> entries = new LinkedHashMap<>();
+		try (java.util.zip.ZipFile zip = new java.util.zip.ZipFile(archive)) {
+			for (java.util.zip.ZipEntry entry : Collections.list(zip.entries())) {
+				try (InputStream in = zip.getInputStream(entry)) {
+					entries.put(entry.getName(), StreamUtils.copyToByteArray(in));
+				}
+			}
+		}
+		return entries;
+	}
+
+	private interface ArchiveCallback {
+
+		void write(ZipProjectWriter writer) throws IOException;
+
+	}
+
+}
@@ -16,15 +16,21 @@
 
 package io.spring.initializr.web.support;
 
+import java.time.Duration;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.spring.initializr.metadata.DefaultMetadataElement;
 import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.metadata.InvalidInitializrMetadataException;
+import io.spring.initializr.metadata.InitializrMetadataUpdatedEvent;
 import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -34,7 +40,15 @@ import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
@@ -69,6 +83,7 @@ public class DefaultInitializrMetadataProviderTests {
 		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
 				"metadata/sagan/spring-boot.json");
 
+		assertTrue(provider.refresh());
 		InitializrMetadata updatedMetadata = provider.get();
 		assertNotNull(updatedMetadata.getBootVersions());
 		List<DefaultMetadataElement> updatedBootVersions =
@@ -92,6 +107,7 @@ public class DefaultInitializrMetadataProviderTests {
 		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
 				"metadata/sagan/spring-boot-no-default.json");
 
+		assertTrue(provider.refresh());
 		InitializrMetadata updatedMetadata = provider.get();
 		assertNotNull(updatedMetadata.getBootVersions());
 		List<DefaultMetadataElement> updatedBootVersions =
@@ -103,6 +119,230 @@ public class DefaultInitializrMetadataProviderTests {
 		assertBootVersion(updatedBootVersions.get(3), "1.2.5", false);
 	}
 
+	@Test
+	public void updateIsPublished() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		provider.setApplicationEventPublisher(eventPublisher);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+
+		assertTrue(provider.refresh());
+		ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+		verify(eventPublisher).publishEvent(event.capture());
+		assertSame(provider.get(),
+				((InitializrMetadataUpdatedEvent) event.getValue()).getMetadata());
+	}
+
+	@Test
+	public void updateCreatesNewSnapshot() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		assertEquals(1, provider.getSnapshotId());
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+
+		assertTrue(provider.refresh());
+		assertEquals(2, provider.getSnapshotId());
+		assertNotSame(metadata, provider.get());
+		assertEquals(4, provider.get().getBootVersions().getContent().size());
+		assertEquals(1, metadata.getBootVersions().getContent().size());
+		assertEquals("0.0.9.RELEASE", metadata.getBootVersions().getDefault().getId());
+	}
+
+	@Test
+	public void refreshKeepsMetadataType() {
+		CustomInitializrMetadata metadata = new CustomInitializrMetadata();
+		metadata.merge(new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build());
+		metadata.setTheme("dark");
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+
+		assertTrue(provider.refresh());
+		assertNotSame(metadata, provider.get());
+		assertTrue(provider.get() instanceof CustomInitializrMetadata);
+		assertEquals("dark", ((CustomInitializrMetadata) provider.get()).getTheme());
+		assertEquals("0.0.9.RELEASE", metadata.getBootVersions().getDefault().getId());
+	}
+
+	@Test
+	public void identicalUpdateKeepsSnapshot() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		String url = metadata.getConfiguration().getEnv().getSpringBootMetadataUrl();
+		expectJson(url, "metadata/sagan/spring-boot.json");
+		expectJson(url, "metadata/sagan/spring-boot.json");
+
+		assertTrue(provider.refresh());
+		InitializrMetadata snapshot = provider.get();
+		assertTrue(provider.refresh());
+		assertSame(snapshot, provider.get());
+		assertEquals(2, provider.getSnapshotId());
+		this.mockServer.verify();
+	}
+
+	@Test
+	public void invalidSnapshotIsNotPublished() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate) {
+					@Override
+					protected InitializrMetadata createMetadata(
+							InitializrMetadata current,
+							List<DefaultMetadataElement> bootVersions) {
+						throw new InvalidInitializrMetadataException("test");
+					}
+				};
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		provider.setApplicationEventPublisher(eventPublisher);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+
+		assertFalse(provider.refresh());
+		assertSame(metadata, provider.get());
+		assertEquals(1, provider.getSnapshotId());
+		assertEquals(1, provider.getRefreshFailureCount());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	public void identicalUpdateIsNotPublished() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("1.4.1.BUILD-SNAPSHOT", false)
+				.addBootVersion("1.4.0.RELEASE", true).build();
+		metadata.getBootVersions().getContent().get(0).setName("1.4.1 (SNAPSHOT)");
+		metadata.getBootVersions().getContent().get(1).setName("1.4.0");
+		metadata.getBootVersions().getContent().add(element("1.3.8.BUILD-SNAPSHOT",
+				"1.3.8 (SNAPSHOT)"));
+		metadata.getBootVersions().getContent().add(element("1.3.7.RELEASE", "1.3.7"));
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		provider.setApplicationEventPublisher(eventPublisher);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+
+		assertTrue(provider.refresh());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	public void getDoesNotFetchBootVersions() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		assertSame(metadata, provider.get());
+		this.mockServer.verify();
+	}
+
+	@Test
+	public void startFetchesBootVersionsOnceWithoutSchedule()
+			throws InterruptedException {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+		provider.start();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (provider.getSnapshotId() == 1
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(2, provider.getSnapshotId());
+		assertEquals("1.4.0.RELEASE",
+				provider.get().getBootVersions().getDefault().getId());
+		provider.stop();
+		this.mockServer.verify();
+	}
+
+	@Test
+	public void failedRefreshKeepsCurrentBootVersions() {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+		provider.setApplicationEventPublisher(eventPublisher);
+		this.mockServer.expect(requestTo(
+				metadata.getConfiguration().getEnv().getSpringBootMetadataUrl()))
+				.andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+		assertFalse(provider.refresh());
+		assertEquals(1, provider.getRefreshFailureCount());
+		assertEquals(1, provider.get().getBootVersions().getContent().size());
+		assertEquals("0.0.9.RELEASE",
+				provider.get().getBootVersions().getDefault().getId());
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	public void successfulRefreshResetsAge() throws InterruptedException {
+		InitializrMetadata metadata = new InitializrMetadataTestBuilder()
+				.addBootVersion("0.0.9.RELEASE", true).build();
+		DefaultInitializrMetadataProvider provider =
+				new DefaultInitializrMetadataProvider(metadata, objectMapper,
+						restTemplate);
+		Thread.sleep(50);
+		Duration age = provider.getAge();
+		assertTrue(age.toMillis() >= 50);
+		expectJson(metadata.getConfiguration().getEnv().getSpringBootMetadataUrl(),
+				"metadata/sagan/spring-boot.json");
+		assertTrue(provider.refresh());
+		assertTrue(provider.getAge().compareTo(age) < 0);
+	}
+
+	@Test
+	public void refreshDelayIsJitteredAroundInterval() {
+		assertEquals(900, DefaultInitializrMetadataProvider.computeDelay(0, 1000, 10, 0));
+		assertEquals(1100, DefaultInitializrMetadataProvider.computeDelay(0, 1000, 10, 1));
+	}
+
+	@Test
+	public void refreshDelayBacksOffOnConsecutiveFailures() {
+		assertEquals(10, DefaultInitializrMetadataProvider.computeDelay(1, 1000, 10, 1));
+		assertEquals(20, DefaultInitializrMetadataProvider.computeDelay(2, 1000, 10, 1));
+		assertEquals(40, DefaultInitializrMetadataProvider.computeDelay(3, 1000, 10, 1));
+		assertEquals(20, DefaultInitializrMetadataProvider.computeDelay(3, 1000, 10, 0));
+	}
+
+	@Test
+	public void refreshDelayBackoffIsCappedByInterval() {
+		assertEquals(1000,
+				DefaultInitializrMetadataProvider.computeDelay(10, 1000, 10, 1));
+		assertEquals(1000,
+				DefaultInitializrMetadataProvider.computeDelay(100, 1000, 10, 1));
+	}
+
+	private static DefaultMetadataElement element(String id, String name) {
+		DefaultMetadataElement element = new DefaultMetadataElement();
+		element.setId(id);
+		element.setName(name);
+		return element;
+	}
+
 	private static void assertBootVersion(DefaultMetadataElement actual, String name,
 			boolean defaultVersion) {
 		assertEquals(name, actual.getName());
@@ -119,4 +359,27 @@ public class DefaultInitializrMetadataProviderTests {
 						.headers(httpHeaders));
 	}
 
+	static class CustomInitializrMetadata extends InitializrMetadata {
+
+		private String theme;
+
+		@JsonIgnore
+		public String getTheme() {
+			return this.theme;
+		}
+
+		public void setTheme(String theme) {
+			this.theme = theme;
+		}
+
+		@Override
+		public void merge(InitializrMetadata other) {
+			super.merge(other);
+			if (other instanceof CustomInitializrMetadata) {
+				this.theme = ((CustomInitializrMetadata) other).theme;
+			}
+		}
+
+	}
+
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2012-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.spring.initializr.web.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.spring.initializr.metadata.InitializrMetadata;
+import io.spring.initializr.test.metadata.InitializrMetadataTestBuilder;
+import io.spring.initializr.web.support.MetadataContentCache.MetadataContent;
+import org.junit.Test;
+
+import org.springframework.util.DigestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MetadataContentCache}.
+ *
+ * @author Stephane Nicoll
+ */
+public class MetadataContentCacheTests {
+
+	private final MetadataContentCache cache = new MetadataContentCache(2);
+
+	private final AtomicInteger writes = new AtomicInteger();
+
+	@Test
+	public void contentIsCachedPerKey() {
+		InitializrMetadata metadata = createMetadata();
+		MetadataContent content = this.cache.get(metadata, "one", this::write);
+		assertThat(new String(content.getContent(), StandardCharsets.UTF_8))
+				.isEqualTo("{\"write\":1}");
+		assertThat(content.getETag())
+				.isEqualTo(DigestUtils.md5DigestAsHex(content.getContent()));
+		assertThat(this.cache.get(metadata, "one", this::write)).isSameAs(content);
+		assertThat(this.cache.get(metadata, "two", this::write)).isNotSameAs(content);
+		assertThat(this.writes.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void newSnapshotDiscardsContent() {
+		MetadataContent content = this.cache.get(createMetadata(), "one", this::write);
+		MetadataContent other = this.cache.get(createMetadata(), "one", this::write);
+		assertThat(other).isNotSameAs(content);
+		assertThat(other.getETag()).isNotEqualTo(content.getETag());
+		assertThat(this.cache.size()).isEqualTo(1);
+		assertThat(this.writes.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void leastRecentlyUsedContentIsEvictedPastMaxEntries() {
+		InitializrMetadata metadata = createMetadata();
+		MetadataContent one = this.cache.get(metadata, "one", this::write);
+		MetadataContent two = this.cache.get(metadata, "two", this::write);
+		this.cache.get(metadata, "one", this::write);
+		this.cache.get(metadata, "three", this::write);
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.get(metadata, "one", this::write)).isSameAs(one);
+		assertThat(this.cache.get(metadata, "two", this::write)).isNotSameAs(two);
+		assertThat(this.writes.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void clearDiscardsContentOfSameSnapshot() {
+		InitializrMetadata metadata = createMetadata();
+		MetadataContent content = this.cache.get(metadata, "one", this::write);
+		this.cache.clear();
+		assertThat(this.cache.size()).isEqualTo(0);
+		assertThat(this.cache.get(metadata, "one", this::write)).isNotSameAs(content);
+		assertThat(this.writes.get()).isEqualTo(2);
+	}
+
+	private String write() {
+		return "{\"write\":" + this.writes.incrementAndGet() + "}";
+	}
+
+	private static InitializrMetadata createMetadata() {
+		return InitializrMetadataTestBuilder.withDefaults().build();
+	}
+
+}